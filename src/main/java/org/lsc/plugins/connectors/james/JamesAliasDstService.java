@@ -42,18 +42,26 @@
  */
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.List;
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.WebApplicationException;
 
+import org.lsc.LscDatasetModification;
 import org.lsc.LscDatasets;
 import org.lsc.LscModifications;
 import org.lsc.beans.IBean;
@@ -65,18 +73,40 @@ import org.lsc.exception.LscServiceConfigurationException;
 import org.lsc.exception.LscServiceException;
 import org.lsc.plugins.connectors.james.beans.Alias;
 import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.cache.CachingJamesDao;
+import org.lsc.plugins.connectors.james.coalesce.AliasDelta;
+import org.lsc.plugins.connectors.james.coalesce.Coalescer;
+import org.lsc.plugins.connectors.james.coalesce.CoalescingSettings;
+import org.lsc.plugins.connectors.james.diff.AliasDiff;
 import org.lsc.plugins.connectors.james.generated.JamesAliasService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.generated.WriteBehindType;
+import org.lsc.plugins.connectors.james.journal.FailureJournalSettings;
+import org.lsc.plugins.connectors.james.metrics.JmxMetrics;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderedExecutor;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderingSettings;
+import org.lsc.plugins.connectors.james.pivots.CompactPivotMap;
+import org.lsc.plugins.connectors.james.resilience.BulkheadFullException;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerOpenException;
+import org.lsc.plugins.connectors.james.snapshot.AliasPrefetchSettings;
+import org.lsc.plugins.connectors.james.snapshot.AliasSnapshot;
+import org.lsc.plugins.connectors.james.snapshot.DestinationSnapshot;
+import org.lsc.plugins.connectors.james.snapshot.DestinationSnapshotSettings;
+import org.lsc.plugins.connectors.james.writebehind.WriteBehindQueue;
+import org.lsc.plugins.connectors.james.writebehind.WriteBehindSettings;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 
-public class JamesAliasDstService implements IWritableService {
+public class JamesAliasDstService implements IWritableService, Closeable {
 	
 	protected static final Logger LOGGER = LoggerFactory.getLogger(JamesAliasDstService.class);
+	private static final String SOURCES = "sources";
+	private static final int ALIASES_READ_CAPACITY = 1024;
 	/**
 	 * Preceding the object feeding, it will be instantiated from this class.
 	 */
@@ -86,6 +116,26 @@ public class JamesAliasDstService implements IWritableService {
 	private final PluginConnectionType connection;
 
 	private final JamesDao jamesDao;
+
+	private final AliasPrefetchSettings aliasPrefetchSettings;
+	private AliasSnapshot aliasSnapshot;
+	private final DestinationSnapshotSettings destinationSnapshotSettings;
+	private final DestinationSnapshot destinationSnapshot;
+	private boolean destinationSnapshotRefreshed;
+
+	/**
+	 * Aliases of the beans returned by getBean, which LSC compared to the source
+	 * to compute the modifications given to apply. Bounded, as LSC only applies
+	 * modifications to some of the beans it reads.
+	 */
+	private final Cache<String, List<Alias>> aliasesRead = CacheBuilder.newBuilder()
+		.maximumSize(ALIASES_READ_CAPACITY)
+		.build();
+	private final boolean rereadAliasesOnUpdate;
+	private final KeyOrderedExecutor ordering;
+	private final WriteBehindQueue writeBehind;
+	private final Coalescer<AliasDelta> coalescer;
+	private final List<Closeable> metrics = new ArrayList<>();
 	
 	/**
 	 * Create the service
@@ -104,13 +154,67 @@ public class JamesAliasDstService implements IWritableService {
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
 			connection = (PluginConnectionType) service.getConnection().getReference();
 
-			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			jamesDao = CachingJamesDao.of(connection.getUrl(), connection.getPassword(), service);
+			aliasPrefetchSettings = service.getAliasPrefetch() == null ? null : AliasPrefetchSettings.from(service.getAliasPrefetch());
+			rereadAliasesOnUpdate = Boolean.TRUE.equals(service.isRereadAliasesOnUpdate());
+			if (service.getFailureJournal() != null && FailureJournalSettings.from(service.getFailureJournal()).isReplay()) {
+				replayFailureJournal();
+			}
+			destinationSnapshotSettings = service.getDestinationSnapshot() == null ? null
+				: DestinationSnapshotSettings.from(service.getDestinationSnapshot());
+			destinationSnapshot = destinationSnapshotSettings == null ? null : openDestinationSnapshot(connection.getUrl());
+			KeyOrderedExecutor executor = null;
+			if (service.getKeyOrdering() != null) {
+				executor = new KeyOrderedExecutor(KeyOrderingSettings.from(service.getKeyOrdering()), "james-alias");
+				metrics.add(JmxMetrics.register("KeyOrderedExecutor", connection.getUrl(), executor));
+			}
+			if (service.getWriteBehind() != null || service.getCoalescing() != null) {
+				// Merged modifications are written in the background, with the default settings unless configured
+				WriteBehindSettings writeBehindSettings = WriteBehindSettings.from(
+					Optional.ofNullable(service.getWriteBehind()).orElseGet(WriteBehindType::new));
+				writeBehind = executor != null ? new WriteBehindQueue(writeBehindSettings, executor)
+					: new WriteBehindQueue(writeBehindSettings, "james-alias");
+				metrics.add(JmxMetrics.register("WriteBehindQueue", connection.getUrl(), writeBehind));
+				ordering = null;
+			} else {
+				writeBehind = null;
+				ordering = executor;
+			}
+			if (service.getCoalescing() != null) {
+				coalescer = new Coalescer<>(CoalescingSettings.from(service.getCoalescing()), AliasDelta::then,
+					(email, delta) -> writeBehind.submit(email, () -> writeInBackground(() -> writeAliases(new User(email), delta))),
+					"james-alias");
+				metrics.add(JmxMetrics.register("Coalescer", connection.getUrl(), coalescer));
+			} else {
+				coalescer = null;
+			}
 			
 		} catch (ClassNotFoundException e) {
 			throw new LscServiceConfigurationException(e);
 		}
 	}
+
+	/**
+	 * Writes again the aliases whose write failed during the previous runs,
+	 * before LSC compares them to the source.
+	 */
+	private void replayFailureJournal() throws LscServiceConfigurationException {
+		try {
+			jamesDao.replayFailureJournal()
+				.ifPresent(replay -> LOGGER.info("Replayed the James alias failure journal: {}", replay));
+		} catch (IOException e) {
+			throw new LscServiceConfigurationException("Unable to replay the James alias failure journal", e);
+		}
+	}
 	
+	private DestinationSnapshot openDestinationSnapshot(String endpoint) throws LscServiceConfigurationException {
+		try {
+			return DestinationSnapshot.open(destinationSnapshotSettings, endpoint, "aliases");
+		} catch (IOException e) {
+			throw new LscServiceConfigurationException("Unable to open the James alias snapshot", e);
+		}
+	}
+
 	@Override
 	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService)
 			throws LscServiceException {
@@ -124,6 +228,24 @@ public class JamesAliasDstService implements IWritableService {
 			return null;
 		}
 		try {
+			DestinationSnapshot stored = destinationSnapshot();
+			if (stored != null && stored.covers(email)) {
+				List<String> sources = stored.get(email);
+				if (sources == null) {
+					LOGGER.debug(String.format("%s/%s not found in the destination snapshot", pivotName, email));
+					return null;
+				}
+				return aliasesToBean(email, sources.stream().map(Alias::new).collect(Collectors.toList()));
+			}
+			AliasSnapshot snapshot = aliasSnapshot();
+			if (snapshot != null && snapshot.covers(email)) {
+				List<Alias> aliases = snapshot.get(email);
+				if (aliases == null) {
+					LOGGER.debug(String.format("%s/%s not found in the alias snapshot", pivotName, email));
+					return null;
+				}
+				return aliasesToBean(email, aliases);
+			}
 			List<Alias> aliases = jamesDao.getAliases(email);
 			return aliasesToBean(email, aliases);
 		} catch (ProcessingException e) {
@@ -147,7 +269,62 @@ public class JamesAliasDstService implements IWritableService {
 
 	}
 
+	/**
+	 * @return the alias snapshot, fetched at the first call and once expired,
+	 * or null when the prefetch is not configured
+	 */
+	private synchronized AliasSnapshot aliasSnapshot() {
+		if (aliasPrefetchSettings == null) {
+			return null;
+		}
+		if (aliasSnapshot == null || aliasSnapshot.isOlderThan(aliasPrefetchSettings.getMaxAge())) {
+			aliasSnapshot = null;
+			aliasSnapshot = AliasSnapshot.fetch(jamesDao, aliasPrefetchSettings.getConcurrency());
+		}
+		return aliasSnapshot;
+	}
+
+	/**
+	 * @return the destination snapshot, refreshed from James at the first
+	 * call, or null when it is not configured
+	 */
+	private synchronized DestinationSnapshot destinationSnapshot() {
+		if (destinationSnapshot == null || destinationSnapshotRefreshed) {
+			return destinationSnapshot;
+		}
+		destinationSnapshotRefreshed = true;
+		long start = System.nanoTime();
+		boolean verify = destinationSnapshotSettings.isVerify();
+		List<String> toRead = destinationSnapshot.refresh(jamesDao::forEachUserViaAlias, verify);
+		AliasSnapshot.fetchEach(jamesDao, toRead, destinationSnapshotSettings.getConcurrency(),
+			(email, aliases) -> {
+				if (aliases == null || aliases.isEmpty()) {
+					destinationSnapshot.remove(email);
+				} else {
+					destinationSnapshot.put(email, toSources(aliases));
+				}
+			},
+			destinationSnapshot::unknown);
+		if (verify) {
+			try {
+				destinationSnapshot.compact();
+			} catch (IOException e) {
+				LOGGER.warn("Unable to compact the James alias snapshot: {}", e.toString());
+			}
+		}
+		LOGGER.info("Refreshed the James alias snapshot in {} ms: {}",
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), destinationSnapshot);
+		return destinationSnapshot;
+	}
+
+	private static List<String> toSources(Collection<Alias> aliases) {
+		return aliases.stream().map(alias -> alias.source).collect(Collectors.toList());
+	}
+
 	private IBean aliasesToBean(String email, List<Alias> aliases) throws InstantiationException, IllegalAccessException {
+		if (!rereadAliasesOnUpdate) {
+			aliasesRead.put(email, aliases);
+		}
 		IBean bean = beanClass.newInstance();
 		bean.setMainIdentifier(email);
 		bean.setDatasets(toDataset(email, aliases));
@@ -160,20 +337,17 @@ public class JamesAliasDstService implements IWritableService {
 		List<String> aliasesAsStringList = aliases.stream()
 			.map(alias -> alias.source)
 			.collect(Collectors.toList());
-		datasets.put("sources", aliasesAsStringList);
+		datasets.put(SOURCES, aliasesAsStringList);
 		return datasets;
 	}
 
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		flushWrites();
 		try {
-			List<User> userList = jamesDao.getUsersListViaAlias();
-
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			CompactPivotMap.Builder listPivots = CompactPivotMap.builder();
+			jamesDao.forEachUserViaAlias(listPivots);
+			return listPivots.build();
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -192,33 +366,71 @@ public class JamesAliasDstService implements IWritableService {
 			return false;
 		}
 		User user = new User(lm.getMainIdentifier());
-		try {
-			switch(lm.getOperation()) {
-			case CHANGE_ID:
-				LOGGER.warn("Trying to change ID of James aliases, impossible operation, ignored.");
-				// Silently return without doing anything
-				return true;
-			case CREATE_OBJECT:
-				LOGGER.debug("Creating James aliases: " + lm.getMainIdentifier());
-				List<Alias> aliasesToCreate = aliasesFromSource(lm).orElse(ImmutableList.of());
-				return jamesDao.createAliases(user, aliasesToCreate);
-			case UPDATE_OBJECT:
-				LOGGER.debug("Getting James aliases for update: " + lm.getMainIdentifier());
-				
-				Optional<List<Alias>> maybeAliasesInSource = aliasesFromSource(lm);
-				
-				return maybeAliasesInSource.map(aliasesInSource -> {
-					LOGGER.debug("Modifying James aliases: " + lm.getMainIdentifier() + " with: " + lm.getModificationsItemsByHash());
-					return jamesDao.updateAliases(user, aliasesInSource);
-				}).orElse(false);
-			
-			case DELETE_OBJECT:
-				LOGGER.debug("Deleting James aliases: " + lm.getMainIdentifier());
-				return jamesDao.deleteAlias(user);
-			default:
-				LOGGER.error(String.format("Unknown operation %s", lm.getOperation()));
+		invalidateAliasSnapshot(user);
+		List<Alias> aliasesInDestination = aliasesRead.asMap().remove(user.email);
+		AliasDelta delta;
+		switch(lm.getOperation()) {
+		case CHANGE_ID:
+			LOGGER.warn("Trying to change ID of James aliases, impossible operation, ignored.");
+			// Silently return without doing anything
+			return true;
+		case CREATE_OBJECT:
+			LOGGER.debug("Creating James aliases: " + lm.getMainIdentifier());
+			delta = AliasDelta.created(aliasesFromSource(lm).orElse(ImmutableList.of()));
+			break;
+		case UPDATE_OBJECT:
+			Optional<LscDatasetModification> maybeSourcesModification = sourcesModification(lm);
+			if (maybeSourcesModification.isEmpty()) {
 				return false;
 			}
+			LOGGER.debug("Modifying James aliases: " + lm.getMainIdentifier() + " with: " + lm.getModificationsItemsByHash());
+			delta = toDelta(maybeSourcesModification.get(), aliasesInDestination);
+			break;
+		case DELETE_OBJECT:
+			LOGGER.debug("Deleting James aliases: " + lm.getMainIdentifier());
+			delta = AliasDelta.deleted();
+			break;
+		default:
+			LOGGER.error(String.format("Unknown operation %s", lm.getOperation()));
+			return false;
+		}
+		if (coalescer != null) {
+			coalescer.add(user.email, delta);
+			return true;
+		}
+		if (writeBehind != null) {
+			writeBehind.submit(user.email, () -> writeInBackground(() -> writeAliases(user, delta)));
+			return true;
+		}
+		if (ordering != null) {
+			return writeInOrder(user.email, () -> write(() -> writeAliases(user, delta)));
+		}
+		return write(() -> writeAliases(user, delta));
+	}
+
+	/**
+	 * Writes after the modifications of the same user given by the other LSC
+	 * threads, and waits for the outcome.
+	 */
+	private boolean writeInOrder(String email, Callable<Boolean> write) throws LscServiceException {
+		try {
+			return ordering.submit(email, write).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LscServiceException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof LscServiceException) {
+				throw (LscServiceException) e.getCause();
+			}
+			throw new LscServiceException(e.getCause());
+		}
+	}
+
+	private static boolean write(BooleanSupplier write) throws LscServiceCommunicationException {
+		try {
+			return write.getAsBoolean();
+		} catch (CircuitBreakerOpenException e) {
+			throw new LscServiceCommunicationException(e);
 		} catch (NotFoundException e) {
 			LOGGER.error(String.format("NotFoundException while writing (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -228,16 +440,123 @@ public class JamesAliasDstService implements IWritableService {
 			LOGGER.debug(e.toString(), e);
 			return false;
 		}
+	}
 
+	/**
+	 * Writes a modification apply already accepted: a failure to reach James
+	 * is thrown, so that the task stops as with a synchronous write. A write
+	 * rejected by a full bulkhead only fails.
+	 */
+	private static boolean writeInBackground(BooleanSupplier write) throws LscServiceCommunicationException {
+		try {
+			return write.getAsBoolean();
+		} catch (NotFoundException e) {
+			LOGGER.error(String.format("NotFoundException while writing (%s)", e));
+			LOGGER.debug(e.toString(), e);
+			return false;
+		} catch (BulkheadFullException e) {
+			LOGGER.error(String.format("BulkheadFullException while writing (%s)", e));
+			return false;
+		} catch (ProcessingException e) {
+			throw new LscServiceCommunicationException(e);
+		}
+	}
+
+	private synchronized void invalidateAliasSnapshot(User user) {
+		if (aliasSnapshot != null) {
+			aliasSnapshot.invalidate(user.email);
+		}
+	}
+
+	private static AliasDelta toDelta(LscDatasetModification sourcesModification, List<Alias> aliasesInDestination) {
+		List<Alias> aliases = toAliases(sourcesModification.getValues());
+		switch (sourcesModification.getOperation()) {
+		case ADD_VALUES:
+			return AliasDelta.added(aliases, aliasesInDestination);
+		case DELETE_VALUES:
+			// Deleting no value deletes the attribute, as in LDAP
+			return aliases.isEmpty() ? AliasDelta.replaced(List.of(), aliasesInDestination)
+				: AliasDelta.removed(aliases, aliasesInDestination);
+		default:
+			return AliasDelta.replaced(aliases, aliasesInDestination);
+		}
+	}
+
+	/**
+	 * Writes the aliases of a user, keeping the destination snapshot up to
+	 * date with the outcome.
+	 */
+	private boolean writeAliases(User user, AliasDelta delta) {
+		DestinationSnapshot stored = destinationSnapshot();
+		if (stored == null) {
+			return sendAliases(user, delta);
+		}
+		stored.writing(user.email);
+		boolean written = false;
+		try {
+			written = sendAliases(user, delta);
+		} finally {
+			if (!written) {
+				stored.failed(user.email);
+			} else if (delta.isReplacement() && !delta.isCreated()) {
+				stored.written(user.email, delta.getReplacement().isEmpty() ? null : toSources(delta.getReplacement()));
+			} else {
+				Set<String> added = Set.copyOf(toSources(delta.isCreated() ? delta.getReplacement() : delta.getAdded()));
+				Set<String> removed = Set.copyOf(toSources(delta.getRemoved()));
+				stored.updated(user.email, sources -> {
+					Set<String> result = new HashSet<>(sources == null ? List.of() : sources);
+					result.removeAll(removed);
+					result.addAll(added);
+					return result.isEmpty() ? null : List.copyOf(result);
+				});
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Writes the added and removed aliases as they are. Replacements are
+	 * compared to the aliases getBean returned, or to those read again from
+	 * James when unknown or when asked to. The aliases of a created user
+	 * are only created.
+	 */
+	private boolean sendAliases(User user, AliasDelta delta) {
+		if (delta.isCreated()) {
+			return jamesDao.createAliases(user, List.copyOf(delta.getReplacement()));
+		}
+		if (delta.isReplacement()) {
+			List<Alias> aliases = List.copyOf(delta.getReplacement());
+			if (delta.getExisting() != null) {
+				AliasDiff diff = AliasDiff.between(aliases, delta.getExisting());
+				return jamesDao.removeAliases(user, diff.getToRemove())
+					&& jamesDao.createAliases(user, diff.getToAdd());
+			}
+			if (aliases.isEmpty()) {
+				return jamesDao.deleteAlias(user);
+			}
+			LOGGER.debug("Getting James aliases for update: " + user.email);
+			return jamesDao.updateAliases(user, aliases);
+		}
+		return (delta.getRemoved().isEmpty() || jamesDao.removeAliases(user, List.copyOf(delta.getRemoved())))
+			&& (delta.getAdded().isEmpty() || jamesDao.createAliases(user, List.copyOf(delta.getAdded())));
+	}
+
+	private Optional<LscDatasetModification> sourcesModification(LscModifications lm) {
+		return lm.getLscAttributeModifications().stream()
+				.filter(modification -> SOURCES.equals(modification.getAttributeName()))
+				.findFirst();
+	}
+
+	private static List<Alias> toAliases(List<Object> sources) {
+		return sources.stream()
+				.map(alias -> new Alias(((String) alias)))
+				.collect(Collectors.toList());
 	}
 
 	private Optional<List<Alias>> aliasesFromSource(LscModifications lm) {
 		return Optional.ofNullable(lm.getModificationsItemsByHash()
-				.get("sources"))
-				.map(sources -> sources
-					.stream()
-					.map(alias -> new Alias(((String) alias)))
-					.collect(Collectors.toList()));		
+				.get(SOURCES))
+				.map(JamesAliasDstService::toAliases);
 	}
 
 	@Override
@@ -250,4 +569,61 @@ public class JamesAliasDstService implements IWritableService {
 		return list;
 	}
 
+	/**
+	 * Waits for the modifications written in the background, so that the
+	 * aliases listed next include them, and reports those that failed.
+	 */
+	private void flushWrites() throws LscServiceException {
+		if (coalescer != null) {
+			coalescer.flush();
+		}
+		if (writeBehind == null) {
+			return;
+		}
+		try {
+			if (!writeBehind.flush()) {
+				LOGGER.warn("Listing the James aliases while {} background writes are still pending", writeBehind.getPending());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LscServiceException(e);
+		}
+		writeBehind.checkFailures();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (coalescer != null) {
+			coalescer.close();
+			LOGGER.info("James alias modifications merged: {}", coalescer);
+		}
+		if (writeBehind != null) {
+			writeBehind.close();
+			LOGGER.info("James alias background writes: {}", writeBehind);
+		}
+		if (ordering != null) {
+			ordering.close();
+			LOGGER.info("James alias ordered writes: {}", ordering);
+		}
+		for (Closeable registration : metrics) {
+			try {
+				registration.close();
+			} catch (IOException e) {
+				LOGGER.debug("Unable to unregister the background write metrics", e);
+			}
+		}
+		if (destinationSnapshot != null) {
+			destinationSnapshot.close();
+			LOGGER.info("James alias snapshot: {}", destinationSnapshot);
+		}
+		jamesDao.close();
+		if (writeBehind != null) {
+			try {
+				writeBehind.checkFailures();
+			} catch (LscServiceException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+	}
+
 }
@@ -42,12 +42,33 @@
  */
 package org.lsc.plugins.connectors.james;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.NotFoundException;
-import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.ServerErrorException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.CompletionStageRxInvoker;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.GenericType;
@@ -55,222 +76,901 @@ import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 
-import org.glassfish.jersey.jackson.JacksonFeature;
-import org.lsc.configuration.TaskType;
 import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult.Item;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult.Operation;
 import org.lsc.plugins.connectors.james.beans.User;
-import org.lsc.plugins.connectors.james.beans.UserDto;
+import org.lsc.plugins.connectors.james.diff.AliasDiff;
+import org.lsc.plugins.connectors.james.generated.BulkheadType;
+import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.generated.TransportType;
+import org.lsc.plugins.connectors.james.http.ConnectionPoolSettings;
+import org.lsc.plugins.connectors.james.http.JamesClientRegistry;
+import org.lsc.plugins.connectors.james.http.ListingCacheSettings;
+import org.lsc.plugins.connectors.james.http.ListingStore;
+import org.lsc.plugins.connectors.james.journal.FailureJournal;
+import org.lsc.plugins.connectors.james.journal.FailureJournalSettings;
+import org.lsc.plugins.connectors.james.metrics.JmxMetrics;
+import org.lsc.plugins.connectors.james.resilience.AdaptiveConcurrencyLimiter;
+import org.lsc.plugins.connectors.james.resilience.Bulkhead;
+import org.lsc.plugins.connectors.james.resilience.BulkheadSettings;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreaker;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerSettings;
+import org.lsc.plugins.connectors.james.resilience.HedgingPolicy;
+import org.lsc.plugins.connectors.james.resilience.HedgingSettings;
+import org.lsc.plugins.connectors.james.resilience.ConcurrencyLimitSettings;
+import org.lsc.plugins.connectors.james.resilience.RateLimitSettings;
+import org.lsc.plugins.connectors.james.resilience.RateLimiter;
+import org.lsc.plugins.connectors.james.resilience.RetryPolicy;
+import org.lsc.plugins.connectors.james.resilience.RetrySettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class JamesDao {
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+public class JamesDao implements Closeable {
 	
 	public static final String ALIASES_PATH = "/address/aliases"; 
 	public static final String USERS_PATH = "/users";
 	public static final int HTTP_STATUS_CODE_USER_EXITS = Status.OK.getStatusCode();
 	public static final int HTTP_STATUS_CODE_USER_DOES_NOT_EXITS = Status.NOT_FOUND.getStatusCode();
+	/** Error bodies are logged up to this number of bytes. */
+	public static final int MAX_ERROR_BODY_LENGTH = 1024;
+
+	private static final String USERNAME_FIELD = "username";
+	private static final String USERS_LISTING = "users";
+	private static final String USERS_WITH_ALIAS_LISTING = "users-with-alias";
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final String READ_LANE = "read";
+	private static final String WRITE_LANE = "write";
 
 	protected static final Logger LOGGER = LoggerFactory.getLogger(JamesDao.class);
 
+	private final Closeable client;
 	private final WebTarget aliasesClient;
 	private final WebTarget usersClient;
 
 	private final String authorizationBearer;
+
+	private final int aliasWriteConcurrency;
+	private final ExecutorService aliasWriters;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+	private final RetryPolicy retryPolicy;
+	private final CircuitBreaker circuitBreaker;
+	private final RateLimiter rateLimiter;
+	private final HedgingPolicy hedgingPolicy;
+	private final Bulkhead readBulkhead;
+	private final Bulkhead writeBulkhead;
+	private final JamesClientRegistry.Lease writeClient;
+	private final WebTarget hedgeAliasesClient;
+	private final WebTarget hedgeUsersClient;
+	private final Closeable hedgeClient;
+	private final ListingStore listings;
+	private final FailureJournal failureJournal;
+	private final List<Closeable> metrics = new ArrayList<>();
 	
-	public JamesDao(String url, String token, TaskType task) {
-		authorizationBearer = "Bearer " + token;
-		aliasesClient = ClientBuilder.newClient()
-				.register(JacksonFeature.class)
-				.target(url)
-				.path(ALIASES_PATH);
+	public JamesDao(String url, String token, JamesService service) {
+		this(url, token, service, acquireClient(url, token, service, READ_LANE));
+	}
+
+	private JamesDao(String url, String token, JamesService service, JamesClientRegistry.Lease clientLease) {
+		this(clientLease.getClient().target(url), token, service, clientLease);
+	}
+
+	JamesDao(WebTarget webadmin, String token, JamesService service, Closeable client) {
+		this.authorizationBearer = "Bearer " + token;
+		this.client = client;
+		this.aliasesClient = webadmin.path(ALIASES_PATH);
+		this.usersClient = webadmin.path(USERS_PATH);
+		this.aliasWriteConcurrency = Math.max(1, Optional.ofNullable(service.getAliasWriteConcurrency()).orElse(1));
+		this.aliasWriters = aliasWriteConcurrency > 1
+			? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("james-alias-writer-", 0).factory())
+			: null;
+		if (service.getConcurrencyLimit() != null) {
+			this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimitSettings.from(service.getConcurrencyLimit()));
+			metrics.add(JmxMetrics.register("ConcurrencyLimiter", webadmin.getUri().toString(), concurrencyLimiter));
+		} else {
+			this.concurrencyLimiter = null;
+		}
+		if (service.getRetry() != null) {
+			this.retryPolicy = new RetryPolicy(RetrySettings.from(service.getRetry()));
+			metrics.add(JmxMetrics.register("RetryPolicy", webadmin.getUri().toString(), retryPolicy));
+		} else {
+			this.retryPolicy = null;
+		}
+		if (service.getCircuitBreaker() != null) {
+			this.circuitBreaker = new CircuitBreaker(CircuitBreakerSettings.from(service.getCircuitBreaker()), webadmin.getUri().toString());
+			metrics.add(JmxMetrics.register("CircuitBreaker", webadmin.getUri().toString(), circuitBreaker));
+		} else {
+			this.circuitBreaker = null;
+		}
+		if (service.getRateLimit() != null) {
+			this.rateLimiter = new RateLimiter(RateLimitSettings.from(service.getRateLimit()));
+			metrics.add(JmxMetrics.register("RateLimiter", webadmin.getUri().toString(), rateLimiter));
+		} else {
+			this.rateLimiter = null;
+		}
+		if (service.getHedging() != null) {
+			HedgingSettings hedgingSettings = HedgingSettings.from(service.getHedging());
+			this.hedgingPolicy = new HedgingPolicy(hedgingSettings);
+			metrics.add(JmxMetrics.register("HedgingPolicy", webadmin.getUri().toString(), hedgingPolicy));
+			Optional<JamesClientRegistry.Lease> hedgeLease = hedgingSettings.getEndpoint()
+				.map(endpoint -> JamesClientRegistry.getInstance()
+					.acquire(endpoint, token, ConnectionPoolSettings.from(service.getConnectionPool()), transportOf(service)));
+			WebTarget hedgeWebadmin = hedgeLease
+				.map(lease -> lease.getClient().target(hedgingSettings.getEndpoint().get()))
+				.orElse(webadmin);
+			this.hedgeClient = hedgeLease.orElse(null);
+			this.hedgeAliasesClient = hedgeWebadmin.path(ALIASES_PATH);
+			this.hedgeUsersClient = hedgeWebadmin.path(USERS_PATH);
+		} else {
+			this.hedgingPolicy = null;
+			this.hedgeClient = null;
+			this.hedgeAliasesClient = aliasesClient;
+			this.hedgeUsersClient = usersClient;
+		}
+		if (service.getBulkheads() != null) {
+			// The reads go through the client given to this constructor, the writes through their own one
+			String endpoint = webadmin.getUri().toString();
+			this.readBulkhead = new Bulkhead(bulkheadSettingsOf(service, READ_LANE), READ_LANE);
+			this.writeBulkhead = new Bulkhead(bulkheadSettingsOf(service, WRITE_LANE), WRITE_LANE);
+			this.writeClient = acquireClient(endpoint, token, service, WRITE_LANE);
+			metrics.add(JmxMetrics.register("ReadBulkhead", endpoint, readBulkhead));
+			metrics.add(JmxMetrics.register("WriteBulkhead", endpoint, writeBulkhead));
+		} else {
+			this.readBulkhead = null;
+			this.writeBulkhead = null;
+			this.writeClient = null;
+		}
+		this.listings = service.getListingCache() != null
+			? new ListingStore(ListingCacheSettings.from(service.getListingCache()), webadmin.getUri().toString())
+			: null;
+		this.failureJournal = service.getFailureJournal() != null
+			? new FailureJournal(FailureJournalSettings.from(service.getFailureJournal()), webadmin.getUri().toString())
+			: null;
+	}
+
+	private static TransportType transportOf(JamesService service) {
+		return Optional.ofNullable(service.getTransport()).orElse(TransportType.HTTP_1_1);
+	}
+
+	/**
+	 * @return the client of a lane, shared with the other lane when the bulkheads are not configured,
+	 * giving up on the responses after the timeout of the lane
+	 */
+	private static JamesClientRegistry.Lease acquireClient(String url, String token, JamesService service, String lane) {
+		if (service.getBulkheads() == null) {
+			return JamesClientRegistry.getInstance()
+				.acquire(url, token, ConnectionPoolSettings.from(service.getConnectionPool()), transportOf(service));
+		}
+		BulkheadSettings settings = bulkheadSettingsOf(service, lane);
+		return JamesClientRegistry.getInstance().acquire(url, token, settings.getConnectionPool(), transportOf(service), lane,
+			(int) settings.getTimeout());
+	}
+
+	private static BulkheadSettings bulkheadSettingsOf(JamesService service, String lane) {
+		BulkheadType bulkhead = READ_LANE.equals(lane) ? service.getBulkheads().getRead() : service.getBulkheads().getWrite();
+		return BulkheadSettings.from(bulkhead, ConnectionPoolSettings.from(service.getConnectionPool()));
+	}
+
+	@Override
+	public void close() {
+		if (aliasWriters != null) {
+			aliasWriters.shutdown();
+		}
+		if (retryPolicy != null && retryPolicy.getRetries() > 0) {
+			LOGGER.info("James webadmin retries: {}", retryPolicy);
+		}
+		if (hedgingPolicy != null && hedgingPolicy.getHedges() > 0) {
+			LOGGER.info("James webadmin hedged reads: {}", hedgingPolicy);
+		}
+		for (Closeable registration : metrics) {
+			try {
+				registration.close();
+			} catch (IOException e) {
+				LOGGER.debug("Unable to unregister James webadmin metrics", e);
+			}
+		}
+		try {
+			client.close();
+			if (writeClient != null) {
+				writeClient.close();
+			}
+			if (hedgeClient != null) {
+				hedgeClient.close();
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Unable to close James webadmin client", e);
+		}
+	}
+
+	/**
+	 * @return the limiter of the requests in flight, if configured
+	 */
+	Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+		return Optional.ofNullable(concurrencyLimiter);
+	}
 
-		usersClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
-			.target(url)
-			.path(USERS_PATH);
+	/**
+	 * @return the retry policy of the requests, if configured
+	 */
+	Optional<RetryPolicy> getRetryPolicy() {
+		return Optional.ofNullable(retryPolicy);
+	}
+
+	/**
+	 * @return the circuit breaker of the requests, if configured
+	 */
+	Optional<CircuitBreaker> getCircuitBreaker() {
+		return Optional.ofNullable(circuitBreaker);
+	}
+
+	/**
+	 * @return the rate limiter of the requests, if configured
+	 */
+	Optional<RateLimiter> getRateLimiter() {
+		return Optional.ofNullable(rateLimiter);
+	}
+
+	/**
+	 * @return the bulkhead of the reads, if configured
+	 */
+	Optional<Bulkhead> getReadBulkhead() {
+		return Optional.ofNullable(readBulkhead);
+	}
+
+	/**
+	 * @return the bulkhead of the writes, if configured
+	 */
+	Optional<Bulkhead> getWriteBulkhead() {
+		return Optional.ofNullable(writeBulkhead);
+	}
+
+	/**
+	 * @return the hedging policy of the reads, if configured
+	 */
+	Optional<HedgingPolicy> getHedgingPolicy() {
+		return Optional.ofNullable(hedgingPolicy);
 	}
 
 	public List<Alias> getAliases(String email) {
+		return await(getAliasesAsync(email));
+	}
+
+	public CompletableFuture<List<Alias>> getAliasesAsync(String email) {
 		WebTarget target = aliasesClient.path(email);
 		LOGGER.debug("GETting aliases: " + target.getUri().toString());
-		List<Alias> aliases = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.get(new GenericType<List<Alias>>(){});
-		if (aliases.isEmpty()) {
-			throw new NotFoundException();
-		}
-		return aliases;
+		return invokeHedged(target, hedgeAliasesClient.path(email), HttpMethod.GET)
+			.thenApply(response -> readEntity(response, new GenericType<List<Alias>>(){}))
+			.thenApply(aliases -> {
+				if (aliases.isEmpty()) {
+					throw new NotFoundException();
+				}
+				return aliases;
+			});
 	}
 
 	public List<User> getUsersListViaAlias() {
-		WebTarget target = aliasesClient.path("");
-		LOGGER.debug("GETting users with alias list: " + target.getUri().toString());
-		List<String> users = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.get(new GenericType<List<String>>(){});
-		return users.stream()
-			.map(User::new)
-			.collect(Collectors.toList());
+		return await(getUsersListViaAliasAsync());
+	}
+
+	public CompletableFuture<List<User>> getUsersListViaAliasAsync() {
+		List<User> users = new ArrayList<>();
+		return forEachUserViaAliasAsync(email -> users.add(new User(email)))
+			.thenApply(count -> users);
+	}
+
+	public long forEachUserViaAlias(Consumer<String> consumer) {
+		return await(forEachUserViaAliasAsync(consumer));
+	}
+
+	/**
+	 * Streams the emails of the users having aliases to the consumer, as the
+	 * response is read, without holding the whole list in memory.
+	 *
+	 * @return a future completed with the number of emails once all were consumed
+	 */
+	public CompletableFuture<Long> forEachUserViaAliasAsync(Consumer<String> consumer) {
+		LOGGER.debug("GETting users with alias list: " + aliasesClient.getUri().toString());
+		return readListing(aliasesClient, USERS_WITH_ALIAS_LISTING, null, consumer);
 	}
 
 	public boolean createAliases(User user, List<Alias> aliasesToAdd) {
-		return aliasesToAdd.stream()
-			.reduce(true,
-				(result, alias) -> result && createAlias(user, alias),
-				(result1, result2) -> result1 && result2); 
+		return await(createAliasesAsync(user, aliasesToAdd));
+	}
+
+	public CompletableFuture<Boolean> createAliasesAsync(User user, List<Alias> aliasesToAdd) {
+		return writeAliasesAsync(user, Operation.CREATE, aliasesToAdd).thenApply(AliasWriteResult::isSuccess);
+	}
+
+	/**
+	 * Creates or removes aliases of a user, telling the outcome of each of
+	 * them. The aliases which are not written are journaled when the failure
+	 * journal is configured.
+	 */
+	public AliasWriteResult writeAliases(User user, Operation operation, List<Alias> aliases) {
+		return await(writeAliasesAsync(user, operation, aliases));
+	}
+
+	public CompletableFuture<AliasWriteResult> writeAliasesAsync(User user, Operation operation, List<Alias> aliases) {
+		return applyToAliases(user, operation, aliases, new Semaphore(aliasWriteConcurrency));
 	}
 
-	private boolean createAlias(User user, Alias alias) {
+	private CompletableFuture<Item> createAliasAsync(User user, Alias alias) {
 		WebTarget target = aliasesClient.path(user.email).path("sources").path(alias.source);
 		LOGGER.debug("PUTting alias: " + target.getUri().toString());
-		Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.put(Entity.text(""));
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
-		if (checkResponse(response)) {
-			LOGGER.debug("PUT is successful");
-			return true;
-		} else {
-			LOGGER.error(String.format("Error %d (%s - %s) while creating alias: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-			return false;
-		}
+		return invoke(target, HttpMethod.PUT, Entity.text(""))
+			.thenApply(response -> {
+				if (checkResponse(response)) {
+					response.close();
+					LOGGER.debug("PUT is successful");
+					return Item.written(alias);
+				} else {
+					LOGGER.error(String.format("Error %d (%s - %s) while creating alias: %s",
+							response.getStatus(),
+							response.getStatusInfo(),
+							readErrorBody(response),
+							target.getUri().toString()));
+					return Item.failed(alias, response.getStatus() + " " + response.getStatusInfo());
+				}
+			});
 	}
 
 	public boolean removeAliases(User user, List<Alias> aliasesToRemove) {
-		return aliasesToRemove.stream()
-			.reduce(true,
-				(result, alias) -> result && removeAlias(user, alias),
-				(result1, result2) -> result1 && result2); 
+		return await(removeAliasesAsync(user, aliasesToRemove));
+	}
+
+	public CompletableFuture<Boolean> removeAliasesAsync(User user, List<Alias> aliasesToRemove) {
+		return writeAliasesAsync(user, Operation.REMOVE, aliasesToRemove).thenApply(AliasWriteResult::isSuccess);
 	}
 
-	private boolean removeAlias(User user, Alias alias) {
+	private CompletableFuture<Item> removeAliasAsync(User user, Alias alias) {
 		WebTarget target = aliasesClient.path(user.email).path("sources").path(alias.source);
 		LOGGER.debug("DELETEting alias: " + target.getUri().toString());
-		Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.delete();
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
-		if (checkResponse(response)) {
-			LOGGER.debug("DELETE is successful");
-			return true;
-		} else {
-			LOGGER.error(String.format("Error %d (%s - %s) while deleting alias: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-			return false;
+		return invoke(target, HttpMethod.DELETE)
+			.thenApply(response -> {
+				if (checkResponse(response)) {
+					response.close();
+					LOGGER.debug("DELETE is successful");
+					return Item.written(alias);
+				} else {
+					LOGGER.error(String.format("Error %d (%s - %s) while deleting alias: %s",
+							response.getStatus(),
+							response.getStatusInfo(),
+							readErrorBody(response),
+							target.getUri().toString()));
+					return Item.failed(alias, response.getStatus() + " " + response.getStatusInfo());
+				}
+			});
+	}
+
+	/**
+	 * Writes the aliases, concurrently when the alias write concurrency allows
+	 * it, and journals those which are not written. An alias whose request
+	 * fails, such as when the circuit breaker is open, is failed like an
+	 * error response: the write still fails with the first such failure,
+	 * once the aliases already written have been journaled as resolved.
+	 */
+	private CompletableFuture<AliasWriteResult> applyToAliases(User user, Operation operation, List<Alias> aliases, Semaphore permits) {
+		Function<Alias, CompletableFuture<Item>> send = operation == Operation.CREATE
+			? alias -> createAliasAsync(user, alias)
+			: alias -> removeAliasAsync(user, alias);
+		AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+		Function<Alias, CompletableFuture<Item>> write = alias -> send.apply(alias)
+			.exceptionally(failure -> {
+				Throwable cause = unwrap(failure);
+				firstFailure.compareAndSet(null, cause);
+				LOGGER.error(String.format("Error (%s) while writing alias %s of %s", cause, alias.source, user.email));
+				return Item.failed(alias, cause.toString());
+			});
+		CompletableFuture<List<Item>> items = aliasWriters == null
+			? applySequentially(aliases, write)
+			: applyConcurrently(user, aliases, write, permits);
+		CompletableFuture<AliasWriteResult> result = items.thenApply(written -> new AliasWriteResult(user, operation, written));
+		if (failureJournal != null) {
+			result = result.whenComplete((written, failure) -> {
+				if (failure != null) {
+					failureJournal.recordFailure(user, operation, aliases, unwrap(failure));
+				} else {
+					failureJournal.record(written);
+				}
+			});
+		}
+		return result.thenApply(written -> {
+			if (firstFailure.get() != null) {
+				throw new CompletionException(firstFailure.get());
+			}
+			return written;
+		});
+	}
+
+	/**
+	 * Writes each alias one after the other, stopping at the first failure:
+	 * the following aliases are not attempted.
+	 */
+	private static CompletableFuture<List<Item>> applySequentially(List<Alias> aliases, Function<Alias, CompletableFuture<Item>> write) {
+		CompletableFuture<List<Item>> result = CompletableFuture.completedFuture(new ArrayList<>(aliases.size()));
+		for (Alias alias : aliases) {
+			result = result.thenCompose(items -> {
+				if (!items.isEmpty() && items.get(items.size() - 1).getStatus() != AliasWriteResult.Status.WRITTEN) {
+					items.add(Item.notAttempted(alias));
+					return CompletableFuture.completedFuture(items);
+				}
+				return write.apply(alias).thenApply(item -> {
+					items.add(item);
+					return items;
+				});
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Writes all the aliases on virtual threads, at most as many at once as
+	 * the permits allow, and completes once every alias has been handled: a
+	 * failing alias does not prevent the others from being written.
+	 */
+	private CompletableFuture<List<Item>> applyConcurrently(User user, List<Alias> aliases,
+			Function<Alias, CompletableFuture<Item>> write, Semaphore permits) {
+		List<CompletableFuture<Item>> results = aliases.stream()
+			.map(alias -> CompletableFuture.supplyAsync(() -> {
+				permits.acquireUninterruptibly();
+				try {
+					return await(write.apply(alias));
+				} catch (RuntimeException e) {
+					LOGGER.error(String.format("Error (%s) while writing alias %s of %s", e, alias.source, user.email));
+					return Item.failed(alias, e.toString());
+				} finally {
+					permits.release();
+				}
+			}, aliasWriters))
+			.collect(Collectors.toList());
+		return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+			.thenApply(any -> {
+				List<Item> items = results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+				long failures = items.stream().filter(item -> item.getStatus() != AliasWriteResult.Status.WRITTEN).count();
+				if (failures > 0) {
+					LOGGER.error(String.format("%d of %d alias writes failed for %s", failures, items.size(), user.email));
+				}
+				return items;
+			});
+	}
+
+	/**
+	 * Writes again the aliases whose last write failed, as recorded by the
+	 * failure journal.
+	 *
+	 * @return the outcome of the replay, empty when the journal is not configured
+	 */
+	public Optional<FailureJournal.Replay> replayFailureJournal() throws IOException {
+		if (failureJournal == null) {
+			return Optional.empty();
 		}
+		return Optional.of(failureJournal.replay(this::writeAliases));
 	}
 	
 	private static boolean checkResponse(Response response) {
 		return Status.Family.familyOf(response.getStatus()) == Status.Family.SUCCESSFUL;
 	}
 
+	/**
+	 * Reads the beginning of the body of an error response, to be logged, and
+	 * closes the response. Successful writes are only closed: their body is
+	 * never decoded, and closing the entity stream lets the connector drain
+	 * it and give the connection back to the pool.
+	 */
+	static String readErrorBody(Response response) {
+		try {
+			if (!response.hasEntity()) {
+				return "";
+			}
+			InputStream body = response.readEntity(InputStream.class);
+			String text = new String(body.readNBytes(MAX_ERROR_BODY_LENGTH), StandardCharsets.UTF_8);
+			return body.read() < 0 ? text : text + "...";
+		} catch (IOException | ProcessingException | IllegalStateException e) {
+			return "unreadable body: " + e.getMessage();
+		} finally {
+			response.close();
+		}
+	}
+
 	public boolean updateAliases(User user, List<Alias> updatedAliases) {
-		List<Alias> aliasesInDestination = getAliases(user.email);
-		List<Alias> aliasesToAdd  =  computeAliasToAdd(updatedAliases, aliasesInDestination);
-		List<Alias> aliasesToRemove  =  computeAliasToRemove(updatedAliases, aliasesInDestination);
-		return removeAliases(user, aliasesToRemove) && createAliases(user, aliasesToAdd);
+		return await(updateAliasesAsync(user, updatedAliases));
 	}
 
-	public boolean deleteAlias(User user) {
-		List<Alias> aliasesToRemove = getAliases(user.email);
-		return removeAliases(user, aliasesToRemove);
+	public CompletableFuture<Boolean> updateAliasesAsync(User user, List<Alias> updatedAliases) {
+		return getAliasesAsync(user.email)
+			.thenCompose(aliasesInDestination -> {
+				AliasDiff diff = AliasDiff.between(updatedAliases, aliasesInDestination);
+				List<Alias> aliasesToAdd = diff.getToAdd();
+				List<Alias> aliasesToRemove = diff.getToRemove();
+				if (aliasWriters != null) {
+					// Removed and added sources are distinct, both sets can be written at once under the same cap
+					Semaphore permits = new Semaphore(aliasWriteConcurrency);
+					return applyToAliases(user, Operation.REMOVE, aliasesToRemove, permits)
+						.thenCombine(applyToAliases(user, Operation.CREATE, aliasesToAdd, permits),
+							(removed, added) -> removed.isSuccess() && added.isSuccess());
+				}
+				return removeAliasesAsync(user, aliasesToRemove)
+					.thenCompose(removed -> removed ? createAliasesAsync(user, aliasesToAdd) : CompletableFuture.completedFuture(false));
+			});
 	}
-	
-	private List<Alias> computeAliasToAdd(List<Alias> sourceAliases, List<Alias> destinationAliases) {
-		return sourceAliases.stream()
-				.filter(alias -> !destinationAliases.contains(alias))
-				.collect(Collectors.toList());
+
+	public boolean deleteAlias(User user) {
+		return await(deleteAliasAsync(user));
 	}
-	
 
-	private List<Alias> computeAliasToRemove(List<Alias> sourceAliases, List<Alias> destinationAliases) {
-		return destinationAliases.stream()
-				.filter(alias -> !sourceAliases.contains(alias))
-				.collect(Collectors.toList());
+	public CompletableFuture<Boolean> deleteAliasAsync(User user) {
+		return getAliasesAsync(user.email)
+			.thenCompose(aliasesToRemove -> removeAliasesAsync(user, aliasesToRemove));
 	}
 
 	public boolean addUser(User user, String password) {
-		Response response = usersClient
-			.path(user.email)
-			.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.put(Entity.text("{\"password\":\"" + password + "\"}"));
+		return await(addUserAsync(user, password));
+	}
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
-		if (checkResponse(response)) {
-			LOGGER.debug("Create user {} is successful", user.email);
-			return true;
-		}
-		LOGGER.error(String.format("Error %d (%s - %s) while creating user: %s",
-			response.getStatus(),
-			response.getStatusInfo(),
-			rawResponseBody,
-			usersClient.getUri().toString()));
-		return false;
+	public CompletableFuture<Boolean> addUserAsync(User user, String password) {
+		return invoke(usersClient.path(user.email), HttpMethod.PUT, Entity.text("{\"password\":\"" + password + "\"}"))
+			.thenApply(response -> {
+				if (checkResponse(response)) {
+					response.close();
+					LOGGER.debug("Create user {} is successful", user.email);
+					return true;
+				}
+				LOGGER.error(String.format("Error %d (%s - %s) while creating user: %s",
+					response.getStatus(),
+					response.getStatusInfo(),
+					readErrorBody(response),
+					usersClient.getUri().toString()));
+				return false;
+			});
 	}
 
 	public boolean removeUser(User user) {
-		Response response = usersClient
-			.path(user.email)
-			.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.delete();
+		return await(removeUserAsync(user));
+	}
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
-		if (checkResponse(response)) {
-			LOGGER.debug("Remove user {} is successful", user.email);
-			return true;
-		}
-		LOGGER.error(String.format("Error %d (%s - %s) while removing user: %s",
-			response.getStatus(),
-			response.getStatusInfo(),
-			rawResponseBody,
-			usersClient.getUri().toString()));
-		return false;
+	public CompletableFuture<Boolean> removeUserAsync(User user) {
+		return invoke(usersClient.path(user.email), HttpMethod.DELETE)
+			.thenApply(response -> {
+				if (checkResponse(response)) {
+					response.close();
+					LOGGER.debug("Remove user {} is successful", user.email);
+					return true;
+				}
+				LOGGER.error(String.format("Error %d (%s - %s) while removing user: %s",
+					response.getStatus(),
+					response.getStatusInfo(),
+					readErrorBody(response),
+					usersClient.getUri().toString()));
+				return false;
+			});
 	}
 
 	public List<User> getUserList() {
-		List<UserDto> users = usersClient
-			.path("")
-			.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<UserDto>>() {
-			});
-		return users.stream()
-			.map(User::fromDto)
-			.collect(Collectors.toList());
+		return await(getUserListAsync());
+	}
+
+	public CompletableFuture<List<User>> getUserListAsync() {
+		List<User> users = new ArrayList<>();
+		return forEachUserAsync(username -> users.add(new User(username)))
+			.thenApply(count -> users);
+	}
+
+	public long forEachUser(Consumer<String> consumer) {
+		return await(forEachUserAsync(consumer));
+	}
+
+	/**
+	 * Streams the usernames to the consumer, as the response is read, without
+	 * holding the whole list in memory.
+	 *
+	 * @return a future completed with the number of usernames once all were consumed
+	 */
+	public CompletableFuture<Long> forEachUserAsync(Consumer<String> consumer) {
+		return readListing(usersClient, USERS_LISTING, USERNAME_FIELD, consumer);
 	}
 
 	public boolean userExists(String user) {
-		Response response = usersClient
-			.path(user)
-			.request()
+		return await(userExistsAsync(user));
+	}
+
+	public CompletableFuture<Boolean> userExistsAsync(String user) {
+		return invokeHedged(usersClient.path(user), hedgeUsersClient.path(user), HttpMethod.HEAD)
+			.thenApply(response -> {
+				if (response.getStatus() == HTTP_STATUS_CODE_USER_EXITS) {
+					response.close();
+					return true;
+				} else if (response.getStatus() == HTTP_STATUS_CODE_USER_DOES_NOT_EXITS) {
+					response.close();
+					return false;
+				}
+				LOGGER.error(String.format("Error %d (%s - %s) while check exits user: %s",
+					response.getStatus(),
+					response.getStatusInfo(),
+					readErrorBody(response),
+					user));
+
+				throw new JamesClientException(usersClient.getUri(), HttpMethod.HEAD, response);
+			});
+	}
+
+	private CompletableFuture<Response> invoke(WebTarget target, String method) {
+		return invoke(target, method, null);
+	}
+
+	/**
+	 * Sends an idempotent read, hedged with the same read to the hedge target
+	 * when it is slow. Each request goes through all the other policies.
+	 */
+	private CompletableFuture<Response> invokeHedged(WebTarget target, WebTarget hedgeTarget, String method) {
+		if (hedgingPolicy == null) {
+			return invoke(target, method);
+		}
+		return hedgingPolicy.execute(() -> invoke(target, method), () -> invoke(hedgeTarget, method));
+	}
+
+	/**
+	 * Sends a request through the configured policies. All the webadmin calls
+	 * of this class are idempotent, hence may be retried.
+	 */
+	private CompletableFuture<Response> invoke(WebTarget target, String method, Entity<?> entity) {
+		if (circuitBreaker == null) {
+			return retry(target, method, entity);
+		}
+		// Outside of the retries: a request failing after its retries counts once, and failing fast is never retried
+		return circuitBreaker.execute(() -> retry(target, method, entity));
+	}
+
+	private CompletableFuture<Response> retry(WebTarget target, String method, Entity<?> entity) {
+		if (retryPolicy == null) {
+			return throttle(target, method, entity);
+		}
+		return retryPolicy.execute(() -> throttle(target, method, entity));
+	}
+
+	/**
+	 * Waits for the rate limit before taking a concurrency permit, so that
+	 * throttled requests do not hold one. Each retry counts in the rate.
+	 */
+	private CompletableFuture<Response> throttle(WebTarget target, String method, Entity<?> entity) {
+		if (rateLimiter == null) {
+			return isolate(target, method, entity);
+		}
+		return rateLimiter.execute(method, () -> isolate(target, method, entity));
+	}
+
+	/**
+	 * Sends the reads and the writes through their own bulkhead, and the
+	 * writes through their own client, when configured. A request takes a
+	 * concurrency permit only once it has a slot of its lane, so that the
+	 * writes waiting for a slot do not hold permits the reads need. Each
+	 * attempt of a retried request has its own timeout.
+	 */
+	private CompletableFuture<Response> isolate(WebTarget target, String method, Entity<?> entity) {
+		if (readBulkhead == null) {
+			return limit(target, method, entity);
+		}
+		if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+			return readBulkhead.execute(() -> limit(target, method, entity));
+		}
+		Client client = writeClient.getClient();
+		return writeBulkhead.execute(() -> limit(client.target(target.getUri()), method, entity));
+	}
+
+	private CompletableFuture<Response> limit(WebTarget target, String method, Entity<?> entity) {
+		if (concurrencyLimiter == null) {
+			return send(target, method, entity);
+		}
+		return concurrencyLimiter.acquire().thenCompose(permit -> {
+			CompletableFuture<Response> response;
+			try {
+				response = send(target, method, entity);
+			} catch (RuntimeException e) {
+				permit.release(outcomeOf(null, e));
+				throw e;
+			}
+			return response.whenComplete((result, failure) -> permit.release(outcomeOf(result, failure)));
+		});
+	}
+
+	/**
+	 * Classifies a response for the concurrency limiter: only the statuses telling that
+	 * James is overloaded, and the connection failures and timeouts, are overload signals.
+	 */
+	private static AdaptiveConcurrencyLimiter.Outcome outcomeOf(Response response, Throwable failure) {
+		if (failure != null) {
+			return unwrap(failure) instanceof ProcessingException
+				? AdaptiveConcurrencyLimiter.Outcome.OVERLOAD
+				: AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+		}
+		if (response.getStatus() == Status.TOO_MANY_REQUESTS.getStatusCode()
+				|| Status.Family.familyOf(response.getStatus()) == Status.Family.SERVER_ERROR) {
+			return AdaptiveConcurrencyLimiter.Outcome.OVERLOAD;
+		}
+		return AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+	}
+
+	private CompletableFuture<Response> send(WebTarget target, String method, Entity<?> entity) {
+		CompletionStageRxInvoker invoker = target.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.head();
-		String rawResponseBody = response.readEntity(String.class);
+			.rx();
+		CompletionStage<Response> response = entity == null ? invoker.method(method) : invoker.method(method, entity);
+		return response.toCompletableFuture();
+	}
+
+	/**
+	 * Reads the entity of a successful response, or throws the same exceptions
+	 * as Jersey's typed synchronous invocations otherwise.
+	 */
+	private static <T> T readEntity(Response response, GenericType<T> entityType) {
+		throwIfFailed(response);
+		try {
+			return response.readEntity(entityType);
+		} finally {
+			response.close();
+		}
+	}
+
+	/**
+	 * Reads a listing, conditionally when a copy of it is stored: when it did
+	 * not change, James answers 304 Not Modified and the stored copy is read.
+	 * Without listing cache, or when James sends no validators, the listing is
+	 * read in full each time.
+	 */
+	private CompletableFuture<Long> readListing(WebTarget listingClient, String listing, String field, Consumer<String> consumer) {
+		WebTarget target = listingClient.path("");
+		if (listings == null) {
+			return invoke(target, HttpMethod.GET)
+				.thenApply(response -> readArray(response, field, consumer));
+		}
+		Optional<ListingStore.Validators> stored = listings.validators(listing);
+		stored.ifPresent(validators -> target.register((ClientRequestFilter) request -> {
+			validators.getEntityTag().ifPresent(entityTag -> request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, entityTag));
+			validators.getLastModified().ifPresent(date -> request.getHeaders().putSingle(HttpHeaders.IF_MODIFIED_SINCE, date));
+		}));
+		return invoke(target, HttpMethod.GET).thenCompose(response -> {
+			if (stored.isPresent() && response.getStatus() == Status.NOT_MODIFIED.getStatusCode()) {
+				response.close();
+				InputStream body;
+				try {
+					body = listings.open(listing);
+				} catch (IOException e) {
+					LOGGER.warn("Unable to read the stored {} listing, downloading it: {}", listing, e.toString());
+					listings.forget(listing);
+					return readListing(listingClient, listing, field, consumer);
+				}
+				LOGGER.debug("The {} listing did not change since {}", listing, stored.get());
+				return CompletableFuture.completedFuture(readArray(body, field, consumer));
+			}
+			throwIfFailed(response);
+			Optional<ListingStore.Validators> received = ListingStore.Validators.of(
+				response.getHeaderString(HttpHeaders.ETAG), response.getHeaderString(HttpHeaders.LAST_MODIFIED));
+			if (received.isEmpty()) {
+				listings.forget(listing);
+				return CompletableFuture.completedFuture(readArray(response, field, consumer));
+			}
+			try (ListingStore.Recording recording = listings.record(listing, received.get())) {
+				long count = readArray(recording.copying(response.readEntity(InputStream.class)), field, consumer);
+				recording.commit();
+				return CompletableFuture.completedFuture(count);
+			} finally {
+				response.close();
+			}
+		});
+	}
+
+	/**
+	 * Streams the values of a JSON array of strings, or of the given field of
+	 * a JSON array of objects, from a successful response to the consumer.
+	 * Elements without a value are skipped.
+	 *
+	 * @return the number of values consumed
+	 */
+	private static long readArray(Response response, String field, Consumer<String> consumer) {
+		throwIfFailed(response);
+		try {
+			return readArray(response.readEntity(InputStream.class), field, consumer);
+		} finally {
+			response.close();
+		}
+	}
+
+	private static long readArray(InputStream body, String field, Consumer<String> consumer) {
+		try (body;
+				JsonParser parser = JSON_FACTORY.createParser(body)) {
+			expect(parser, JsonToken.START_ARRAY);
+			long count = 0;
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+				String value = readValue(parser, token, field);
+				if (value != null) {
+					consumer.accept(value);
+					count++;
+				}
+			}
+			return count;
+		} catch (IOException e) {
+			throw new ProcessingException("Unable to read the response of James webadmin", e);
+		}
+	}
+
+	private static String readValue(JsonParser parser, JsonToken token, String field) throws IOException {
+		if (token == null) {
+			throw new ProcessingException("Truncated JSON array in the response of James webadmin");
+		}
+		if (field == null) {
+			String value = parser.getValueAsString();
+			parser.skipChildren();
+			return value;
+		}
+		if (token != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		String value = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			boolean wanted = field.equals(parser.currentName());
+			parser.nextToken();
+			if (wanted) {
+				value = parser.getValueAsString();
+			}
+			parser.skipChildren();
+		}
+		return value;
+	}
+
+	private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+		JsonToken token = parser.nextToken();
+		if (token != expected) {
+			throw new ProcessingException(String.format("Expected %s in the response of James webadmin, got %s", expected, token));
+		}
+	}
+
+	/**
+	 * Throws the same exceptions as Jersey's typed synchronous invocations
+	 * when the response is not successful.
+	 */
+	private static void throwIfFailed(Response response) {
+		if (checkResponse(response)) {
+			return;
+		}
+		response.bufferEntity();
 		response.close();
-		if (response.getStatus() == HTTP_STATUS_CODE_USER_EXITS) {
-			return true;
-		} else if (response.getStatus() == HTTP_STATUS_CODE_USER_DOES_NOT_EXITS) {
-			return false;
-		}
-		LOGGER.error(String.format("Error %d (%s - %s) while check exits user: %s",
-			response.getStatus(),
-			response.getStatusInfo(),
-			rawResponseBody,
-			user));
-
-		throw new JamesClientException(usersClient.getUri(), HttpMethod.HEAD, response);
+		if (response.getStatus() == Status.NOT_FOUND.getStatusCode()) {
+			throw new NotFoundException(response);
+		}
+		switch (Status.Family.familyOf(response.getStatus())) {
+		case CLIENT_ERROR:
+			throw new ClientErrorException(response);
+		case SERVER_ERROR:
+			throw new ServerErrorException(response);
+		default:
+			throw new WebApplicationException(response);
+		}
+	}
+
+	/**
+	 * @return the failure of an asynchronous call, without its completion wrapper
+	 */
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+
+	/**
+	 * Waits for the result of an asynchronous call, rethrowing its failure
+	 * as the synchronous API used to.
+	 */
+	private static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 }
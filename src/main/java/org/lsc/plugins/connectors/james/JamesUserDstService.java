@@ -42,11 +42,17 @@
  */
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.List;
 import java.util.Collection;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.ProcessingException;
@@ -63,21 +69,45 @@ import org.lsc.exception.LscServiceCommunicationException;
 import org.lsc.exception.LscServiceConfigurationException;
 import org.lsc.exception.LscServiceException;
 import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.cache.CachingJamesDao;
+import org.lsc.plugins.connectors.james.coalesce.Coalescer;
+import org.lsc.plugins.connectors.james.coalesce.CoalescingSettings;
+import org.lsc.plugins.connectors.james.coalesce.UserDelta;
 import org.lsc.plugins.connectors.james.generated.JamesService;
 import org.lsc.plugins.connectors.james.generated.JamesUsersService;
+import org.lsc.plugins.connectors.james.generated.WriteBehindType;
+import org.lsc.plugins.connectors.james.metrics.JmxMetrics;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderedExecutor;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderingSettings;
+import org.lsc.plugins.connectors.james.pivots.CompactPivotMap;
+import org.lsc.plugins.connectors.james.resilience.BulkheadFullException;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerOpenException;
+import org.lsc.plugins.connectors.james.snapshot.DestinationSnapshot;
+import org.lsc.plugins.connectors.james.snapshot.DestinationSnapshotSettings;
+import org.lsc.plugins.connectors.james.snapshot.UserSnapshot;
+import org.lsc.plugins.connectors.james.snapshot.UserSnapshotSettings;
+import org.lsc.plugins.connectors.james.writebehind.WriteBehindQueue;
+import org.lsc.plugins.connectors.james.writebehind.WriteBehindSettings;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableMap;
-
-public class JamesUserDstService implements IWritableService {
+public class JamesUserDstService implements IWritableService, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JamesUserDstService.class);
     public static final int USER_PASSWORD_LENGTH = 24;
 
     private final JamesDao jamesDao;
     private final JamesService service;
     private final Class<IBean> beanClass;
+    private final UserSnapshotSettings userSnapshotSettings;
+    private UserSnapshot userSnapshot;
+    private final DestinationSnapshotSettings destinationSnapshotSettings;
+    private final DestinationSnapshot destinationSnapshot;
+    private boolean destinationSnapshotRefreshed;
+    private final KeyOrderedExecutor ordering;
+    private final WriteBehindQueue writeBehind;
+    private final Coalescer<UserDelta> coalescer;
+    private final List<Closeable> metrics = new ArrayList<>();
 
     public JamesUserDstService(final TaskType task) throws LscServiceConfigurationException {
         try {
@@ -91,12 +121,49 @@ public class JamesUserDstService implements IWritableService {
             this.beanClass = (Class<IBean>) Class.forName(task.getBean());
             LOGGER.debug("Task bean is: " + task.getBean());
             PluginConnectionType connection = (PluginConnectionType) service.getConnection().getReference();
-            this.jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+            this.jamesDao = CachingJamesDao.of(connection.getUrl(), connection.getPassword(), service);
+            this.userSnapshotSettings = service.getUserSnapshot() == null ? null : UserSnapshotSettings.from(service.getUserSnapshot());
+            this.destinationSnapshotSettings = service.getDestinationSnapshot() == null ? null
+                : DestinationSnapshotSettings.from(service.getDestinationSnapshot());
+            this.destinationSnapshot = destinationSnapshotSettings == null ? null : openDestinationSnapshot(connection.getUrl());
+            KeyOrderedExecutor executor = null;
+            if (service.getKeyOrdering() != null) {
+                executor = new KeyOrderedExecutor(KeyOrderingSettings.from(service.getKeyOrdering()), "james-user");
+                metrics.add(JmxMetrics.register("KeyOrderedExecutor", connection.getUrl(), executor));
+            }
+            if (service.getWriteBehind() != null || service.getCoalescing() != null) {
+                // Merged modifications are written in the background, with the default settings unless configured
+                WriteBehindSettings writeBehindSettings = WriteBehindSettings.from(
+                    Optional.ofNullable(service.getWriteBehind()).orElseGet(WriteBehindType::new));
+                this.writeBehind = executor != null ? new WriteBehindQueue(writeBehindSettings, executor)
+                    : new WriteBehindQueue(writeBehindSettings, "james-user");
+                metrics.add(JmxMetrics.register("WriteBehindQueue", connection.getUrl(), writeBehind));
+                this.ordering = null;
+            } else {
+                this.writeBehind = null;
+                this.ordering = executor;
+            }
+            if (service.getCoalescing() != null) {
+                this.coalescer = new Coalescer<>(CoalescingSettings.from(service.getCoalescing()), UserDelta::then,
+                    (email, delta) -> writeBehind.submit(email, () -> writeInBackground(() -> writeUser(new User(email), delta))),
+                    "james-user");
+                metrics.add(JmxMetrics.register("Coalescer", connection.getUrl(), coalescer));
+            } else {
+                this.coalescer = null;
+            }
         } catch (ClassNotFoundException e) {
             throw new LscServiceConfigurationException(e);
         }
     }
 
+    private DestinationSnapshot openDestinationSnapshot(String endpoint) throws LscServiceConfigurationException {
+        try {
+            return DestinationSnapshot.open(destinationSnapshotSettings, endpoint, "users");
+        } catch (IOException e) {
+            throw new LscServiceConfigurationException("Unable to open the James user snapshot", e);
+        }
+    }
+
     @Override
     public boolean apply(LscModifications lscModifications) throws LscServiceException {
         if (lscModifications.getMainIdentifier() == null) {
@@ -106,16 +173,63 @@ public class JamesUserDstService implements IWritableService {
         User user = new User(lscModifications.getMainIdentifier());
         LOGGER.debug("User: {}, Operation: {}", user.email, lscModifications.getOperation());
 
+        UserDelta delta;
+        switch (lscModifications.getOperation()) {
+            case CREATE_OBJECT:
+                delta = UserDelta.CREATED;
+                break;
+            case DELETE_OBJECT:
+                delta = UserDelta.DELETED;
+                break;
+            default:
+                LOGGER.debug("{} operation, ignored.", lscModifications.getOperation());
+                return true;
+        }
+        if (coalescer != null) {
+            coalescer.add(user.email, delta);
+            return true;
+        }
+        if (writeBehind != null) {
+            writeBehind.submit(user.email, () -> writeInBackground(() -> writeUser(user, delta)));
+            return true;
+        }
+        if (ordering != null) {
+            return writeInOrder(user.email, () -> write(() -> writeUser(user, delta)));
+        }
+        return write(() -> writeUser(user, delta));
+    }
+
+    /**
+     * Writes after the modifications of the same user given by the other LSC
+     * threads, and waits for the outcome.
+     */
+    private boolean writeInOrder(String email, Callable<Boolean> write) throws LscServiceException {
         try {
-            switch (lscModifications.getOperation()) {
-                case CREATE_OBJECT:
-                    return jamesDao.addUser(user, RandomStringUtils.randomAlphanumeric(USER_PASSWORD_LENGTH));
-                case DELETE_OBJECT:
-                    return jamesDao.removeUser(user);
-                default:
-                    LOGGER.debug("{} operation, ignored.", lscModifications.getOperation());
-                    return true;
+            return ordering.submit(email, write).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LscServiceException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LscServiceException) {
+                throw (LscServiceException) e.getCause();
             }
+            throw new LscServiceException(e.getCause());
+        }
+    }
+
+    private boolean writeUser(User user, UserDelta delta) {
+        if (delta == UserDelta.CREATED) {
+            return recordWrite(user, true,
+                () -> jamesDao.addUser(user, RandomStringUtils.randomAlphanumeric(USER_PASSWORD_LENGTH)));
+        }
+        return recordWrite(user, false, () -> jamesDao.removeUser(user));
+    }
+
+    private static boolean write(BooleanSupplier write) throws LscServiceCommunicationException {
+        try {
+            return write.getAsBoolean();
+        } catch (CircuitBreakerOpenException exception) {
+            throw new LscServiceCommunicationException(exception);
         } catch (ProcessingException exception) {
             LOGGER.error(String.format("ProcessingException while writing (%s)", exception));
             LOGGER.debug(exception.toString(), exception);
@@ -123,6 +237,104 @@ public class JamesUserDstService implements IWritableService {
         }
     }
 
+    /**
+     * Writes a modification apply already accepted: a failure to reach James
+     * is thrown, so that the task stops as with a synchronous write. A write
+     * rejected by a full bulkhead only fails.
+     */
+    private static boolean writeInBackground(BooleanSupplier write) throws LscServiceCommunicationException {
+        try {
+            return write.getAsBoolean();
+        } catch (BulkheadFullException exception) {
+            LOGGER.error(String.format("BulkheadFullException while writing (%s)", exception));
+            return false;
+        } catch (ProcessingException exception) {
+            throw new LscServiceCommunicationException(exception);
+        }
+    }
+
+    /**
+     * Keeps the user snapshot up to date with a write, as long as its outcome is known,
+     * and the destination snapshot with its outcome.
+     */
+    private boolean recordWrite(User user, boolean present, BooleanSupplier write) {
+        DestinationSnapshot stored = destinationSnapshot();
+        if (stored == null) {
+            return recordWriteInUserSnapshot(user, present, write);
+        }
+        stored.writing(user.email);
+        boolean written = false;
+        try {
+            written = recordWriteInUserSnapshot(user, present, write);
+        } finally {
+            if (written) {
+                stored.written(user.email, present ? List.of() : null);
+            } else {
+                stored.failed(user.email);
+            }
+        }
+        return written;
+    }
+
+    private boolean recordWriteInUserSnapshot(User user, boolean present, BooleanSupplier write) {
+        UserSnapshot snapshot = currentUserSnapshot();
+        if (snapshot == null) {
+            return write.getAsBoolean();
+        }
+        snapshot.writing(user.email);
+        boolean written = write.getAsBoolean();
+        if (written) {
+            snapshot.written(user.email, present);
+        }
+        return written;
+    }
+
+    private synchronized UserSnapshot currentUserSnapshot() {
+        return userSnapshot;
+    }
+
+    /**
+     * @return the user snapshot, fetched at the first call and once expired,
+     * or null when it is not configured
+     */
+    private synchronized UserSnapshot userSnapshot() {
+        if (userSnapshotSettings == null) {
+            return null;
+        }
+        if (userSnapshot == null || userSnapshot.isOlderThan(userSnapshotSettings.getMaxAge())) {
+            userSnapshot = null;
+            userSnapshot = UserSnapshot.fetch(jamesDao, userSnapshotSettings.isBloomFilter());
+            LOGGER.info("Fetched a snapshot of {} users", userSnapshot.size());
+        }
+        return userSnapshot;
+    }
+
+    /**
+     * @return the destination snapshot, refreshed from the James user listing
+     * at the first call, or null when it is not configured
+     */
+    private synchronized DestinationSnapshot destinationSnapshot() {
+        if (destinationSnapshot == null || destinationSnapshotRefreshed) {
+            return destinationSnapshot;
+        }
+        destinationSnapshotRefreshed = true;
+        long start = System.nanoTime();
+        // The listing tells everything about the users: those the snapshot misses are only added
+        for (String email : destinationSnapshot.refresh(jamesDao::forEachUser, destinationSnapshotSettings.isVerify())) {
+            destinationSnapshot.put(email, List.of());
+        }
+        if (destinationSnapshotSettings.isVerify()) {
+            try {
+                destinationSnapshot.compact();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to compact the James user snapshot: {}", e.toString());
+            }
+        }
+        LOGGER.info("Refreshed the James user snapshot in {} ms: {}",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), destinationSnapshot);
+        return destinationSnapshot;
+    }
+
     @Override
     public List<String> getWriteDatasetIds() {
         return service.getWritableAttributes().getString();
@@ -140,11 +352,15 @@ public class JamesUserDstService implements IWritableService {
             return null;
         }
         try {
-            if (jamesDao.userExists(email)) {
-                IBean bean = beanClass.newInstance();
-                bean.setMainIdentifier(email);
-                bean.setDatasets(new User(email).toDatasets());
-                return bean;
+            DestinationSnapshot stored = destinationSnapshot();
+            if (stored != null && stored.covers(email)) {
+                return stored.get(email) == null ? null : toBean(email);
+            }
+            UserSnapshot snapshot = userSnapshot();
+            UserSnapshot.Membership membership = snapshot == null ? UserSnapshot.Membership.UNKNOWN : snapshot.contains(email);
+            // An absent user leads to a creation: it is confirmed on James, as it may have been created since the snapshot
+            if (membership == UserSnapshot.Membership.PRESENT || jamesDao.userExists(email)) {
+                return toBean(email);
             }
             return null;
         } catch (ProcessingException e) {
@@ -167,16 +383,27 @@ public class JamesUserDstService implements IWritableService {
         }
     }
 
+    private IBean toBean(String email) throws InstantiationException, IllegalAccessException {
+        IBean bean = beanClass.newInstance();
+        bean.setMainIdentifier(email);
+        bean.setDatasets(new User(email).toDatasets());
+        return bean;
+    }
+
     @Override
     public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+        flushWrites();
         try {
-            List<User> userList = jamesDao.getUserList();
-            LOGGER.debug("Get ListPivots. userList size = {}", userList.size());
-            Map<String, LscDatasets> listPivots = new HashMap<>();
-            for (User user : userList) {
-                listPivots.put(user.email, user.toDatasets());
+            CompactPivotMap.Builder listPivots = CompactPivotMap.builder();
+            long count = jamesDao.forEachUser(listPivots);
+            CompactPivotMap pivots = listPivots.build();
+            LOGGER.debug("Get ListPivots. userList size = {}, {} bytes retained", count, pivots.retainedBytes());
+            if (userSnapshotSettings != null) {
+                synchronized (this) {
+                    userSnapshot = UserSnapshot.of(pivots, userSnapshotSettings.isBloomFilter());
+                }
             }
-            return ImmutableMap.copyOf(listPivots);
+            return pivots;
         } catch (ProcessingException e) {
             LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
             LOGGER.debug(e.toString(), e);
@@ -193,4 +420,61 @@ public class JamesUserDstService implements IWritableService {
         return list;
     }
 
+    /**
+     * Waits for the modifications written in the background, so that the
+     * users listed next include them, and reports those that failed.
+     */
+    private void flushWrites() throws LscServiceException {
+        if (coalescer != null) {
+            coalescer.flush();
+        }
+        if (writeBehind == null) {
+            return;
+        }
+        try {
+            if (!writeBehind.flush()) {
+                LOGGER.warn("Listing the James users while {} background writes are still pending", writeBehind.getPending());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LscServiceException(e);
+        }
+        writeBehind.checkFailures();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (coalescer != null) {
+            coalescer.close();
+            LOGGER.info("James user modifications merged: {}", coalescer);
+        }
+        if (writeBehind != null) {
+            writeBehind.close();
+            LOGGER.info("James user background writes: {}", writeBehind);
+        }
+        if (ordering != null) {
+            ordering.close();
+            LOGGER.info("James user ordered writes: {}", ordering);
+        }
+        for (Closeable registration : metrics) {
+            try {
+                registration.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to unregister the background write metrics", e);
+            }
+        }
+        if (destinationSnapshot != null) {
+            destinationSnapshot.close();
+            LOGGER.info("James user snapshot: {}", destinationSnapshot);
+        }
+        jamesDao.close();
+        if (writeBehind != null) {
+            try {
+                writeBehind.checkFailures();
+            } catch (LscServiceException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.beans;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Outcome of writing a list of aliases of a user, alias by alias.
+ */
+public final class AliasWriteResult {
+
+	public enum Operation {
+		/** PUT of the alias source. */
+		CREATE,
+		/** DELETE of the alias source. */
+		REMOVE
+	}
+
+	public enum Status {
+		WRITTEN,
+		/** James answered with an error, or the request could not be sent. */
+		FAILED,
+		/** Not sent, as a previous alias of the same write failed. */
+		NOT_ATTEMPTED
+	}
+
+	private final User user;
+	private final Operation operation;
+	private final List<Item> items;
+
+	public AliasWriteResult(User user, Operation operation, List<Item> items) {
+		this.user = user;
+		this.operation = operation;
+		this.items = ImmutableList.copyOf(items);
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return the outcome of each alias, in the order of the written list
+	 */
+	public List<Item> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return the aliases which are not known to be written
+	 */
+	public List<Item> getFailures() {
+		return items.stream()
+			.filter(item -> item.getStatus() != Status.WRITTEN)
+			.collect(Collectors.toList());
+	}
+
+	public boolean isSuccess() {
+		return items.stream().allMatch(item -> item.getStatus() == Status.WRITTEN);
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("user", user.email)
+			.add("operation", operation)
+			.add("items", items)
+			.toString();
+	}
+
+	public static final class Item {
+		private final Alias alias;
+		private final Status status;
+		private final String error;
+
+		private Item(Alias alias, Status status, String error) {
+			this.alias = alias;
+			this.status = status;
+			this.error = error;
+		}
+
+		public static Item written(Alias alias) {
+			return new Item(alias, Status.WRITTEN, null);
+		}
+
+		public static Item failed(Alias alias, String error) {
+			return new Item(alias, Status.FAILED, error);
+		}
+
+		public static Item notAttempted(Alias alias) {
+			return new Item(alias, Status.NOT_ATTEMPTED, null);
+		}
+
+		public Alias getAlias() {
+			return alias;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return the HTTP status or the exception of a failed alias, null otherwise
+		 */
+		public String getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.omitNullValues()
+				.add("alias", alias.source)
+				.add("status", status)
+				.add("error", error)
+				.toString();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import jakarta.ws.rs.NotFoundException;
+
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.JmxMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JamesDao} answering the alias and user existence reads from a
+ * cache, which the writes made through it keep up to date: a successful
+ * write stores the value it leads to, and a failed one evicts the key, so
+ * that the reads following a write in the same run see it.
+ *
+ * Only the blocking calls the services use are cached. A user without alias
+ * is cached as an empty list, and like a missing user it is a negative entry,
+ * kept for a shorter time. The hits, misses and evictions of both caches are
+ * published over JMX.
+ */
+public class CachingJamesDao extends JamesDao {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CachingJamesDao.class);
+
+	private final WriteThroughCache<List<Alias>> aliases;
+	private final WriteThroughCache<Boolean> users;
+	private final List<Closeable> metrics;
+
+	public CachingJamesDao(String url, String token, JamesService service) {
+		super(url, token, service);
+		ReadCacheSettings settings = ReadCacheSettings.from(service.getReadCache());
+		this.aliases = new WriteThroughCache<>(settings, List::isEmpty);
+		this.users = new WriteThroughCache<>(settings, exists -> !exists);
+		this.metrics = List.of(
+			JmxMetrics.register("AliasCache", url, aliases),
+			JmxMetrics.register("UserCache", url, users));
+	}
+
+	/**
+	 * @return a {@link CachingJamesDao} when the read cache is configured, a plain {@link JamesDao} otherwise
+	 */
+	public static JamesDao of(String url, String token, JamesService service) {
+		return service.getReadCache() == null ? new JamesDao(url, token, service) : new CachingJamesDao(url, token, service);
+	}
+
+	@Override
+	public List<Alias> getAliases(String email) {
+		Optional<List<Alias>> cached = aliases.get(email);
+		if (cached.isPresent()) {
+			if (cached.get().isEmpty()) {
+				throw new NotFoundException();
+			}
+			return cached.get();
+		}
+		long token = aliases.beginRead();
+		try {
+			List<Alias> read = List.copyOf(super.getAliases(email));
+			aliases.completeRead(email, token, read);
+			return read;
+		} catch (NotFoundException e) {
+			aliases.completeRead(email, token, List.of());
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean createAliases(User user, List<Alias> aliasesToAdd) {
+		return writeAliases(user, previous -> previous.map(aliases -> union(aliases, aliasesToAdd)),
+			() -> super.createAliases(user, aliasesToAdd));
+	}
+
+	@Override
+	public boolean removeAliases(User user, List<Alias> aliasesToRemove) {
+		return writeAliases(user, previous -> previous.map(aliases -> difference(aliases, aliasesToRemove)),
+			() -> super.removeAliases(user, aliasesToRemove));
+	}
+
+	@Override
+	public AliasWriteResult writeAliases(User user, AliasWriteResult.Operation operation, List<Alias> written) {
+		AtomicReference<AliasWriteResult> result = new AtomicReference<>();
+		writeAliases(user, previous -> previous.map(aliases -> operation == AliasWriteResult.Operation.CREATE
+				? union(aliases, written)
+				: difference(aliases, written)),
+			() -> {
+				result.set(super.writeAliases(user, operation, written));
+				return result.get().isSuccess();
+			});
+		return result.get();
+	}
+
+	@Override
+	public boolean updateAliases(User user, List<Alias> updatedAliases) {
+		return writeAliases(user, previous -> Optional.of(union(List.of(), updatedAliases)),
+			() -> super.updateAliases(user, updatedAliases));
+	}
+
+	@Override
+	public boolean deleteAlias(User user) {
+		return writeAliases(user, previous -> Optional.of(List.of()), () -> super.deleteAlias(user));
+	}
+
+	private boolean writeAliases(User user, Function<Optional<List<Alias>>, Optional<List<Alias>>> written, BooleanSupplier write) {
+		Optional<List<Alias>> previous = aliases.beginWrite(user.email);
+		boolean success = false;
+		try {
+			success = write.getAsBoolean();
+			return success;
+		} finally {
+			aliases.completeWrite(user.email, success ? written.apply(previous).orElse(null) : null);
+		}
+	}
+
+	private static List<Alias> union(List<Alias> aliases, List<Alias> added) {
+		Set<Alias> union = new LinkedHashSet<>(aliases);
+		union.addAll(added);
+		return List.copyOf(union);
+	}
+
+	private static List<Alias> difference(List<Alias> aliases, List<Alias> removed) {
+		Set<Alias> difference = new LinkedHashSet<>(aliases);
+		removed.forEach(difference::remove);
+		return List.copyOf(difference);
+	}
+
+	@Override
+	public void close() {
+		if (aliases.getMisses() > 0 || users.getMisses() > 0) {
+			LOGGER.info("James webadmin read cache: {}% of the alias reads and {}% of the user reads answered, {} evictions",
+				Math.round(aliases.getHitRatio() * 100), Math.round(users.getHitRatio() * 100),
+				aliases.getEvictions() + users.getEvictions());
+		}
+		for (Closeable registration : metrics) {
+			try {
+				registration.close();
+			} catch (IOException e) {
+				LOGGER.debug("Unable to unregister the read cache metrics", e);
+			}
+		}
+		super.close();
+	}
+
+	@Override
+	public boolean userExists(String user) {
+		Optional<Boolean> cached = users.get(user);
+		if (cached.isPresent()) {
+			return cached.get();
+		}
+		long token = users.beginRead();
+		boolean exists = super.userExists(user);
+		users.completeRead(user, token, exists);
+		return exists;
+	}
+
+	@Override
+	public boolean addUser(User user, String password) {
+		return writeUser(user, true, () -> super.addUser(user, password));
+	}
+
+	@Override
+	public boolean removeUser(User user) {
+		return writeUser(user, false, () -> super.removeUser(user));
+	}
+
+	private boolean writeUser(User user, boolean exists, BooleanSupplier write) {
+		users.beginWrite(user.email);
+		boolean success = false;
+		try {
+			success = write.getAsBoolean();
+			return success;
+		} finally {
+			users.completeWrite(user.email, success ? exists : null);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache of the values read from James, kept coherent with the writes made
+ * through it.
+ *
+ * Each read and write gets a sequence number. A value read is only stored
+ * when no write of the same key started after the read did, so that a slow
+ * read cannot bring back a value a write has changed. While a write is in
+ * flight the key is not cached, and once written it holds the value the write
+ * led to, or nothing when that value is unknown: after a failure, or when
+ * several writes of the key overlapped.
+ *
+ * The cache holds at most {@link ReadCacheSettings#getMaximumSize()} keys,
+ * evicting the least recently used ones, except those being written. Negative
+ * values, standing for missing entries of James, expire after their own
+ * shorter delay.
+ */
+public class WriteThroughCache<V> implements ReadCacheMXBean {
+
+	private final long maxAgeNanos;
+	private final long negativeMaxAgeNanos;
+	private final int maximumSize;
+	private final Predicate<V> negative;
+	private final LongSupplier nanoClock;
+	private final AtomicLong sequence = new AtomicLong();
+	/** In access order, the least recently used first. */
+	private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/** Sequence of the last write of the keys which are no longer in the cache. */
+	private long forgottenWrites;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder negativeHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param negative tells the values standing for missing entries of James
+	 */
+	public WriteThroughCache(ReadCacheSettings settings, Predicate<V> negative) {
+		this(settings, negative, System::nanoTime);
+	}
+
+	WriteThroughCache(ReadCacheSettings settings, Predicate<V> negative, LongSupplier nanoClock) {
+		this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMaxAge());
+		this.negativeMaxAgeNanos = TimeUnit.MILLISECONDS.toNanos(settings.getNegativeMaxAge());
+		this.maximumSize = settings.getMaximumSize();
+		this.negative = negative;
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * @return the cached value of the key, unless expired or being written
+	 */
+	public Optional<V> get(String key) {
+		Optional<V> value;
+		synchronized (this) {
+			value = fresh(entries.get(key));
+		}
+		if (value.isEmpty()) {
+			misses.increment();
+		} else if (negative.test(value.get())) {
+			negativeHits.increment();
+		} else {
+			hits.increment();
+		}
+		return value;
+	}
+
+	private Optional<V> fresh(Entry<V> entry) {
+		if (entry == null || entry.value == null || nanoClock.getAsLong() - entry.expiresAt > 0) {
+			return Optional.empty();
+		}
+		return Optional.of(entry.value);
+	}
+
+	/**
+	 * @return the token to give to {@link #completeRead(String, long, Object)}
+	 */
+	public long beginRead() {
+		return sequence.incrementAndGet();
+	}
+
+	/**
+	 * Stores a value read from James, unless a write of the key started since the read.
+	 */
+	public synchronized void completeRead(String key, long token, V value) {
+		Entry<V> entry = entries.get(key);
+		if (entry == null ? token <= forgottenWrites : entry.writesInFlight > 0 || entry.lastWrite > token) {
+			return;
+		}
+		entries.put(key, stored(value, entry == null ? 0 : entry.lastWrite));
+		evictIfFull();
+	}
+
+	/**
+	 * Stops answering for the key until the write completes.
+	 *
+	 * @return the value cached before the write, if any
+	 */
+	public synchronized Optional<V> beginWrite(String key) {
+		Entry<V> entry = entries.get(key);
+		long lastWrite = sequence.incrementAndGet();
+		if (entry == null) {
+			entries.put(key, new Entry<>(null, 0, lastWrite, 1, false));
+			evictIfFull();
+			return Optional.empty();
+		}
+		entries.put(key, new Entry<>(null, 0, lastWrite, entry.writesInFlight + 1, entry.writesInFlight > 0));
+		return fresh(entry);
+	}
+
+	/**
+	 * @param value the value of the key after the write, or null when unknown
+	 */
+	public synchronized void completeWrite(String key, V value) {
+		Entry<V> entry = entries.get(key);
+		long lastWrite = sequence.incrementAndGet();
+		int writesInFlight = entry == null ? 0 : Math.max(0, entry.writesInFlight - 1);
+		if (writesInFlight > 0) {
+			entries.put(key, new Entry<>(null, 0, lastWrite, writesInFlight, true));
+		} else if (value == null || entry == null || entry.contended) {
+			// The order in which concurrent writes were applied by James is unknown
+			entries.remove(key);
+			forgottenWrites = Math.max(forgottenWrites, lastWrite);
+		} else {
+			entries.put(key, stored(value, lastWrite));
+		}
+	}
+
+	public synchronized void invalidate(String key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && entry.writesInFlight > 0) {
+			return;
+		}
+		entries.remove(key);
+		forgottenWrites = Math.max(forgottenWrites, sequence.incrementAndGet());
+	}
+
+	private Entry<V> stored(V value, long lastWrite) {
+		long maxAge = negative.test(value) ? negativeMaxAgeNanos : maxAgeNanos;
+		return new Entry<>(value, nanoClock.getAsLong() + maxAge, lastWrite, 0, false);
+	}
+
+	/**
+	 * Evicts the least recently used keys above the maximum size. The keys being
+	 * written are kept, their writes still have to be accounted for.
+	 */
+	private void evictIfFull() {
+		Iterator<Map.Entry<String, Entry<V>>> eldest = entries.entrySet().iterator();
+		while (entries.size() > maximumSize && eldest.hasNext()) {
+			Entry<V> entry = eldest.next().getValue();
+			if (entry.writesInFlight == 0) {
+				eldest.remove();
+				forgottenWrites = Math.max(forgottenWrites, entry.lastWrite);
+				evictions.increment();
+			}
+		}
+	}
+
+	@Override
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public long getNegativeHits() {
+		return negativeHits.sum();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public double getHitRatio() {
+		long found = hits.sum() + negativeHits.sum();
+		long lookups = found + misses.sum();
+		return lookups == 0 ? 0 : found / (double) lookups;
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+		private final long lastWrite;
+		private final int writesInFlight;
+		/** Whether several writes of the key were in flight at once since the first of them started. */
+		private final boolean contended;
+
+		private Entry(V value, long expiresAt, long lastWrite, int writesInFlight, boolean contended) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.lastWrite = lastWrite;
+			this.writesInFlight = writesInFlight;
+			this.contended = contended;
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.coalesce;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.lsc.plugins.connectors.james.beans.Alias;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Net change of the aliases of a user, resulting from one or several
+ * modifications computed by LSC.
+ *
+ * A delta either replaces the aliases of the user with a set, or adds and
+ * removes some of them. A created delta tells that the user had no alias
+ * before the first modification, as LSC only creates missing objects: its
+ * replacement set only has to be created, and it cancels out with a
+ * following deletion.
+ */
+public final class AliasDelta {
+
+	private final boolean created;
+	/** The aliases of the user once written, null when the delta is relative. */
+	private final Set<Alias> replacement;
+	private final Set<Alias> added;
+	private final Set<Alias> removed;
+	/** Aliases read before the first modification, null when unknown. */
+	private final List<Alias> existing;
+
+	private AliasDelta(boolean created, Set<Alias> replacement, Set<Alias> added, Set<Alias> removed, List<Alias> existing) {
+		this.created = created;
+		this.replacement = replacement;
+		this.added = added;
+		this.removed = removed;
+		this.existing = existing;
+	}
+
+	/**
+	 * @return the delta of a user without alias, who gets these ones
+	 */
+	public static AliasDelta created(Collection<Alias> aliases) {
+		return new AliasDelta(true, ImmutableSet.copyOf(aliases), ImmutableSet.of(), ImmutableSet.of(), null);
+	}
+
+	/**
+	 * @param existing the aliases of the user before the modification, null when unknown
+	 */
+	public static AliasDelta added(Collection<Alias> aliases, List<Alias> existing) {
+		return new AliasDelta(false, null, ImmutableSet.copyOf(aliases), ImmutableSet.of(), existing);
+	}
+
+	/**
+	 * @param existing the aliases of the user before the modification, null when unknown
+	 */
+	public static AliasDelta removed(Collection<Alias> aliases, List<Alias> existing) {
+		return new AliasDelta(false, null, ImmutableSet.of(), ImmutableSet.copyOf(aliases), existing);
+	}
+
+	/**
+	 * @param existing the aliases of the user before the modification, null when unknown
+	 */
+	public static AliasDelta replaced(Collection<Alias> aliases, List<Alias> existing) {
+		return new AliasDelta(false, ImmutableSet.copyOf(aliases), ImmutableSet.of(), ImmutableSet.of(), existing);
+	}
+
+	/**
+	 * @return the delta removing all the aliases of the user
+	 */
+	public static AliasDelta deleted() {
+		return new AliasDelta(false, ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of(), null);
+	}
+
+	/**
+	 * @return the delta of this one followed by the next one, null when they
+	 * cancel out: a created user whose aliases end up empty
+	 */
+	public AliasDelta then(AliasDelta next) {
+		AliasDelta merged;
+		if (next.replacement != null && !next.created) {
+			merged = new AliasDelta(created, next.replacement, ImmutableSet.of(), ImmutableSet.of(), existing);
+		} else {
+			// A creation following other modifications only adds aliases
+			Set<Alias> nextAdded = next.created ? next.replacement : next.added;
+			if (replacement != null) {
+				Set<Alias> aliases = new LinkedHashSet<>(replacement);
+				aliases.removeAll(next.removed);
+				aliases.addAll(nextAdded);
+				merged = new AliasDelta(created, ImmutableSet.copyOf(aliases), ImmutableSet.of(), ImmutableSet.of(), existing);
+			} else {
+				Set<Alias> mergedAdded = new LinkedHashSet<>(added);
+				mergedAdded.removeAll(next.removed);
+				mergedAdded.addAll(nextAdded);
+				Set<Alias> mergedRemoved = new LinkedHashSet<>(removed);
+				mergedRemoved.removeAll(nextAdded);
+				mergedRemoved.addAll(next.removed);
+				merged = new AliasDelta(false, null, ImmutableSet.copyOf(mergedAdded), ImmutableSet.copyOf(mergedRemoved), existing);
+			}
+		}
+		return merged.created && merged.replacement.isEmpty() ? null : merged;
+	}
+
+	public boolean isCreated() {
+		return created;
+	}
+
+	public boolean isReplacement() {
+		return replacement != null;
+	}
+
+	/**
+	 * @return the aliases of the user once written, for a replacement
+	 */
+	public Set<Alias> getReplacement() {
+		return replacement;
+	}
+
+	public Set<Alias> getAdded() {
+		return added;
+	}
+
+	public Set<Alias> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return the aliases of the user before the first modification, null when unknown
+	 */
+	public List<Alias> getExisting() {
+		return existing;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.omitNullValues()
+			.add("created", created)
+			.add("replacement", replacement)
+			.add("added", added)
+			.add("removed", removed)
+			.toString();
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.coalesce;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.LongSupplier;
+
+import org.lsc.exception.LscServiceCommunicationException;
+import org.lsc.exception.LscServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Holds the modifications of each key for a time window, merging those
+ * received meanwhile, before handing the result over to be written.
+ *
+ * The window of a key starts with its first modification, so that a key
+ * modified continuously is still written regularly. Modifications which
+ * cancel out are dropped, and nothing is written for them. When more keys
+ * than allowed are held, the oldest one is handed over at once by the
+ * thread adding a modification. The merged modifications the sink fails to
+ * take are dropped and counted, and the failure is thrown again, once, by the
+ * next modification added. Keys are handed over one at a time, so that two
+ * successive merges of the same key reach the sink in order.
+ *
+ * @param <D> the type of the modifications, merged with a function returning null when they cancel out
+ */
+public class Coalescer<D> implements CoalescerMXBean, Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Coalescer.class);
+
+	/**
+	 * Receives the merged modifications.
+	 */
+	@FunctionalInterface
+	public interface Sink<D> {
+		void write(String key, D delta) throws LscServiceException;
+	}
+
+	private final CoalescingSettings settings;
+	private final long windowNanos;
+	private final BinaryOperator<D> merge;
+	private final Sink<D> sink;
+	private final LongSupplier nanoClock;
+	private final Thread flusher;
+	private final Object dispatching = new Object();
+
+	/** Held modifications, in the order of the first modification of their key. */
+	private final Map<String, Held<D>> held = new LinkedHashMap<>();
+	private long heldModifications;
+	private boolean closed;
+	private final AtomicReference<LscServiceException> sinkFailure = new AtomicReference<>();
+
+	private final LongAdder received = new LongAdder();
+	private final LongAdder dispatched = new LongAdder();
+	private final LongAdder cancelled = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	public Coalescer(CoalescingSettings settings, BinaryOperator<D> merge, Sink<D> sink, String name) {
+		this(settings, merge, sink, name, System::nanoTime);
+	}
+
+	Coalescer(CoalescingSettings settings, BinaryOperator<D> merge, Sink<D> sink, String name, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(settings.getWindow());
+		this.merge = merge;
+		this.sink = sink;
+		this.nanoClock = nanoClock;
+		this.flusher = Thread.ofVirtual().name(name + "-coalescer").start(this::flushExpired);
+	}
+
+	/**
+	 * Holds a modification, merged with those already held for its key.
+	 *
+	 * @throws LscServiceException when the sink failed since the previous failure was thrown
+	 */
+	public void add(String key, D delta) throws LscServiceException {
+		LscServiceException failure = sinkFailure.getAndSet(null);
+		if (failure != null) {
+			throw failure instanceof LscServiceCommunicationException
+				? new LscServiceCommunicationException(failure)
+				: new LscServiceException(failure);
+		}
+		boolean overflow;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("The coalescer is closed");
+			}
+			received.increment();
+			Held<D> previous = held.get(key);
+			if (previous == null) {
+				held.put(key, new Held<>(key, delta, nanoClock.getAsLong()));
+				heldModifications++;
+				notifyAll();
+			} else {
+				D merged = merge.apply(previous.delta, delta);
+				if (merged == null) {
+					held.remove(key);
+					heldModifications -= previous.modifications;
+					cancelled.increment();
+				} else {
+					previous.delta = merged;
+					previous.modifications++;
+					heldModifications++;
+				}
+			}
+			overflow = held.size() > settings.getMaxPending();
+		}
+		if (overflow) {
+			dispatch(nanoClock.getAsLong(), 1);
+		}
+	}
+
+	/**
+	 * Hands over all the held modifications at once.
+	 */
+	public void flush() {
+		dispatch(nanoClock.getAsLong(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Hands over the modifications whose window started at the latest at the
+	 * deadline, the oldest first, up to the limit.
+	 */
+	private void dispatch(long deadline, int limit) {
+		synchronized (dispatching) {
+			List<Held<D>> due = new ArrayList<>();
+			synchronized (this) {
+				Iterator<Held<D>> oldest = held.values().iterator();
+				while (oldest.hasNext() && due.size() < limit) {
+					Held<D> next = oldest.next();
+					if (next.startedAt - deadline > 0) {
+						break;
+					}
+					oldest.remove();
+					heldModifications -= next.modifications;
+					due.add(next);
+				}
+			}
+			for (Held<D> next : due) {
+				dispatched.increment();
+				try {
+					sink.write(next.key, next.delta);
+				} catch (LscServiceException e) {
+					dropped.increment();
+					sinkFailure.compareAndSet(null, e);
+					LOGGER.error("Unable to hand over the merged modifications of {}: {}", next.key, e.toString());
+				} catch (RuntimeException e) {
+					dropped.increment();
+					LOGGER.error("Unable to hand over the merged modifications of {}: {}", next.key, e.toString());
+					LOGGER.debug(e.toString(), e);
+				}
+			}
+		}
+	}
+
+	private void flushExpired() {
+		while (true) {
+			synchronized (this) {
+				try {
+					while (!closed && (held.isEmpty() || remainingNanos() > 0)) {
+						if (held.isEmpty()) {
+							wait();
+						} else {
+							TimeUnit.NANOSECONDS.timedWait(this, remainingNanos());
+						}
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (closed) {
+					return;
+				}
+			}
+			dispatch(nanoClock.getAsLong() - windowNanos, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * @return the time left before the window of the oldest held key ends
+	 */
+	private long remainingNanos() {
+		return held.values().iterator().next().startedAt + windowNanos - nanoClock.getAsLong();
+	}
+
+	/**
+	 * Stops the background flush and hands over all the held modifications.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	@Override
+	public long getReceived() {
+		return received.sum();
+	}
+
+	@Override
+	public long getDispatched() {
+		return dispatched.sum();
+	}
+
+	@Override
+	public long getCancelled() {
+		return cancelled.sum();
+	}
+
+	@Override
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	@Override
+	public synchronized long getWritesAvoided() {
+		return received.sum() - dispatched.sum() - heldModifications;
+	}
+
+	@Override
+	public synchronized int getPending() {
+		return held.size();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("received", getReceived())
+			.add("dispatched", getDispatched())
+			.add("cancelled", getCancelled())
+			.add("dropped", getDropped())
+			.add("writesAvoided", getWritesAvoided())
+			.toString();
+	}
+
+	private static final class Held<D> {
+		private final String key;
+		private final long startedAt;
+		private D delta;
+		private long modifications = 1;
+
+		private Held(String key, D delta, long startedAt) {
+			this.key = key;
+			this.delta = delta;
+			this.startedAt = startedAt;
+		}
+	}
+}
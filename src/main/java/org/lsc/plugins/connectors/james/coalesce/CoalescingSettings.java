@@ -0,0 +1,97 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.coalesce;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.CoalescingType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link Coalescer}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class CoalescingSettings {
+
+	public static final long DEFAULT_WINDOW = 5000;
+	public static final int DEFAULT_MAX_PENDING = 10000;
+
+	private final long window;
+	private final int maxPending;
+
+	public CoalescingSettings(long window, int maxPending) {
+		Preconditions.checkArgument(window >= 0, "window must not be negative, got %s", window);
+		Preconditions.checkArgument(maxPending >= 1, "maxPending must be at least 1, got %s", maxPending);
+		this.window = window;
+		this.maxPending = maxPending;
+	}
+
+	public static CoalescingSettings from(CoalescingType configuration) {
+		return new CoalescingSettings(
+				Optional.ofNullable(configuration.getWindow()).orElse(DEFAULT_WINDOW),
+				Optional.ofNullable(configuration.getMaxPending()).orElse(DEFAULT_MAX_PENDING));
+	}
+
+	/**
+	 * @return the time the modifications of a key are held, from the first one, in milliseconds
+	 */
+	public long getWindow() {
+		return window;
+	}
+
+	/**
+	 * @return the number of held keys above which the oldest are written before the end of their window
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("window", window)
+			.add("maxPending", maxPending)
+			.toString();
+	}
+}
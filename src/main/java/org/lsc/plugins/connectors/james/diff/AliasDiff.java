@@ -0,0 +1,228 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.lsc.plugins.connectors.james.beans.Alias;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Differences between the aliases a user should have and those James has,
+ * computed without comparing each alias of one side to each of the other.
+ *
+ * Both sides are normalized first: the domains are case insensitive, and
+ * the aliases without source or repeated are ignored. The aliases to add
+ * keep the form they have in the source, and the aliases to remove the form
+ * James knows them by, as it is used in the webadmin URLs.
+ *
+ * Up to {@link #SORTED_MERGE_THRESHOLD} aliases, both sides are compared
+ * with hash tables, keeping their order. Above, they are sorted and merged:
+ * for the lists of distribution-list sized users, filling the hash tables
+ * costs more than sorting, see AliasDiffBenchmark.
+ */
+public final class AliasDiff {
+
+	/** Number of aliases of both sides above which they are sorted and merged. */
+	public static final int SORTED_MERGE_THRESHOLD = 10_000;
+
+	private final List<Alias> toAdd;
+	private final List<Alias> toRemove;
+
+	private AliasDiff(List<Alias> toAdd, List<Alias> toRemove) {
+		this.toAdd = toAdd;
+		this.toRemove = toRemove;
+	}
+
+	/**
+	 * @param wanted the aliases the user should have
+	 * @param existing the aliases the user has in James
+	 */
+	public static AliasDiff between(List<Alias> wanted, List<Alias> existing) {
+		if (wanted.size() + existing.size() > SORTED_MERGE_THRESHOLD) {
+			return sortedMerge(wanted, existing);
+		}
+		return hashed(wanted, existing);
+	}
+
+	static AliasDiff hashed(List<Alias> wanted, List<Alias> existing) {
+		Map<String, Alias> existingByKey = LinkedHashMap.newLinkedHashMap(existing.size());
+		for (Alias alias : existing) {
+			String key = keyOf(alias);
+			if (key != null) {
+				existingByKey.putIfAbsent(key, alias);
+			}
+		}
+		Set<String> wantedKeys = HashSet.newHashSet(wanted.size());
+		List<Alias> toAdd = new ArrayList<>();
+		for (Alias alias : wanted) {
+			String key = keyOf(alias);
+			if (key != null && wantedKeys.add(key) && !existingByKey.containsKey(key)) {
+				toAdd.add(alias);
+			}
+		}
+		List<Alias> toRemove = new ArrayList<>();
+		for (Map.Entry<String, Alias> entry : existingByKey.entrySet()) {
+			if (!wantedKeys.contains(entry.getKey())) {
+				toRemove.add(entry.getValue());
+			}
+		}
+		return new AliasDiff(toAdd, toRemove);
+	}
+
+	static AliasDiff sortedMerge(List<Alias> wanted, List<Alias> existing) {
+		Keyed[] wantedKeys = sortedKeys(wanted);
+		Keyed[] existingKeys = sortedKeys(existing);
+		List<Alias> toAdd = new ArrayList<>();
+		List<Alias> toRemove = new ArrayList<>();
+		int w = 0;
+		int e = 0;
+		while (w < wantedKeys.length || e < existingKeys.length) {
+			int comparison = w == wantedKeys.length ? 1
+				: e == existingKeys.length ? -1
+				: wantedKeys[w].key.compareTo(existingKeys[e].key);
+			if (comparison < 0) {
+				toAdd.add(wantedKeys[w].alias);
+				w = skip(wantedKeys, w);
+			} else if (comparison > 0) {
+				toRemove.add(existingKeys[e].alias);
+				e = skip(existingKeys, e);
+			} else {
+				w = skip(wantedKeys, w);
+				e = skip(existingKeys, e);
+			}
+		}
+		return new AliasDiff(toAdd, toRemove);
+	}
+
+	private static Keyed[] sortedKeys(List<Alias> aliases) {
+		Keyed[] keys = new Keyed[aliases.size()];
+		int length = 0;
+		for (Alias alias : aliases) {
+			String key = keyOf(alias);
+			if (key != null) {
+				keys[length++] = new Keyed(key, alias);
+			}
+		}
+		// Stable, so that the first of repeated aliases is kept as with hash tables
+		Arrays.sort(keys, 0, length, Comparator.comparing(keyed -> keyed.key));
+		return length == keys.length ? keys : Arrays.copyOf(keys, length);
+	}
+
+	/**
+	 * @return the index of the next key distinct from the one at the index
+	 */
+	private static int skip(Keyed[] keys, int index) {
+		int next = index + 1;
+		while (next < keys.length && keys[next].key.equals(keys[index].key)) {
+			next++;
+		}
+		return next;
+	}
+
+	/**
+	 * @return the source with its domain in lower case, allocating only when it
+	 * was not, the source itself when it has no domain, or null for an alias
+	 * without source
+	 */
+	static String keyOf(Alias alias) {
+		String source = alias.source;
+		if (source == null) {
+			return null;
+		}
+		int at = source.lastIndexOf('@');
+		if (at < 0) {
+			return source;
+		}
+		for (int i = at + 1; i < source.length(); i++) {
+			if (Character.isUpperCase(source.charAt(i))) {
+				return source.substring(0, at + 1) + source.substring(at + 1).toLowerCase(Locale.ROOT);
+			}
+		}
+		return source;
+	}
+
+	/**
+	 * @return the aliases of the source missing from James
+	 */
+	public List<Alias> getToAdd() {
+		return toAdd;
+	}
+
+	/**
+	 * @return the aliases of James missing from the source
+	 */
+	public List<Alias> getToRemove() {
+		return toRemove;
+	}
+
+	public boolean isEmpty() {
+		return toAdd.isEmpty() && toRemove.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("toAdd", toAdd.size())
+			.add("toRemove", toRemove.size())
+			.toString();
+	}
+
+	private static final class Keyed {
+		private final String key;
+		private final Alias alias;
+
+		private Keyed(String key, Alias alias) {
+			this.key = key;
+			this.alias = alias;
+		}
+	}
+}
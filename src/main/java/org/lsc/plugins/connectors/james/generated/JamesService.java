@@ -28,6 +28,25 @@ import org.lsc.configuration.ValuesType;
  *     &lt;extension base="{http://lsc-project.org/XSD/lsc-core-2.1.xsd}serviceType">
  *       &lt;sequence>
  *         &lt;element name="writableAttributes" type="{http://lsc-project.org/XSD/lsc-core-2.1.xsd}valuesType"/>
+ *         &lt;element name="connectionPool" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}connectionPoolType" minOccurs="0"/>
+ *         &lt;element name="transport" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}transportType" minOccurs="0"/>
+ *         &lt;element name="aliasWriteConcurrency" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="concurrencyLimit" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}concurrencyLimitType" minOccurs="0"/>
+ *         &lt;element name="retry" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}retryType" minOccurs="0"/>
+ *         &lt;element name="circuitBreaker" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}circuitBreakerType" minOccurs="0"/>
+ *         &lt;element name="rateLimit" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}rateLimitType" minOccurs="0"/>
+ *         &lt;element name="hedging" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}hedgingType" minOccurs="0"/>
+ *         &lt;element name="aliasPrefetch" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}aliasPrefetchType" minOccurs="0"/>
+ *         &lt;element name="userSnapshot" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}userSnapshotType" minOccurs="0"/>
+ *         &lt;element name="readCache" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}readCacheType" minOccurs="0"/>
+ *         &lt;element name="listingCache" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}listingCacheType" minOccurs="0"/>
+ *         &lt;element name="rereadAliasesOnUpdate" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="failureJournal" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}failureJournalType" minOccurs="0"/>
+ *         &lt;element name="writeBehind" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}writeBehindType" minOccurs="0"/>
+ *         &lt;element name="coalescing" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}coalescingType" minOccurs="0"/>
+ *         &lt;element name="keyOrdering" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}keyOrderingType" minOccurs="0"/>
+ *         &lt;element name="bulkheads" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}bulkheadsType" minOccurs="0"/>
+ *         &lt;element name="destinationSnapshot" type="{http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd}destinationSnapshotType" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/extension>
  *   &lt;/complexContent>
@@ -38,7 +57,26 @@ import org.lsc.configuration.ValuesType;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "jamesService", namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd", propOrder = {
-    "writableAttributes"
+    "writableAttributes",
+    "connectionPool",
+    "transport",
+    "aliasWriteConcurrency",
+    "concurrencyLimit",
+    "retry",
+    "circuitBreaker",
+    "rateLimit",
+    "hedging",
+    "aliasPrefetch",
+    "userSnapshot",
+    "readCache",
+    "listingCache",
+    "rereadAliasesOnUpdate",
+    "failureJournal",
+    "writeBehind",
+    "coalescing",
+    "keyOrdering",
+    "bulkheads",
+    "destinationSnapshot"
 })
 @XmlSeeAlso({
     JamesAliasService.class
@@ -49,6 +87,44 @@ public abstract class JamesService
 
     @XmlElement(required = true)
     protected ValuesType writableAttributes;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected ConnectionPoolType connectionPool;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd", defaultValue = "HTTP_1_1")
+    protected TransportType transport;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd", defaultValue = "1")
+    protected Integer aliasWriteConcurrency;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected ConcurrencyLimitType concurrencyLimit;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected RetryType retry;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected CircuitBreakerType circuitBreaker;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected RateLimitType rateLimit;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected HedgingType hedging;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected AliasPrefetchType aliasPrefetch;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected UserSnapshotType userSnapshot;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected ReadCacheType readCache;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected ListingCacheType listingCache;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd", defaultValue = "false")
+    protected Boolean rereadAliasesOnUpdate;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected FailureJournalType failureJournal;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected WriteBehindType writeBehind;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected CoalescingType coalescing;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected KeyOrderingType keyOrdering;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected BulkheadsType bulkheads;
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+    protected DestinationSnapshotType destinationSnapshot;
 
     /**
      * Gets the value of the writableAttributes property.
@@ -74,4 +150,460 @@ public abstract class JamesService
         this.writableAttributes = value;
     }
 
+    /**
+     * Gets the value of the connectionPool property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ConnectionPoolType }
+     *     
+     */
+    public ConnectionPoolType getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Sets the value of the connectionPool property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ConnectionPoolType }
+     *     
+     */
+    public void setConnectionPool(ConnectionPoolType value) {
+        this.connectionPool = value;
+    }
+
+    /**
+     * Gets the value of the transport property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link TransportType }
+     *     
+     */
+    public TransportType getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the value of the transport property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link TransportType }
+     *     
+     */
+    public void setTransport(TransportType value) {
+        this.transport = value;
+    }
+
+    /**
+     * Gets the value of the aliasWriteConcurrency property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getAliasWriteConcurrency() {
+        return aliasWriteConcurrency;
+    }
+
+    /**
+     * Sets the value of the aliasWriteConcurrency property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setAliasWriteConcurrency(Integer value) {
+        this.aliasWriteConcurrency = value;
+    }
+
+    /**
+     * Gets the value of the concurrencyLimit property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ConcurrencyLimitType }
+     *     
+     */
+    public ConcurrencyLimitType getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Sets the value of the concurrencyLimit property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ConcurrencyLimitType }
+     *     
+     */
+    public void setConcurrencyLimit(ConcurrencyLimitType value) {
+        this.concurrencyLimit = value;
+    }
+
+    /**
+     * Gets the value of the retry property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link RetryType }
+     *     
+     */
+    public RetryType getRetry() {
+        return retry;
+    }
+
+    /**
+     * Sets the value of the retry property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link RetryType }
+     *     
+     */
+    public void setRetry(RetryType value) {
+        this.retry = value;
+    }
+
+    /**
+     * Gets the value of the circuitBreaker property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link CircuitBreakerType }
+     *     
+     */
+    public CircuitBreakerType getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets the value of the circuitBreaker property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link CircuitBreakerType }
+     *     
+     */
+    public void setCircuitBreaker(CircuitBreakerType value) {
+        this.circuitBreaker = value;
+    }
+
+    /**
+     * Gets the value of the rateLimit property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link RateLimitType }
+     *     
+     */
+    public RateLimitType getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Sets the value of the rateLimit property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link RateLimitType }
+     *     
+     */
+    public void setRateLimit(RateLimitType value) {
+        this.rateLimit = value;
+    }
+
+    /**
+     * Gets the value of the hedging property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link HedgingType }
+     *     
+     */
+    public HedgingType getHedging() {
+        return hedging;
+    }
+
+    /**
+     * Sets the value of the hedging property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link HedgingType }
+     *     
+     */
+    public void setHedging(HedgingType value) {
+        this.hedging = value;
+    }
+
+    /**
+     * Gets the value of the aliasPrefetch property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link AliasPrefetchType }
+     *     
+     */
+    public AliasPrefetchType getAliasPrefetch() {
+        return aliasPrefetch;
+    }
+
+    /**
+     * Sets the value of the aliasPrefetch property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link AliasPrefetchType }
+     *     
+     */
+    public void setAliasPrefetch(AliasPrefetchType value) {
+        this.aliasPrefetch = value;
+    }
+
+    /**
+     * Gets the value of the userSnapshot property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link UserSnapshotType }
+     *     
+     */
+    public UserSnapshotType getUserSnapshot() {
+        return userSnapshot;
+    }
+
+    /**
+     * Sets the value of the userSnapshot property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link UserSnapshotType }
+     *     
+     */
+    public void setUserSnapshot(UserSnapshotType value) {
+        this.userSnapshot = value;
+    }
+
+    /**
+     * Gets the value of the readCache property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ReadCacheType }
+     *     
+     */
+    public ReadCacheType getReadCache() {
+        return readCache;
+    }
+
+    /**
+     * Sets the value of the readCache property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ReadCacheType }
+     *     
+     */
+    public void setReadCache(ReadCacheType value) {
+        this.readCache = value;
+    }
+
+    /**
+     * Gets the value of the listingCache property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link ListingCacheType }
+     *     
+     */
+    public ListingCacheType getListingCache() {
+        return listingCache;
+    }
+
+    /**
+     * Sets the value of the listingCache property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link ListingCacheType }
+     *     
+     */
+    public void setListingCache(ListingCacheType value) {
+        this.listingCache = value;
+    }
+
+    /**
+     * Gets the value of the rereadAliasesOnUpdate property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isRereadAliasesOnUpdate() {
+        return rereadAliasesOnUpdate;
+    }
+
+    /**
+     * Sets the value of the rereadAliasesOnUpdate property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setRereadAliasesOnUpdate(Boolean value) {
+        this.rereadAliasesOnUpdate = value;
+    }
+
+    /**
+     * Gets the value of the failureJournal property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link FailureJournalType }
+     *     
+     */
+    public FailureJournalType getFailureJournal() {
+        return failureJournal;
+    }
+
+    /**
+     * Sets the value of the failureJournal property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link FailureJournalType }
+     *     
+     */
+    public void setFailureJournal(FailureJournalType value) {
+        this.failureJournal = value;
+    }
+
+    /**
+     * Gets the value of the writeBehind property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link WriteBehindType }
+     *     
+     */
+    public WriteBehindType getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Sets the value of the writeBehind property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link WriteBehindType }
+     *     
+     */
+    public void setWriteBehind(WriteBehindType value) {
+        this.writeBehind = value;
+    }
+
+    /**
+     * Gets the value of the coalescing property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link CoalescingType }
+     *     
+     */
+    public CoalescingType getCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Sets the value of the coalescing property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link CoalescingType }
+     *     
+     */
+    public void setCoalescing(CoalescingType value) {
+        this.coalescing = value;
+    }
+
+    /**
+     * Gets the value of the keyOrdering property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link KeyOrderingType }
+     *     
+     */
+    public KeyOrderingType getKeyOrdering() {
+        return keyOrdering;
+    }
+
+    /**
+     * Sets the value of the keyOrdering property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link KeyOrderingType }
+     *     
+     */
+    public void setKeyOrdering(KeyOrderingType value) {
+        this.keyOrdering = value;
+    }
+
+    /**
+     * Gets the value of the bulkheads property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BulkheadsType }
+     *     
+     */
+    public BulkheadsType getBulkheads() {
+        return bulkheads;
+    }
+
+    /**
+     * Sets the value of the bulkheads property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BulkheadsType }
+     *     
+     */
+    public void setBulkheads(BulkheadsType value) {
+        this.bulkheads = value;
+    }
+
+    /**
+     * Gets the value of the destinationSnapshot property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link DestinationSnapshotType }
+     *     
+     */
+    public DestinationSnapshotType getDestinationSnapshot() {
+        return destinationSnapshot;
+    }
+
+    /**
+     * Sets the value of the destinationSnapshot property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link DestinationSnapshotType }
+     *     
+     */
+    public void setDestinationSnapshot(DestinationSnapshotType value) {
+        this.destinationSnapshot = value;
+    }
+
 }
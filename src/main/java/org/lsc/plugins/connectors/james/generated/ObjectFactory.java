@@ -52,4 +52,148 @@ public class ObjectFactory {
         return new JamesUsersService();
     }
 
+    /**
+     * Create an instance of {@link ConnectionPoolType }
+     *
+     */
+    public ConnectionPoolType createConnectionPoolType() {
+        return new ConnectionPoolType();
+    }
+
+    /**
+     * Create an instance of {@link ConcurrencyLimitType }
+     *
+     */
+    public ConcurrencyLimitType createConcurrencyLimitType() {
+        return new ConcurrencyLimitType();
+    }
+
+    /**
+     * Create an instance of {@link RetryType }
+     *
+     */
+    public RetryType createRetryType() {
+        return new RetryType();
+    }
+
+    /**
+     * Create an instance of {@link CircuitBreakerType }
+     *
+     */
+    public CircuitBreakerType createCircuitBreakerType() {
+        return new CircuitBreakerType();
+    }
+
+    /**
+     * Create an instance of {@link RateLimitWindowType }
+     *
+     */
+    public RateLimitWindowType createRateLimitWindowType() {
+        return new RateLimitWindowType();
+    }
+
+    /**
+     * Create an instance of {@link RateLimitType }
+     *
+     */
+    public RateLimitType createRateLimitType() {
+        return new RateLimitType();
+    }
+
+    /**
+     * Create an instance of {@link HedgingType }
+     *
+     */
+    public HedgingType createHedgingType() {
+        return new HedgingType();
+    }
+
+    /**
+     * Create an instance of {@link AliasPrefetchType }
+     *
+     */
+    public AliasPrefetchType createAliasPrefetchType() {
+        return new AliasPrefetchType();
+    }
+
+    /**
+     * Create an instance of {@link UserSnapshotType }
+     *
+     */
+    public UserSnapshotType createUserSnapshotType() {
+        return new UserSnapshotType();
+    }
+
+    /**
+     * Create an instance of {@link ReadCacheType }
+     *
+     */
+    public ReadCacheType createReadCacheType() {
+        return new ReadCacheType();
+    }
+
+    /**
+     * Create an instance of {@link ListingCacheType }
+     *
+     */
+    public ListingCacheType createListingCacheType() {
+        return new ListingCacheType();
+    }
+
+    /**
+     * Create an instance of {@link FailureJournalType }
+     *
+     */
+    public FailureJournalType createFailureJournalType() {
+        return new FailureJournalType();
+    }
+
+    /**
+     * Create an instance of {@link WriteBehindType }
+     *
+     */
+    public WriteBehindType createWriteBehindType() {
+        return new WriteBehindType();
+    }
+
+    /**
+     * Create an instance of {@link CoalescingType }
+     *
+     */
+    public CoalescingType createCoalescingType() {
+        return new CoalescingType();
+    }
+
+    /**
+     * Create an instance of {@link KeyOrderingType }
+     *
+     */
+    public KeyOrderingType createKeyOrderingType() {
+        return new KeyOrderingType();
+    }
+
+    /**
+     * Create an instance of {@link BulkheadType }
+     *
+     */
+    public BulkheadType createBulkheadType() {
+        return new BulkheadType();
+    }
+
+    /**
+     * Create an instance of {@link BulkheadsType }
+     *
+     */
+    public BulkheadsType createBulkheadsType() {
+        return new BulkheadsType();
+    }
+
+    /**
+     * Create an instance of {@link DestinationSnapshotType }
+     *
+     */
+    public DestinationSnapshotType createDestinationSnapshotType() {
+        return new DestinationSnapshotType();
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.ConnectionPoolType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * Connection pool settings of a James webadmin client, with the defaults
+ * of lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class ConnectionPoolSettings {
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 50;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+	public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+	public static final long DEFAULT_KEEP_ALIVE = 60000;
+
+	public static final ConnectionPoolSettings DEFAULT = new ConnectionPoolSettings(DEFAULT_MAX_CONNECTIONS,
+			DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, DEFAULT_KEEP_ALIVE);
+
+	private final int maxConnections;
+	private final int maxConnectionsPerRoute;
+	private final long idleTimeout;
+	private final long keepAlive;
+
+	public ConnectionPoolSettings(int maxConnections, int maxConnectionsPerRoute, long idleTimeout, long keepAlive) {
+		this.maxConnections = maxConnections;
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		this.idleTimeout = idleTimeout;
+		this.keepAlive = keepAlive;
+	}
+
+	public static ConnectionPoolSettings from(ConnectionPoolType configuration) {
+		if (configuration == null) {
+			return DEFAULT;
+		}
+		return new ConnectionPoolSettings(
+				Optional.ofNullable(configuration.getMaxConnections()).orElse(DEFAULT_MAX_CONNECTIONS),
+				Optional.ofNullable(configuration.getMaxConnectionsPerRoute()).orElse(DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+				Optional.ofNullable(configuration.getIdleTimeout()).orElse(DEFAULT_IDLE_TIMEOUT),
+				Optional.ofNullable(configuration.getKeepAlive()).orElse(DEFAULT_KEEP_ALIVE));
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public long getKeepAlive() {
+		return keepAlive;
+	}
+
+	@Override
+	public final boolean equals(Object other) {
+		if (!(other instanceof ConnectionPoolSettings)) {
+			return false;
+		}
+		ConnectionPoolSettings settings = (ConnectionPoolSettings) other;
+		return maxConnections == settings.maxConnections
+			&& maxConnectionsPerRoute == settings.maxConnectionsPerRoute
+			&& idleTimeout == settings.idleTimeout
+			&& keepAlive == settings.keepAlive;
+	}
+
+	@Override
+	public final int hashCode() {
+		return Objects.hashCode(maxConnections, maxConnectionsPerRoute, idleTimeout, keepAlive);
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("maxConnections", maxConnections)
+			.add("maxConnectionsPerRoute", maxConnectionsPerRoute)
+			.add("idleTimeout", idleTimeout)
+			.add("keepAlive", keepAlive)
+			.toString();
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.glassfish.jersey.apache5.connector.Apache5ClientProperties;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider;
+import org.glassfish.jersey.apache5.connector.Apache5HttpClientBuilderConfigurator;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.jnh.connector.JavaNetHttpClientProperties;
+import org.glassfish.jersey.jnh.connector.JavaNetHttpConnectorProvider;
+import org.lsc.plugins.connectors.james.generated.TransportType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+
+/**
+ * Process wide registry of the HTTP clients used to reach James webadmin.
+ *
+ * All the DAOs pointing to the same webadmin with the same token, pool
+ * settings and transport share one keep-alive client, unless they ask for
+ * different lanes or response timeouts. Clients are reference counted and closed when their last
+ * lease is released.
+ */
+public final class JamesClientRegistry {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JamesClientRegistry.class);
+
+	private static final JamesClientRegistry INSTANCE = new JamesClientRegistry();
+
+	/** Lane of the clients shared by all the traffic of their DAOs. */
+	public static final String SHARED_LANE = "shared";
+
+	private final Map<Key, SharedClient> clients = new HashMap<>();
+
+	public static JamesClientRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	public synchronized Lease acquire(String url, String token, ConnectionPoolSettings settings) {
+		return acquire(url, token, settings, TransportType.HTTP_1_1);
+	}
+
+	public synchronized Lease acquire(String url, String token, ConnectionPoolSettings settings, TransportType transport) {
+		return acquire(url, token, settings, transport, SHARED_LANE, 0);
+	}
+
+	/**
+	 * @param lane clients of different lanes are never shared, so that each
+	 * lane has its own connections and threads
+	 * @param responseTimeout time after which the client gives up waiting for
+	 * a response, in milliseconds, or 0 to wait as long as the connection lasts
+	 */
+	public synchronized Lease acquire(String url, String token, ConnectionPoolSettings settings, TransportType transport, String lane,
+			int responseTimeout) {
+		Key key = new Key(url, token, settings, transport, lane, responseTimeout);
+		SharedClient sharedClient = clients.computeIfAbsent(key, k -> {
+			LOGGER.debug("Creating {} James webadmin client of the {} lane for {} with {}", transport, lane, url, settings);
+			return newClient(settings, transport, responseTimeout);
+		});
+		sharedClient.references++;
+		return new Lease(key, sharedClient.client);
+	}
+
+	synchronized int size() {
+		return clients.size();
+	}
+
+	private synchronized void release(Key key) {
+		SharedClient sharedClient = clients.get(key);
+		if (sharedClient == null) {
+			return;
+		}
+		sharedClient.references--;
+		if (sharedClient.references == 0) {
+			LOGGER.debug("Closing James webadmin client for {}", key.url);
+			clients.remove(key);
+			sharedClient.client.close();
+			if (sharedClient.connectionManager != null) {
+				sharedClient.connectionManager.close();
+			}
+		}
+	}
+
+	private static SharedClient newClient(ConnectionPoolSettings settings, TransportType transport, int responseTimeout) {
+		if (transport == TransportType.HTTP_2) {
+			return new SharedClient(newHttp2Client(responseTimeout), null);
+		}
+		return newPooledClient(settings, responseTimeout);
+	}
+
+	/**
+	 * The response timeout bounds each request of the java.net.http client,
+	 * which does not take 0 for no timeout.
+	 */
+	private static Client newHttp2Client(int responseTimeout) {
+		ClientConfig config = new ClientConfig()
+			.connectorProvider(new JavaNetHttpConnectorProvider())
+			.property(JavaNetHttpClientProperties.HTTP_VERSION, HttpClient.Version.HTTP_2)
+			.register(JacksonFeature.class);
+		if (responseTimeout > 0) {
+			config.property(ClientProperties.READ_TIMEOUT, responseTimeout);
+		}
+		return ClientBuilder.newClient(config);
+	}
+
+	/**
+	 * The response timeout is the one of each request and the socket timeout
+	 * of the pooled connections. The pool is closed with the client only: the
+	 * connector of each target registering its own providers shares it, and
+	 * would otherwise shut it down once the target is garbage collected.
+	 */
+	private static SharedClient newPooledClient(ConnectionPoolSettings settings, int responseTimeout) {
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+			.setMaxConnTotal(settings.getMaxConnections())
+			.setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+			.setDefaultConnectionConfig(ConnectionConfig.custom()
+				.setTimeToLive(TimeValue.ofMilliseconds(settings.getKeepAlive()))
+				.setSocketTimeout(Timeout.ofMilliseconds(responseTimeout))
+				.build())
+			.build();
+		ClientConfig config = new ClientConfig()
+			.connectorProvider(new Apache5ConnectorProvider())
+			.property(Apache5ClientProperties.CONNECTION_MANAGER, connectionManager)
+			.property(Apache5ClientProperties.CONNECTION_MANAGER_SHARED, true)
+			.property(ClientProperties.READ_TIMEOUT, responseTimeout)
+			.register(JacksonFeature.class)
+			.register(new PoolConfigurator(settings));
+		return new SharedClient(ClientBuilder.newClient(config), connectionManager);
+	}
+
+	/**
+	 * Evicts idle connections in the background and caps the keep-alive
+	 * duration announced by the server. The automatic retries of HttpClient
+	 * are disabled: retries are left to the budgeted RetryPolicy of JamesDao.
+	 */
+	private static class PoolConfigurator implements Apache5HttpClientBuilderConfigurator {
+		private final ConnectionPoolSettings settings;
+
+		PoolConfigurator(ConnectionPoolSettings settings) {
+			this.settings = settings;
+		}
+
+		@Override
+		public HttpClientBuilder configure(HttpClientBuilder builder) {
+			TimeValue maxKeepAlive = TimeValue.ofMilliseconds(settings.getKeepAlive());
+			ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) ->
+				DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context).min(maxKeepAlive);
+			return builder
+				.setKeepAliveStrategy(keepAliveStrategy)
+				.disableAutomaticRetries()
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofMilliseconds(settings.getIdleTimeout()));
+		}
+	}
+
+	/**
+	 * A reference on a shared client, to be closed once the client is no longer used.
+	 */
+	public final class Lease implements Closeable {
+		private final Key key;
+		private final Client client;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Lease(Key key, Client client) {
+			this.key = key;
+			this.client = client;
+		}
+
+		public Client getClient() {
+			return client;
+		}
+
+		@Override
+		public void close() {
+			if (released.compareAndSet(false, true)) {
+				release(key);
+			}
+		}
+	}
+
+	private static class SharedClient {
+		private final Client client;
+		/** The pool of the connections of the client, null when it has none. */
+		private final PoolingHttpClientConnectionManager connectionManager;
+		private int references;
+
+		SharedClient(Client client, PoolingHttpClientConnectionManager connectionManager) {
+			this.client = client;
+			this.connectionManager = connectionManager;
+		}
+	}
+
+	private static class Key {
+		private final String url;
+		private final String token;
+		private final ConnectionPoolSettings settings;
+		private final TransportType transport;
+		private final String lane;
+		private final int responseTimeout;
+
+		Key(String url, String token, ConnectionPoolSettings settings, TransportType transport, String lane, int responseTimeout) {
+			this.url = url;
+			this.token = token;
+			this.settings = settings;
+			this.transport = transport;
+			this.lane = lane;
+			this.responseTimeout = responseTimeout;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return Objects.equal(url, key.url)
+				&& Objects.equal(token, key.token)
+				&& Objects.equal(settings, key.settings)
+				&& transport == key.transport
+				&& Objects.equal(lane, key.lane)
+				&& responseTimeout == key.responseTimeout;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(url, token, settings, transport, lane, responseTimeout);
+		}
+	}
+}
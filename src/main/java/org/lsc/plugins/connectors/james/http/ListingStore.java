@@ -0,0 +1,301 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps on disk the last listings read from a James server, with the
+ * validators they came with, so that they can be requested conditionally:
+ * when James answers 304 Not Modified, the stored copy is read instead.
+ *
+ * Each listing is a single file holding its ETag and Last-Modified headers,
+ * one per line, followed by the body. It is replaced atomically once a new
+ * body was fully read. A listing received without validators is not kept,
+ * as it could not be requested conditionally. Failing to store a listing is
+ * only logged, the listing is then downloaded again next time.
+ */
+public class ListingStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ListingStore.class);
+
+	private final Path directory;
+	/** Tells apart the listings of the James servers sharing the directory. */
+	private final String prefix;
+
+	public ListingStore(ListingCacheSettings settings, String endpoint) {
+		this.directory = settings.getDirectory();
+		this.prefix = Hashing.sha256().hashString(endpoint, StandardCharsets.UTF_8).toString().substring(0, 16);
+	}
+
+	private Path path(String listing) {
+		return directory.resolve(prefix + "-" + listing + ".listing");
+	}
+
+	/**
+	 * @return the validators of the stored copy of the listing, if there is one
+	 */
+	public Optional<Validators> validators(String listing) {
+		try (InputStream stored = new BufferedInputStream(Files.newInputStream(path(listing)))) {
+			return Optional.of(readValidators(stored));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read the stored {} listing: {}", listing, e.toString());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return the body of the stored copy of the listing
+	 */
+	public InputStream open(String listing) throws IOException {
+		InputStream stored = new BufferedInputStream(Files.newInputStream(path(listing)));
+		try {
+			readValidators(stored);
+			return stored;
+		} catch (IOException e) {
+			stored.close();
+			throw e;
+		}
+	}
+
+	public void forget(String listing) {
+		try {
+			Files.deleteIfExists(path(listing));
+		} catch (IOException e) {
+			LOGGER.warn("Unable to delete the stored {} listing: {}", listing, e.toString());
+		}
+	}
+
+	/**
+	 * Starts storing a new copy of the listing, which replaces the previous one
+	 * once committed.
+	 */
+	public Recording record(String listing, Validators validators) {
+		return new Recording(listing, validators);
+	}
+
+	private static Validators readValidators(InputStream stored) throws IOException {
+		return new Validators(readLine(stored), readLine(stored));
+	}
+
+	private static String readLine(InputStream stored) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		for (int b = stored.read(); b != '\n'; b = stored.read()) {
+			if (b == -1) {
+				throw new EOFException("Truncated listing");
+			}
+			line.write(b);
+		}
+		return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+	}
+
+	private static void writeLine(OutputStream out, String value) throws IOException {
+		if (value != null) {
+			out.write(value.getBytes(StandardCharsets.ISO_8859_1));
+		}
+		out.write('\n');
+	}
+
+	/**
+	 * The ETag and Last-Modified headers of a listing, at least one of them being set.
+	 */
+	public static final class Validators {
+		private final String entityTag;
+		private final String lastModified;
+
+		private Validators(String entityTag, String lastModified) {
+			this.entityTag = entityTag;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * @return the validators of a response, if it has some
+		 */
+		public static Optional<Validators> of(String entityTag, String lastModified) {
+			if (entityTag == null && lastModified == null) {
+				return Optional.empty();
+			}
+			return Optional.of(new Validators(entityTag, lastModified));
+		}
+
+		public Optional<String> getEntityTag() {
+			return Optional.ofNullable(entityTag);
+		}
+
+		public Optional<String> getLastModified() {
+			return Optional.ofNullable(lastModified);
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.omitNullValues()
+				.add("entityTag", entityTag)
+				.add("lastModified", lastModified)
+				.toString();
+		}
+	}
+
+	/**
+	 * Copies a body to a temporary file as it is read, moved in place of the
+	 * stored listing on commit and deleted otherwise.
+	 */
+	public final class Recording implements Closeable {
+		private final String listing;
+		private Path temporary;
+		private OutputStream out;
+
+		private Recording(String listing, Validators validators) {
+			this.listing = listing;
+			try {
+				Files.createDirectories(directory);
+				temporary = Files.createTempFile(directory, prefix + "-" + listing, ".tmp");
+				out = Files.newOutputStream(temporary);
+				writeLine(out, validators.entityTag);
+				writeLine(out, validators.lastModified);
+			} catch (IOException e) {
+				abandon(e);
+			}
+		}
+
+		/**
+		 * @return the body, copied to the recording as it is read
+		 */
+		public InputStream copying(InputStream body) {
+			return new FilterInputStream(body) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						copy(new byte[] { (byte) b }, 0, 1);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) throws IOException {
+					int read = super.read(buffer, offset, length);
+					if (read > 0) {
+						copy(buffer, offset, read);
+					}
+					return read;
+				}
+			};
+		}
+
+		private void copy(byte[] buffer, int offset, int length) {
+			if (out == null) {
+				return;
+			}
+			try {
+				out.write(buffer, offset, length);
+			} catch (IOException e) {
+				abandon(e);
+			}
+		}
+
+		/**
+		 * Replaces the stored listing with the body read so far, which must be complete.
+		 */
+		public void commit() {
+			if (out == null) {
+				return;
+			}
+			try {
+				out.close();
+				out = null;
+				Files.move(temporary, path(listing), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				temporary = null;
+			} catch (IOException e) {
+				abandon(e);
+			}
+		}
+
+		private void abandon(IOException cause) {
+			LOGGER.warn("Unable to store the {} listing in {}: {}", listing, directory, cause.toString());
+			// The stored copy no longer matches the listing of James
+			forget(listing);
+			close();
+		}
+
+		@Override
+		public void close() {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Unable to close the recording of the {} listing", listing, e);
+			}
+			out = null;
+			try {
+				if (temporary != null) {
+					Files.deleteIfExists(temporary);
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Unable to delete the recording of the {} listing", listing, e);
+			}
+			temporary = null;
+		}
+	}
+}
@@ -0,0 +1,394 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.journal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult.Operation;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hashing;
+
+/**
+ * Append-only journal of the alias writes which failed, so that they can be
+ * applied again once James is back instead of synchronizing all the users.
+ *
+ * Each line is a JSON object telling the alias, its user, the operation and
+ * why it failed. When an alias with a journaled failure is written
+ * successfully later on, a RESOLVED line is appended, so that the replay
+ * does not undo it: only the last line of each alias counts. A replay moves
+ * the journal aside, writes again the aliases whose last line is a failure,
+ * and deletes it; the writes failing again are journaled anew. Failing to
+ * journal is only logged, as it must not prevent the synchronization from
+ * running.
+ */
+public class FailureJournal {
+
+	static final String RESOLVED = "RESOLVED";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FailureJournal.class);
+	private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+	/**
+	 * Writes a list of aliases of a user, as JamesDao#writeAliases does.
+	 */
+	@FunctionalInterface
+	public interface AliasWriter {
+		AliasWriteResult write(User user, Operation operation, List<Alias> aliases);
+	}
+
+	private final Path file;
+	private final Path replayed;
+	private final Clock clock;
+	/** Aliases whose last journaled write failed. */
+	private final Set<String> pending = new HashSet<>();
+
+	public FailureJournal(FailureJournalSettings settings, String endpoint) {
+		this(settings.getDirectory().resolve(
+				Hashing.sha256().hashString(endpoint, StandardCharsets.UTF_8).toString().substring(0, 16) + "-failures.journal"),
+			Clock.systemUTC());
+	}
+
+	FailureJournal(Path file, Clock clock) {
+		this.file = file;
+		this.replayed = file.resolveSibling(file.getFileName() + ".replay");
+		this.clock = clock;
+		// A replay interrupted by a crash left its journal aside, it comes before the current one
+		List<Entry> entries = read(replayed);
+		entries.addAll(read(file));
+		for (Entry entry : unresolved(entries)) {
+			pending.add(entry.key());
+		}
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Journals the aliases of the result which were not written, and marks as
+	 * resolved the written ones which had a journaled failure.
+	 */
+	public void record(AliasWriteResult result) {
+		Instant now = clock.instant();
+		List<Entry> entries = new ArrayList<>();
+		synchronized (this) {
+			for (AliasWriteResult.Item item : result.getItems()) {
+				if (item.getStatus() == AliasWriteResult.Status.WRITTEN) {
+					Entry entry = new Entry(now, RESOLVED, result.getOperation(), result.getUser().email, item.getAlias().source, null);
+					if (pending.remove(entry.key())) {
+						entries.add(entry);
+					}
+				} else {
+					Entry entry = new Entry(now, item.getStatus().name(), result.getOperation(), result.getUser().email,
+							item.getAlias().source, item.getError());
+					pending.add(entry.key());
+					entries.add(entry);
+				}
+			}
+			append(entries);
+		}
+	}
+
+	/**
+	 * Journals all the aliases of a write which failed as a whole: which of
+	 * them were written before the failure is unknown, and writing them again
+	 * is harmless.
+	 */
+	public void recordFailure(User user, Operation operation, List<Alias> aliases, Throwable failure) {
+		Instant now = clock.instant();
+		List<Entry> entries = new ArrayList<>();
+		synchronized (this) {
+			for (Alias alias : aliases) {
+				Entry entry = new Entry(now, AliasWriteResult.Status.FAILED.name(), operation, user.email, alias.source, failure.toString());
+				pending.add(entry.key());
+				entries.add(entry);
+			}
+			append(entries);
+		}
+	}
+
+	/**
+	 * @return the number of aliases whose last journaled write failed
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Writes again the aliases whose last journaled write failed, grouped by
+	 * user and operation, in the order of their failures.
+	 */
+	public Replay replay(AliasWriter writer) throws IOException {
+		List<Entry> unresolved;
+		synchronized (this) {
+			if (Files.exists(file)) {
+				if (Files.exists(replayed)) {
+					Files.write(replayed, Files.readAllBytes(file), StandardOpenOption.APPEND);
+					Files.delete(file);
+				} else {
+					Files.move(file, replayed, StandardCopyOption.ATOMIC_MOVE);
+				}
+			}
+			unresolved = unresolved(read(replayed));
+			pending.clear();
+		}
+		Map<String, List<Entry>> writes = new LinkedHashMap<>();
+		for (Entry entry : unresolved) {
+			writes.computeIfAbsent(entry.operation + "\n" + entry.user, key -> new ArrayList<>()).add(entry);
+		}
+		int written = 0;
+		int failed = 0;
+		for (List<Entry> write : writes.values()) {
+			Entry first = write.get(0);
+			List<Alias> aliases = new ArrayList<>(write.size());
+			for (Entry entry : write) {
+				aliases.add(new Alias(entry.alias));
+			}
+			try {
+				// The aliases failing again are journaled by the writer
+				AliasWriteResult result = writer.write(new User(first.user), first.operation, aliases);
+				int failures = result.getFailures().size();
+				written += aliases.size() - failures;
+				failed += failures;
+			} catch (RuntimeException e) {
+				LOGGER.error(String.format("Error (%s) while replaying the %s of the aliases of %s", e, first.operation, first.user));
+				failed += aliases.size();
+			}
+		}
+		Files.deleteIfExists(replayed);
+		return new Replay(written, failed);
+	}
+
+	/**
+	 * @return the entries whose alias has no later entry, and which are not resolved
+	 */
+	static List<Entry> unresolved(List<Entry> entries) {
+		Map<String, Entry> last = new LinkedHashMap<>();
+		for (Entry entry : entries) {
+			// Removed first, so that the alias takes the place of its last failure
+			last.remove(entry.key());
+			last.put(entry.key(), entry);
+		}
+		List<Entry> unresolved = new ArrayList<>();
+		for (Entry entry : last.values()) {
+			if (!entry.status.equals(RESOLVED)) {
+				unresolved.add(entry);
+			}
+		}
+		return unresolved;
+	}
+
+	private void append(List<Entry> entries) {
+		if (entries.isEmpty()) {
+			return;
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+					JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+				for (Entry entry : entries) {
+					entry.write(json);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to journal {} alias writes in {}: {}", entries.size(), file, e.toString());
+		}
+	}
+
+	/**
+	 * @return the entries of the journal, skipping the lines which cannot be
+	 * parsed, such as the last one of a journal interrupted by a crash
+	 */
+	static List<Entry> read(Path journal) {
+		List<Entry> entries = new ArrayList<>();
+		try (BufferedReader in = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				try {
+					entries.add(Entry.parse(line));
+				} catch (IOException | IllegalArgumentException e) {
+					LOGGER.warn("Skipping the unreadable line of {}: {}", journal, e.toString());
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// Nothing journaled
+		} catch (IOException e) {
+			LOGGER.error("Unable to read the journal {}: {}", journal, e.toString());
+		}
+		return entries;
+	}
+
+	static final class Entry {
+		final Instant time;
+		final String status;
+		final Operation operation;
+		final String user;
+		final String alias;
+		final String error;
+
+		Entry(Instant time, String status, Operation operation, String user, String alias, String error) {
+			this.time = time;
+			this.status = status;
+			this.operation = operation;
+			this.user = user;
+			this.alias = alias;
+			this.error = error;
+		}
+
+		String key() {
+			return user + "\n" + alias;
+		}
+
+		void write(JsonGenerator json) throws IOException {
+			json.writeStartObject();
+			json.writeStringField("time", time.toString());
+			json.writeStringField("status", status);
+			json.writeStringField("operation", operation.name());
+			json.writeStringField("user", user);
+			json.writeStringField("alias", alias);
+			if (error != null) {
+				json.writeStringField("error", error);
+			}
+			json.writeEndObject();
+			json.writeRaw('\n');
+		}
+
+		static Entry parse(String line) throws IOException {
+			Map<String, String> fields = new LinkedHashMap<>();
+			try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new IOException("not a JSON object");
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String name = parser.getCurrentName();
+					parser.nextToken();
+					fields.put(name, parser.getValueAsString());
+				}
+				if (parser.currentToken() != JsonToken.END_OBJECT) {
+					throw new IOException("truncated JSON object");
+				}
+			}
+			for (String required : List.of("time", "status", "operation", "user", "alias")) {
+				if (fields.get(required) == null) {
+					throw new IOException("no " + required + " in " + line);
+				}
+			}
+			return new Entry(Instant.parse(fields.get("time")), fields.get("status"),
+					Operation.valueOf(fields.get("operation")), fields.get("user"), fields.get("alias"), fields.get("error"));
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.omitNullValues()
+				.add("time", time)
+				.add("status", status)
+				.add("operation", operation)
+				.add("user", user)
+				.add("alias", alias)
+				.add("error", error)
+				.toString();
+		}
+	}
+
+	/**
+	 * Outcome of a replay.
+	 */
+	public static final class Replay {
+		private final int written;
+		private final int failed;
+
+		Replay(int written, int failed) {
+			this.written = written;
+			this.failed = failed;
+		}
+
+		public int getWritten() {
+			return written;
+		}
+
+		/**
+		 * @return the number of aliases which failed again, and were journaled anew
+		 */
+		public int getFailed() {
+			return failed;
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.add("written", written)
+				.add("failed", failed)
+				.toString();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.journal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.FailureJournalType;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Settings of a {@link FailureJournal}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class FailureJournalSettings {
+
+	public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "lsc-james-journals");
+	public static final boolean DEFAULT_REPLAY = false;
+
+	private final Path directory;
+	private final boolean replay;
+
+	public FailureJournalSettings(Path directory, boolean replay) {
+		this.directory = directory;
+		this.replay = replay;
+	}
+
+	public static FailureJournalSettings from(FailureJournalType configuration) {
+		return new FailureJournalSettings(
+				Optional.ofNullable(configuration.getDirectory())
+					.map(Paths::get)
+					.orElse(DEFAULT_DIRECTORY),
+				Optional.ofNullable(configuration.isReplay()).orElse(DEFAULT_REPLAY));
+	}
+
+	/**
+	 * @return the directory of the journals, one per James server
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return whether the journaled failed writes are applied again when the alias service starts
+	 */
+	public boolean isReplay() {
+		return replay;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("directory", directory)
+			.add("replay", replay)
+			.toString();
+	}
+}
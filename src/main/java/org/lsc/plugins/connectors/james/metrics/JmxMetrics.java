@@ -0,0 +1,95 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the metrics of the plugin on the platform MBean server, under the
+ * {@value #DOMAIN} domain.
+ */
+public final class JmxMetrics {
+
+	public static final String DOMAIN = "org.lsc.plugins.connectors.james";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JmxMetrics.class);
+	private static final AtomicLong IDS = new AtomicLong();
+
+	private JmxMetrics() {
+	}
+
+	/**
+	 * Registers an MXBean for a James webadmin endpoint. As several services may
+	 * target the same endpoint, each registration gets its own id.
+	 *
+	 * @return closing it unregisters the MXBean. A failing registration is only
+	 * logged, as metrics must not prevent the synchronization from running.
+	 */
+	public static Closeable register(String type, String endpoint, Object mxBean) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=" + type
+				+ ",endpoint=" + ObjectName.quote(endpoint)
+				+ ",id=" + IDS.incrementAndGet());
+			server.registerMBean(mxBean, name);
+			return () -> {
+				try {
+					server.unregisterMBean(name);
+				} catch (JMException e) {
+					LOGGER.debug("Unable to unregister " + name, e);
+				}
+			};
+		} catch (JMException e) {
+			LOGGER.warn("Unable to publish the {} metrics of {}: {}", type, endpoint, e.toString());
+			return () -> { };
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.ordering;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Runs the tasks of different keys concurrently and those of the same key
+ * one after the other, in the order they were submitted.
+ *
+ * Each key with tasks waiting or running has a lane, taken by one of a fixed
+ * number of virtual threads at a time. A thread runs at most maxBurst tasks
+ * of a lane in a row while other lanes wait for a thread, then puts it back
+ * at the end of the ready lanes, so that a key with many tasks does not hold
+ * a thread for long. Submitting waits while maxQueuedPerKey tasks of the key
+ * are already waiting.
+ */
+public class KeyOrderedExecutor implements KeyOrderedExecutorMXBean, Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+	private static final Lane STOP = new Lane(null);
+
+	private final KeyOrderingSettings settings;
+	private final BlockingQueue<Lane> ready = new LinkedBlockingQueue<>();
+	/** Lanes of the keys with tasks waiting or running, each one either ready or taken by a thread. */
+	private final Map<String, Lane> lanes = new HashMap<>();
+	private final List<Thread> threads = new ArrayList<>();
+
+	private int queued;
+	private int peakQueued;
+	private int running;
+	private boolean closed;
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder blockedSubmissions = new LongAdder();
+	private final LongAdder yields = new LongAdder();
+
+	public KeyOrderedExecutor(KeyOrderingSettings settings, String name) {
+		this.settings = settings;
+		for (int i = 0; i < settings.getThreads(); i++) {
+			threads.add(Thread.ofVirtual().name(name + "-" + i).start(this::work));
+		}
+	}
+
+	/**
+	 * Queues a task after those already submitted for the key, waiting while
+	 * too many of them are queued.
+	 *
+	 * @throws IllegalStateException when the executor is closed
+	 */
+	public void execute(String key, Runnable task) throws InterruptedException {
+		synchronized (this) {
+			checkOpen();
+			Lane lane = lanes.get(key);
+			if (lane != null && lane.tasks.size() >= settings.getMaxQueuedPerKey()) {
+				blockedSubmissions.increment();
+				do {
+					wait();
+					checkOpen();
+					lane = lanes.get(key);
+				} while (lane != null && lane.tasks.size() >= settings.getMaxQueuedPerKey());
+			}
+			if (lane == null) {
+				lane = new Lane(key);
+				lanes.put(key, lane);
+				ready.add(lane);
+			}
+			lane.tasks.add(task);
+			queued++;
+			peakQueued = Math.max(peakQueued, queued);
+		}
+		submitted.increment();
+	}
+
+	/**
+	 * Queues a task after those already submitted for the key, waiting while
+	 * too many of them are queued.
+	 *
+	 * @return a future completed with the result of the task
+	 * @throws IllegalStateException when the executor is closed
+	 */
+	public <T> CompletableFuture<T> submit(String key, Callable<T> task) throws InterruptedException {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		execute(key, () -> {
+			try {
+				result.complete(task.call());
+			} catch (Exception e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The executor is closed");
+		}
+	}
+
+	private void work() {
+		while (true) {
+			Lane lane;
+			try {
+				lane = ready.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (lane == STOP) {
+				return;
+			}
+			for (int burst = 0; ; burst++) {
+				Runnable task;
+				synchronized (this) {
+					if (lane.tasks.isEmpty()) {
+						lanes.remove(lane.key);
+						notifyAll();
+						break;
+					}
+					if (burst >= settings.getMaxBurst() && !ready.isEmpty()) {
+						// Other keys are waiting for a thread
+						yields.increment();
+						ready.add(lane);
+						break;
+					}
+					task = lane.tasks.poll();
+					queued--;
+					running++;
+					notifyAll();
+				}
+				run(lane.key, task);
+				completed.increment();
+				synchronized (this) {
+					running--;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	private static void run(String key, Runnable task) {
+		try {
+			task.run();
+		} catch (RuntimeException e) {
+			LOGGER.error("Error while running a task of {}: {}", key, e.toString());
+			LOGGER.debug(e.toString(), e);
+		}
+	}
+
+	/**
+	 * Waits for all the tasks submitted so far to be run.
+	 *
+	 * @return false when some are still waiting or running after the timeout
+	 */
+	public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (queued + running > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the tasks which did not start yet.
+	 *
+	 * @return their keys, in the order they would have run for each key
+	 */
+	public synchronized List<String> drain() {
+		List<String> keys = new ArrayList<>();
+		for (Lane lane : lanes.values()) {
+			for (int i = 0; i < lane.tasks.size(); i++) {
+				keys.add(lane.key);
+			}
+			queued -= lane.tasks.size();
+			lane.tasks.clear();
+		}
+		notifyAll();
+		return keys;
+	}
+
+	/**
+	 * Stops the threads once the running tasks are over. The tasks which did
+	 * not start yet are dropped, logging their number.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		List<String> dropped = drain();
+		if (!dropped.isEmpty()) {
+			LOGGER.error("{} tasks were dropped as the executor was closed", dropped.size());
+		}
+		for (int i = 0; i < threads.size(); i++) {
+			ready.add(STOP);
+		}
+	}
+
+	@Override
+	public int getThreads() {
+		return settings.getThreads();
+	}
+
+	@Override
+	public synchronized int getQueued() {
+		return queued;
+	}
+
+	@Override
+	public synchronized int getPeakQueued() {
+		return peakQueued;
+	}
+
+	@Override
+	public synchronized int getRunning() {
+		return running;
+	}
+
+	@Override
+	public synchronized int getActiveKeys() {
+		return lanes.size();
+	}
+
+	@Override
+	public synchronized int getLongestKeyQueue() {
+		int max = 0;
+		for (Lane lane : lanes.values()) {
+			max = Math.max(max, lane.tasks.size());
+		}
+		return max;
+	}
+
+	@Override
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	@Override
+	public long getCompleted() {
+		return completed.sum();
+	}
+
+	@Override
+	public long getBlockedSubmissions() {
+		return blockedSubmissions.sum();
+	}
+
+	@Override
+	public long getYields() {
+		return yields.sum();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("submitted", getSubmitted())
+			.add("completed", getCompleted())
+			.add("queued", getQueued())
+			.add("peakQueued", getPeakQueued())
+			.add("blockedSubmissions", getBlockedSubmissions())
+			.add("yields", getYields())
+			.toString();
+	}
+
+	private static final class Lane {
+		private final String key;
+		private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+		private Lane(String key) {
+			this.key = key;
+		}
+	}
+}
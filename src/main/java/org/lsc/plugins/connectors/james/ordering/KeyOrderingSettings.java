@@ -0,0 +1,110 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.ordering;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.KeyOrderingType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link KeyOrderedExecutor}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class KeyOrderingSettings {
+
+	public static final int DEFAULT_THREADS = 16;
+	public static final int DEFAULT_MAX_QUEUED_PER_KEY = 100;
+	public static final int DEFAULT_MAX_BURST = 16;
+
+	private final int threads;
+	private final int maxQueuedPerKey;
+	private final int maxBurst;
+
+	public KeyOrderingSettings(int threads, int maxQueuedPerKey, int maxBurst) {
+		Preconditions.checkArgument(threads >= 1, "threads must be at least 1, got %s", threads);
+		Preconditions.checkArgument(maxQueuedPerKey >= 1, "maxQueuedPerUser must be at least 1, got %s", maxQueuedPerKey);
+		Preconditions.checkArgument(maxBurst >= 1, "maxBurst must be at least 1, got %s", maxBurst);
+		this.threads = threads;
+		this.maxQueuedPerKey = maxQueuedPerKey;
+		this.maxBurst = maxBurst;
+	}
+
+	public static KeyOrderingSettings from(KeyOrderingType configuration) {
+		return new KeyOrderingSettings(
+				Optional.ofNullable(configuration.getThreads()).orElse(DEFAULT_THREADS),
+				Optional.ofNullable(configuration.getMaxQueuedPerUser()).orElse(DEFAULT_MAX_QUEUED_PER_KEY),
+				Optional.ofNullable(configuration.getMaxBurst()).orElse(DEFAULT_MAX_BURST));
+	}
+
+	/**
+	 * @return the number of keys whose tasks run at the same time
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the number of tasks waiting for the same key above which submitting waits
+	 */
+	public int getMaxQueuedPerKey() {
+		return maxQueuedPerKey;
+	}
+
+	/**
+	 * @return the number of tasks of the same key run in a row before the other keys get their turn
+	 */
+	public int getMaxBurst() {
+		return maxBurst;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("threads", threads)
+			.add("maxQueuedPerKey", maxQueuedPerKey)
+			.add("maxBurst", maxBurst)
+			.toString();
+	}
+}
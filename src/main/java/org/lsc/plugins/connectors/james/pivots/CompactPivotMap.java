@@ -0,0 +1,286 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.pivots;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.lsc.LscDatasets;
+import org.lsc.plugins.connectors.james.beans.User;
+
+/**
+ * Read-only pivot map of a James destination, from the email of each entry
+ * to its datasets, holding only the emails.
+ *
+ * The emails are grouped by domain, which is stored once. The UTF-8 local
+ * parts of each domain are sorted and concatenated into a single array, so
+ * that an entry takes a few bytes more than its local part, instead of the
+ * String, HashMap node and LscDatasets of a HashMap. Lookups are binary
+ * searches, and the datasets are created on each access.
+ */
+public final class CompactPivotMap extends AbstractMap<String, LscDatasets> {
+
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int STRING_BYTES = 24;
+	private static final int LIST_BYTES = 24;
+
+	/** Sorted domain suffixes, "@" included, or "" for the emails without domain. */
+	private final String[] domains;
+	/**
+	 * Index of the first entry of each domain, followed by the number of
+	 * entries: the entries of domain i are domainStarts[i] to
+	 * domainStarts[i + 1] excluded.
+	 */
+	private final int[] domainStarts;
+	private final byte[] localParts;
+	/**
+	 * Offset of each local part in {@link #localParts}, followed by the length
+	 * of the array: local part i spans offsets[i] to offsets[i + 1] excluded.
+	 */
+	private final int[] offsets;
+
+	private CompactPivotMap(String[] domains, int[] domainStarts, byte[] localParts, int[] offsets) {
+		this.domains = domains;
+		this.domainStarts = domainStarts;
+		this.localParts = localParts;
+		this.offsets = offsets;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public int size() {
+		return offsets.length - 1;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && indexOf((String) key) >= 0;
+	}
+
+	@Override
+	public LscDatasets get(Object key) {
+		if (containsKey(key)) {
+			return new User((String) key).toDatasets();
+		}
+		return null;
+	}
+
+	private int indexOf(String email) {
+		int at = email.lastIndexOf('@');
+		int domain = Arrays.binarySearch(domains, at < 0 ? "" : email.substring(at));
+		if (domain < 0) {
+			return -1;
+		}
+		byte[] localPart = (at < 0 ? email : email.substring(0, at)).getBytes(StandardCharsets.UTF_8);
+		int low = domainStarts[domain];
+		int high = domainStarts[domain + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = Arrays.compareUnsigned(localParts, offsets[middle], offsets[middle + 1],
+				localPart, 0, localPart.length);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return an estimate of the heap the map retains, from the size of its
+	 * arrays, with 16 byte headers and compressed references
+	 */
+	public long retainedBytes() {
+		long bytes = arrayBytes(domains.length, 4) + arrayBytes(domainStarts.length, 4)
+			+ arrayBytes(localParts.length, 1) + arrayBytes(offsets.length, 4);
+		for (String domain : domains) {
+			bytes += STRING_BYTES + arrayBytes(domain.length(), 1);
+		}
+		return bytes;
+	}
+
+	static long arrayBytes(long length, int elementSize) {
+		return (ARRAY_HEADER_BYTES + length * elementSize + 7) / 8 * 8;
+	}
+
+	@Override
+	public Set<Entry<String, LscDatasets>> entrySet() {
+		return new AbstractSet<Entry<String, LscDatasets>>() {
+			@Override
+			public int size() {
+				return CompactPivotMap.this.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, LscDatasets>> iterator() {
+				return new EntryIterator();
+			}
+		};
+	}
+
+	private final class EntryIterator implements Iterator<Entry<String, LscDatasets>> {
+		private int domain;
+		private int index;
+
+		@Override
+		public boolean hasNext() {
+			return index < size();
+		}
+
+		@Override
+		public Entry<String, LscDatasets> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			while (index >= domainStarts[domain + 1]) {
+				domain++;
+			}
+			String email = new String(localParts, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8)
+				+ domains[domain];
+			index++;
+			return new SimpleImmutableEntry<>(email, new User(email).toDatasets());
+		}
+	}
+
+	/**
+	 * Collects the emails of a {@link CompactPivotMap}. Duplicates are ignored.
+	 * Not thread-safe.
+	 */
+	public static final class Builder implements Consumer<String> {
+		private final Map<String, List<byte[]>> localPartsByDomain = new HashMap<>();
+
+		private Builder() {
+		}
+
+		@Override
+		public void accept(String email) {
+			add(email);
+		}
+
+		/**
+		 * @return an estimate of the heap the emails added so far retain, on
+		 * the same basis as {@link CompactPivotMap#retainedBytes()}, counting
+		 * the lists at the capacity they may have grown to
+		 */
+		public long retainedBytes() {
+			long bytes = 0;
+			for (Map.Entry<String, List<byte[]>> domain : localPartsByDomain.entrySet()) {
+				bytes += STRING_BYTES + arrayBytes(domain.getKey().length(), 1)
+					+ LIST_BYTES + arrayBytes(grownCapacity(domain.getValue().size()), 4);
+				for (byte[] localPart : domain.getValue()) {
+					bytes += arrayBytes(localPart.length, 1);
+				}
+			}
+			return bytes;
+		}
+
+		/** An ArrayList grows by half its capacity, from 10 elements. */
+		private static long grownCapacity(int size) {
+			return Math.max(10, size + (size >> 1));
+		}
+
+		public Builder add(String email) {
+			int at = email.lastIndexOf('@');
+			localPartsByDomain.computeIfAbsent(at < 0 ? "" : email.substring(at), domain -> new ArrayList<>())
+				.add((at < 0 ? email : email.substring(0, at)).getBytes(StandardCharsets.UTF_8));
+			return this;
+		}
+
+		public CompactPivotMap build() {
+			String[] domains = localPartsByDomain.keySet().toArray(new String[0]);
+			Arrays.sort(domains);
+			long totalLength = 0;
+			int count = 0;
+			for (String domain : domains) {
+				List<byte[]> localParts = localPartsByDomain.get(domain);
+				localParts.sort(Arrays::compareUnsigned);
+				byte[] previous = null;
+				for (byte[] localPart : localParts) {
+					if (previous == null || !Arrays.equals(previous, localPart)) {
+						totalLength += localPart.length;
+						count++;
+					}
+					previous = localPart;
+				}
+			}
+
+			int[] domainStarts = new int[domains.length + 1];
+			byte[] localParts = new byte[Math.toIntExact(totalLength)];
+			int[] offsets = new int[count + 1];
+			int index = 0;
+			int offset = 0;
+			for (int domain = 0; domain < domains.length; domain++) {
+				domainStarts[domain] = index;
+				byte[] previous = null;
+				// Released domain by domain, so that the lists of the domains already copied can be
+				// collected: the largest domain is still held twice while it is copied
+				for (byte[] localPart : localPartsByDomain.remove(domains[domain])) {
+					if (previous == null || !Arrays.equals(previous, localPart)) {
+						offsets[index++] = offset;
+						System.arraycopy(localPart, 0, localParts, offset, localPart.length);
+						offset += localPart.length;
+					}
+					previous = localPart;
+				}
+			}
+			domainStarts[domains.length] = index;
+			offsets[index] = offset;
+			return new CompactPivotMap(domains, domainStarts, localParts, offsets);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of requests in flight to James, adjusting the limit with
+ * an additive increase / multiplicative decrease (AIMD) algorithm.
+ *
+ * Each response which is neither slower than the latency threshold nor an
+ * overload signal increases the limit by one, as long as the limit was
+ * actually used: at least half of the permits were taken when the request was
+ * sent. An overload signal multiplies it by the backoff ratio, once per round
+ * trip: the signals of the requests sent before the last decrease are ignored,
+ * so that a burst of concurrent failures only decreases it once. Requests
+ * above the limit wait, in order, for a permit to be released.
+ */
+public class AdaptiveConcurrencyLimiter implements AdaptiveConcurrencyLimiterMXBean {
+
+	public enum Outcome {
+		/** The request completed in time. */
+		SUCCESS,
+		/** James is overloaded: error or throttling status, connection failure or timeout. */
+		OVERLOAD,
+		/** The response tells nothing about the load of James. */
+		IGNORED
+	}
+
+	private final ConcurrencyLimitSettings settings;
+	private final long latencyThresholdNanos;
+	private final LongSupplier nanoClock;
+
+	private final Deque<Waiter> waiters = new ArrayDeque<>();
+	private double limit;
+	private int inFlight;
+	/** Incremented by each decrease of the limit. */
+	private long decreases;
+
+	private final AtomicLong queuedRequests = new AtomicLong();
+	private final AtomicLong overloadSignals = new AtomicLong();
+	private final AtomicLong totalQueueingNanos = new AtomicLong();
+	private final AtomicLong maxQueueingNanos = new AtomicLong();
+
+	public AdaptiveConcurrencyLimiter(ConcurrencyLimitSettings settings) {
+		this(settings, System::nanoTime);
+	}
+
+	AdaptiveConcurrencyLimiter(ConcurrencyLimitSettings settings, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.getLatencyThreshold());
+		this.nanoClock = nanoClock;
+		this.limit = settings.getInitialLimit();
+	}
+
+	/**
+	 * @return a future completed with a permit once the request may be sent. The
+	 * permit must be released with the outcome of the request.
+	 */
+	public CompletableFuture<Permit> acquire() {
+		Waiter waiter;
+		synchronized (this) {
+			if (waiters.isEmpty() && inFlight < (int) limit) {
+				inFlight++;
+				return CompletableFuture.completedFuture(new Permit(inFlight, decreases));
+			}
+			waiter = new Waiter(nanoClock.getAsLong());
+			waiters.add(waiter);
+		}
+		queuedRequests.incrementAndGet();
+		return waiter.future;
+	}
+
+	private void release(Permit permit, Outcome outcome, long latencyNanos) {
+		List<Waiter> granted = new ArrayList<>();
+		List<Permit> permits = new ArrayList<>();
+		synchronized (this) {
+			inFlight--;
+			if (outcome == Outcome.OVERLOAD || (outcome == Outcome.SUCCESS && latencyNanos > latencyThresholdNanos)) {
+				overloadSignals.incrementAndGet();
+				if (permit.decreasesWhenAcquired == decreases) {
+					limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+					decreases++;
+				}
+			} else if (outcome == Outcome.SUCCESS && permit.inFlightWhenAcquired * 2 >= limit) {
+				limit = Math.min(settings.getMaxLimit(), limit + 1);
+			}
+			while (!waiters.isEmpty() && inFlight < (int) limit) {
+				inFlight++;
+				granted.add(waiters.poll());
+				permits.add(new Permit(inFlight, decreases));
+			}
+		}
+		long now = nanoClock.getAsLong();
+		for (int i = 0; i < granted.size(); i++) {
+			Waiter waiter = granted.get(i);
+			recordQueueingDelay(now - waiter.enqueuedAt);
+			if (!waiter.future.complete(permits.get(i))) {
+				// The caller gave up while waiting
+				permits.get(i).release(Outcome.IGNORED);
+			}
+		}
+	}
+
+	private void recordQueueingDelay(long nanos) {
+		totalQueueingNanos.addAndGet(nanos);
+		maxQueueingNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	@Override
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	@Override
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	@Override
+	public synchronized int getQueueLength() {
+		return waiters.size();
+	}
+
+	@Override
+	public long getQueuedRequests() {
+		return queuedRequests.get();
+	}
+
+	@Override
+	public long getOverloadSignals() {
+		return overloadSignals.get();
+	}
+
+	/**
+	 * @return the average time spent waiting for a permit by the requests which had to wait
+	 */
+	@Override
+	public double getAverageQueueingDelayMillis() {
+		long queued = queuedRequests.get();
+		return queued == 0 ? 0 : toMillis(totalQueueingNanos.get()) / queued;
+	}
+
+	@Override
+	public double getMaxQueueingDelayMillis() {
+		return toMillis(maxQueueingNanos.get());
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Allows one request to be in flight, until released.
+	 */
+	public final class Permit {
+		private final int inFlightWhenAcquired;
+		private final long decreasesWhenAcquired;
+		private final long acquiredAt = nanoClock.getAsLong();
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(int inFlightWhenAcquired, long decreasesWhenAcquired) {
+			this.inFlightWhenAcquired = inFlightWhenAcquired;
+			this.decreasesWhenAcquired = decreasesWhenAcquired;
+		}
+
+		/**
+		 * Releases the permit, only the first call has an effect.
+		 */
+		public void release(Outcome outcome) {
+			if (released.compareAndSet(false, true)) {
+				AdaptiveConcurrencyLimiter.this.release(this, outcome, nanoClock.getAsLong() - acquiredAt);
+			}
+		}
+	}
+
+	private static final class Waiter {
+		private final CompletableFuture<Permit> future = new CompletableFuture<>();
+		private final long enqueuedAt;
+
+		private Waiter(long enqueuedAt) {
+			this.enqueuedAt = enqueuedAt;
+		}
+	}
+}
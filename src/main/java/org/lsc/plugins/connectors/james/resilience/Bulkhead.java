@@ -0,0 +1,253 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Isolates one lane of the James traffic, such as the reads or the writes:
+ * at most maxConcurrent requests of the lane are in flight, the following
+ * ones wait, in order, for a slot, and those beyond maxQueued waiting fail at
+ * once with a {@link BulkheadFullException}. A request without response after
+ * the timeout fails with a {@link ProcessingException}, as a connection
+ * timeout would, and releases its slot: the client of the lane, given the
+ * timeout as response timeout, gives up on the connection at the same time,
+ * so that the requests of a stalled lane do not pile up on James.
+ */
+public class Bulkhead implements BulkheadMXBean {
+
+	private final BulkheadSettings settings;
+	private final String lane;
+	private final LongSupplier nanoClock;
+	private final long createdAt;
+
+	private final Deque<Waiter> waiters = new ArrayDeque<>();
+	private int inFlight;
+	private int peakInFlight;
+	/** Sum over time of the requests in flight, in nanoseconds, up to lastChange. */
+	private long busyNanos;
+	private long lastChange;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong queuedRequests = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong rejectedRequests = new AtomicLong();
+	private final AtomicLong totalQueueingNanos = new AtomicLong();
+
+	public Bulkhead(BulkheadSettings settings, String lane) {
+		this(settings, lane, System::nanoTime);
+	}
+
+	Bulkhead(BulkheadSettings settings, String lane, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.lane = lane;
+		this.nanoClock = nanoClock;
+		this.createdAt = nanoClock.getAsLong();
+		this.lastChange = createdAt;
+	}
+
+	/**
+	 * Sends a request through the given call once a slot of the lane is free.
+	 */
+	public CompletableFuture<Response> execute(Supplier<CompletableFuture<Response>> call) {
+		requests.incrementAndGet();
+		Waiter waiter = null;
+		synchronized (this) {
+			if (waiters.isEmpty() && inFlight < settings.getMaxConcurrent()) {
+				take(nanoClock.getAsLong());
+			} else if (waiters.size() >= settings.getMaxQueued()) {
+				rejectedRequests.incrementAndGet();
+				return CompletableFuture.failedFuture(new BulkheadFullException(String.format(
+					"%d %s requests to James are already waiting for a slot", waiters.size(), lane)));
+			} else {
+				waiter = new Waiter(nanoClock.getAsLong());
+				waiters.add(waiter);
+			}
+		}
+		if (waiter == null) {
+			return send(call);
+		}
+		queuedRequests.incrementAndGet();
+		return waiter.slot.thenCompose(any -> send(call));
+	}
+
+	private CompletableFuture<Response> send(Supplier<CompletableFuture<Response>> call) {
+		CompletableFuture<Response> response;
+		try {
+			response = call.get();
+		} catch (RuntimeException e) {
+			response = CompletableFuture.failedFuture(e);
+		}
+		// Released by the response or by the timeout, whichever comes first
+		AtomicBoolean released = new AtomicBoolean();
+		response.whenComplete((value, failure) -> release(released));
+		CompletableFuture<Response> sent = response;
+		return response.copy()
+			.orTimeout(settings.getTimeout(), TimeUnit.MILLISECONDS)
+			.exceptionallyCompose(failure -> {
+				if (!(failure instanceof TimeoutException)) {
+					return CompletableFuture.failedFuture(failure);
+				}
+				timeouts.incrementAndGet();
+				release(released);
+				// Nobody reads the response arriving late
+				sent.thenAccept(Response::close);
+				return CompletableFuture.failedFuture(new ProcessingException(String.format(
+					"No response of James to a %s request within %d ms", lane, settings.getTimeout()), failure));
+			});
+	}
+
+	private void take(long now) {
+		account(now);
+		inFlight++;
+		peakInFlight = Math.max(peakInFlight, inFlight);
+	}
+
+	private void release(AtomicBoolean released) {
+		if (!released.compareAndSet(false, true)) {
+			return;
+		}
+		Waiter next;
+		long now = nanoClock.getAsLong();
+		synchronized (this) {
+			account(now);
+			inFlight--;
+			next = waiters.poll();
+			if (next != null) {
+				take(now);
+			}
+		}
+		if (next != null) {
+			totalQueueingNanos.addAndGet(now - next.enqueuedAt);
+			next.slot.complete(null);
+		}
+	}
+
+	private void account(long now) {
+		busyNanos += inFlight * (now - lastChange);
+		lastChange = now;
+	}
+
+	@Override
+	public int getMaxConcurrent() {
+		return settings.getMaxConcurrent();
+	}
+
+	@Override
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	@Override
+	public synchronized int getPeakInFlight() {
+		return peakInFlight;
+	}
+
+	@Override
+	public synchronized int getQueueLength() {
+		return waiters.size();
+	}
+
+	@Override
+	public synchronized double getUtilization() {
+		return inFlight / (double) settings.getMaxConcurrent();
+	}
+
+	@Override
+	public synchronized double getAverageUtilization() {
+		long now = nanoClock.getAsLong();
+		if (now == createdAt) {
+			return 0;
+		}
+		account(now);
+		return busyNanos / ((double) (now - createdAt) * settings.getMaxConcurrent());
+	}
+
+	@Override
+	public long getRequests() {
+		return requests.get();
+	}
+
+	@Override
+	public long getQueuedRequests() {
+		return queuedRequests.get();
+	}
+
+	@Override
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	@Override
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+
+	/**
+	 * @return the average time spent waiting for a slot by the requests which had to wait
+	 */
+	@Override
+	public double getAverageQueueingDelayMillis() {
+		long queued = queuedRequests.get();
+		return queued == 0 ? 0 : totalQueueingNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1) / queued;
+	}
+
+	private static final class Waiter {
+		private final CompletableFuture<Void> slot = new CompletableFuture<>();
+		private final long enqueuedAt;
+
+		private Waiter(long enqueuedAt) {
+			this.enqueuedAt = enqueuedAt;
+		}
+	}
+}
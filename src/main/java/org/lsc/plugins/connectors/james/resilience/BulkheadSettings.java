@@ -0,0 +1,123 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.BulkheadType;
+import org.lsc.plugins.connectors.james.http.ConnectionPoolSettings;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link Bulkhead}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class BulkheadSettings {
+
+	public static final int DEFAULT_MAX_CONCURRENT = 20;
+	public static final long DEFAULT_TIMEOUT = 30000;
+	public static final int DEFAULT_MAX_QUEUED = 1000;
+
+	private final ConnectionPoolSettings connectionPool;
+	private final int maxConcurrent;
+	private final long timeout;
+	private final int maxQueued;
+
+	public BulkheadSettings(ConnectionPoolSettings connectionPool, int maxConcurrent, long timeout, int maxQueued) {
+		Preconditions.checkArgument(maxConcurrent >= 1, "maxConcurrent must be at least 1, got %s", maxConcurrent);
+		Preconditions.checkArgument(timeout > 0, "timeout must be positive, got %s", timeout);
+		Preconditions.checkArgument(timeout <= Integer.MAX_VALUE, "timeout must be at most %s, got %s", Integer.MAX_VALUE, timeout);
+		Preconditions.checkArgument(maxQueued >= 0, "maxQueued must not be negative, got %s", maxQueued);
+		this.connectionPool = connectionPool;
+		this.maxConcurrent = maxConcurrent;
+		this.timeout = timeout;
+		this.maxQueued = maxQueued;
+	}
+
+	/**
+	 * @param servicePool the connection pool of the lane when it does not configure its own
+	 */
+	public static BulkheadSettings from(BulkheadType configuration, ConnectionPoolSettings servicePool) {
+		if (configuration == null) {
+			return new BulkheadSettings(servicePool, DEFAULT_MAX_CONCURRENT, DEFAULT_TIMEOUT, DEFAULT_MAX_QUEUED);
+		}
+		return new BulkheadSettings(
+				configuration.getConnectionPool() == null ? servicePool : ConnectionPoolSettings.from(configuration.getConnectionPool()),
+				Optional.ofNullable(configuration.getMaxConcurrent()).orElse(DEFAULT_MAX_CONCURRENT),
+				Optional.ofNullable(configuration.getTimeout()).orElse(DEFAULT_TIMEOUT),
+				Optional.ofNullable(configuration.getMaxQueued()).orElse(DEFAULT_MAX_QUEUED));
+	}
+
+	public ConnectionPoolSettings getConnectionPool() {
+		return connectionPool;
+	}
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * @return the time after which a request fails, waiting for a slot of the lane excluded, in milliseconds
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @return the number of requests waiting for a slot above which the following ones fail at once
+	 */
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("connectionPool", connectionPool)
+			.add("maxConcurrent", maxConcurrent)
+			.add("timeout", timeout)
+			.add("maxQueued", maxQueued)
+			.toString();
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fails the webadmin calls fast while James looks unavailable.
+ *
+ * The outcomes of the last calls are kept in a window. A call fails when James
+ * can not be reached, times out, or answers with a 429 or 5xx status; it is slow
+ * when it lasts longer than the slow call threshold. A call rejected by a full
+ * bulkhead never reached James, and is not recorded. When the window holds
+ * enough calls and either rate reaches its threshold, the circuit opens: calls
+ * fail with a {@link CircuitBreakerOpenException} without reaching James. After
+ * the open duration the circuit is half open: a few probe calls are let through,
+ * and their outcome decides whether the circuit closes again or reopens.
+ */
+public class CircuitBreaker implements CircuitBreakerMXBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final CircuitBreakerSettings settings;
+	private final String name;
+	private final long slowCallThresholdNanos;
+	private final LongSupplier nanoClock;
+
+	private State state = State.CLOSED;
+	/** Incremented on each transition, so that calls started in a previous state are not recorded. */
+	private long epoch;
+	private long openedAt;
+	private final boolean[] failedCalls;
+	private final boolean[] slowCalls;
+	private int recordedCalls;
+	private int nextCall;
+	private int startedProbes;
+
+	private final AtomicLong rejectedCalls = new AtomicLong();
+	private final AtomicLong openings = new AtomicLong();
+
+	public CircuitBreaker(CircuitBreakerSettings settings, String name) {
+		this(settings, name, System::nanoTime);
+	}
+
+	CircuitBreaker(CircuitBreakerSettings settings, String name, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.name = name;
+		this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallThreshold());
+		this.nanoClock = nanoClock;
+		this.failedCalls = new boolean[settings.getWindowSize()];
+		this.slowCalls = new boolean[settings.getWindowSize()];
+	}
+
+	/**
+	 * Sends a request through the given call, unless the circuit is open.
+	 */
+	public CompletableFuture<Response> execute(Supplier<CompletableFuture<Response>> call) {
+		long callEpoch;
+		synchronized (this) {
+			callEpoch = permitCall();
+		}
+		if (callEpoch < 0) {
+			rejectedCalls.incrementAndGet();
+			return CompletableFuture.failedFuture(new CircuitBreakerOpenException(
+					String.format("The circuit breaker of %s is open, failing fast", name)));
+		}
+		long start = nanoClock.getAsLong();
+		CompletableFuture<Response> response;
+		try {
+			response = call.get();
+		} catch (RuntimeException e) {
+			response = CompletableFuture.failedFuture(e);
+		}
+		return response.whenComplete((value, failure) -> {
+			if (isRejectedByBulkhead(failure)) {
+				forget(callEpoch);
+			} else {
+				record(callEpoch, isFailure(value, failure), nanoClock.getAsLong() - start > slowCallThresholdNanos);
+			}
+		});
+	}
+
+	/**
+	 * @return the epoch of the permitted call, or -1 if the call must fail fast
+	 */
+	private long permitCall() {
+		if (state == State.OPEN) {
+			if (nanoClock.getAsLong() - openedAt < TimeUnit.MILLISECONDS.toNanos(settings.getOpenDuration())) {
+				return -1;
+			}
+			transitionTo(State.HALF_OPEN);
+		}
+		if (state == State.HALF_OPEN) {
+			if (startedProbes >= settings.getHalfOpenProbes()) {
+				return -1;
+			}
+			startedProbes++;
+		}
+		return epoch;
+	}
+
+	/**
+	 * Gives back the probe of a call which never reached James.
+	 */
+	private synchronized void forget(long callEpoch) {
+		if (callEpoch == epoch && state == State.HALF_OPEN) {
+			startedProbes--;
+		}
+	}
+
+	private synchronized void record(long callEpoch, boolean failed, boolean slow) {
+		if (callEpoch != epoch) {
+			return;
+		}
+		failedCalls[nextCall] = failed;
+		slowCalls[nextCall] = slow;
+		nextCall = (nextCall + 1) % failedCalls.length;
+		recordedCalls = Math.min(recordedCalls + 1, failedCalls.length);
+
+		int minimumCalls = state == State.HALF_OPEN
+			? Math.min(settings.getHalfOpenProbes(), failedCalls.length)
+			: settings.getMinimumCalls();
+		if (recordedCalls < minimumCalls) {
+			return;
+		}
+		if (failureRate() >= settings.getFailureRateThreshold() || slowCallRate() >= settings.getSlowCallRateThreshold()) {
+			transitionTo(State.OPEN);
+		} else if (state == State.HALF_OPEN) {
+			transitionTo(State.CLOSED);
+		}
+	}
+
+	private void transitionTo(State newState) {
+		LOGGER.info("The circuit breaker of {} goes from {} to {} ({}% failed calls, {}% slow calls)",
+				name, state, newState, failureRate(), slowCallRate());
+		state = newState;
+		epoch++;
+		recordedCalls = 0;
+		nextCall = 0;
+		startedProbes = 0;
+		if (newState == State.OPEN) {
+			openedAt = nanoClock.getAsLong();
+			openings.incrementAndGet();
+		}
+	}
+
+	private double failureRate() {
+		return rate(failedCalls);
+	}
+
+	private double slowCallRate() {
+		return rate(slowCalls);
+	}
+
+	private double rate(boolean[] calls) {
+		if (recordedCalls == 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int i = 0; i < recordedCalls; i++) {
+			if (calls[i]) {
+				count++;
+			}
+		}
+		return count * 100.0 / recordedCalls;
+	}
+
+	private static boolean isRejectedByBulkhead(Throwable failure) {
+		return failure != null
+			&& (failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure) instanceof BulkheadFullException;
+	}
+
+	private static boolean isFailure(Response response, Throwable failure) {
+		if (failure != null) {
+			Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+			return cause instanceof ProcessingException;
+		}
+		return response.getStatus() == Status.TOO_MANY_REQUESTS.getStatusCode()
+			|| Status.Family.familyOf(response.getStatus()) == Status.Family.SERVER_ERROR;
+	}
+
+	public synchronized State currentState() {
+		if (state == State.OPEN
+				&& nanoClock.getAsLong() - openedAt >= TimeUnit.MILLISECONDS.toNanos(settings.getOpenDuration())) {
+			return State.HALF_OPEN;
+		}
+		return state;
+	}
+
+	@Override
+	public String getState() {
+		return currentState().name();
+	}
+
+	@Override
+	public synchronized double getFailureRate() {
+		return recordedCalls < settings.getMinimumCalls() ? -1 : failureRate();
+	}
+
+	@Override
+	public synchronized double getSlowCallRate() {
+		return recordedCalls < settings.getMinimumCalls() ? -1 : slowCallRate();
+	}
+
+	@Override
+	public long getRejectedCalls() {
+		return rejectedCalls.get();
+	}
+
+	@Override
+	public long getOpenings() {
+		return openings.get();
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.CircuitBreakerType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link CircuitBreaker}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class CircuitBreakerSettings {
+
+	public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+	public static final long DEFAULT_SLOW_CALL_THRESHOLD = 5000;
+	public static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MINIMUM_CALLS = 10;
+	public static final long DEFAULT_OPEN_DURATION = 10000;
+	public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+	public static final CircuitBreakerSettings DEFAULT = new CircuitBreakerSettings(DEFAULT_FAILURE_RATE_THRESHOLD,
+			DEFAULT_SLOW_CALL_THRESHOLD, DEFAULT_SLOW_CALL_RATE_THRESHOLD, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS,
+			DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_PROBES);
+
+	private final int failureRateThreshold;
+	private final long slowCallThreshold;
+	private final int slowCallRateThreshold;
+	private final int windowSize;
+	private final int minimumCalls;
+	private final long openDuration;
+	private final int halfOpenProbes;
+
+	public CircuitBreakerSettings(int failureRateThreshold, long slowCallThreshold, int slowCallRateThreshold,
+			int windowSize, int minimumCalls, long openDuration, int halfOpenProbes) {
+		Preconditions.checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 100,
+				"failureRateThreshold must be a percentage, got %s", failureRateThreshold);
+		Preconditions.checkArgument(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100,
+				"slowCallRateThreshold must be a percentage, got %s", slowCallRateThreshold);
+		Preconditions.checkArgument(windowSize >= 1, "windowSize must be at least 1, got %s", windowSize);
+		Preconditions.checkArgument(minimumCalls >= 1 && minimumCalls <= windowSize,
+				"minimumCalls %s must be between 1 and windowSize %s", minimumCalls, windowSize);
+		Preconditions.checkArgument(halfOpenProbes >= 1, "halfOpenProbes must be at least 1, got %s", halfOpenProbes);
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallThreshold = slowCallThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.windowSize = windowSize;
+		this.minimumCalls = minimumCalls;
+		this.openDuration = openDuration;
+		this.halfOpenProbes = halfOpenProbes;
+	}
+
+	public static CircuitBreakerSettings from(CircuitBreakerType configuration) {
+		if (configuration == null) {
+			return DEFAULT;
+		}
+		return new CircuitBreakerSettings(
+				Optional.ofNullable(configuration.getFailureRateThreshold()).orElse(DEFAULT_FAILURE_RATE_THRESHOLD),
+				Optional.ofNullable(configuration.getSlowCallThreshold()).orElse(DEFAULT_SLOW_CALL_THRESHOLD),
+				Optional.ofNullable(configuration.getSlowCallRateThreshold()).orElse(DEFAULT_SLOW_CALL_RATE_THRESHOLD),
+				Optional.ofNullable(configuration.getWindowSize()).orElse(DEFAULT_WINDOW_SIZE),
+				Optional.ofNullable(configuration.getMinimumCalls()).orElse(DEFAULT_MINIMUM_CALLS),
+				Optional.ofNullable(configuration.getOpenDuration()).orElse(DEFAULT_OPEN_DURATION),
+				Optional.ofNullable(configuration.getHalfOpenProbes()).orElse(DEFAULT_HALF_OPEN_PROBES));
+	}
+
+	/**
+	 * @return the percentage of failed calls which opens the circuit
+	 */
+	public int getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	/**
+	 * @return the duration above which a call is slow, in milliseconds
+	 */
+	public long getSlowCallThreshold() {
+		return slowCallThreshold;
+	}
+
+	/**
+	 * @return the percentage of slow calls which opens the circuit
+	 */
+	public int getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	/**
+	 * @return the delay during which calls fail fast, in milliseconds
+	 */
+	public long getOpenDuration() {
+		return openDuration;
+	}
+
+	public int getHalfOpenProbes() {
+		return halfOpenProbes;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("failureRateThreshold", failureRateThreshold)
+			.add("slowCallThreshold", slowCallThreshold)
+			.add("slowCallRateThreshold", slowCallRateThreshold)
+			.add("windowSize", windowSize)
+			.add("minimumCalls", minimumCalls)
+			.add("openDuration", openDuration)
+			.add("halfOpenProbes", halfOpenProbes)
+			.toString();
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.ConcurrencyLimitType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of an {@link AdaptiveConcurrencyLimiter}, with the defaults
+ * of lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class ConcurrencyLimitSettings {
+
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+	public static final int DEFAULT_MIN_LIMIT = 1;
+	public static final int DEFAULT_MAX_LIMIT = 200;
+	public static final long DEFAULT_LATENCY_THRESHOLD = 2000;
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	public static final ConcurrencyLimitSettings DEFAULT = new ConcurrencyLimitSettings(DEFAULT_INITIAL_LIMIT,
+			DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_LATENCY_THRESHOLD, DEFAULT_BACKOFF_RATIO);
+
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyThreshold;
+	private final double backoffRatio;
+
+	public ConcurrencyLimitSettings(int initialLimit, int minLimit, int maxLimit, long latencyThreshold, double backoffRatio) {
+		Preconditions.checkArgument(minLimit >= 1, "minLimit must be at least 1, got %s", minLimit);
+		Preconditions.checkArgument(minLimit <= maxLimit, "minLimit %s is greater than maxLimit %s", minLimit, maxLimit);
+		Preconditions.checkArgument(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1, got %s", backoffRatio);
+		this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThreshold = latencyThreshold;
+		this.backoffRatio = backoffRatio;
+	}
+
+	public static ConcurrencyLimitSettings from(ConcurrencyLimitType configuration) {
+		if (configuration == null) {
+			return DEFAULT;
+		}
+		return new ConcurrencyLimitSettings(
+				Optional.ofNullable(configuration.getInitialLimit()).orElse(DEFAULT_INITIAL_LIMIT),
+				Optional.ofNullable(configuration.getMinLimit()).orElse(DEFAULT_MIN_LIMIT),
+				Optional.ofNullable(configuration.getMaxLimit()).orElse(DEFAULT_MAX_LIMIT),
+				Optional.ofNullable(configuration.getLatencyThreshold()).orElse(DEFAULT_LATENCY_THRESHOLD),
+				Optional.ofNullable(configuration.getBackoffRatio()).orElse(DEFAULT_BACKOFF_RATIO));
+	}
+
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	/**
+	 * @return the latency above which a response is an overload signal, in milliseconds
+	 */
+	public long getLatencyThreshold() {
+		return latencyThreshold;
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("initialLimit", initialLimit)
+			.add("minLimit", minLimit)
+			.add("maxLimit", maxLimit)
+			.add("latencyThreshold", latencyThreshold)
+			.add("backoffRatio", backoffRatio)
+			.toString();
+	}
+}
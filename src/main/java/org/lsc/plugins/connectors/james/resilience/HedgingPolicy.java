@@ -0,0 +1,250 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Hedges idempotent reads: when a read lasts longer than the configured
+ * percentile of the recent read latencies, a second request is sent, and the
+ * first acceptable response, i.e. neither a failure nor a 429 or 5xx status,
+ * is used. The other response is closed when it arrives.
+ *
+ * The share of hedged reads is bounded by the hedge ratio, so that hedging
+ * does not double the load of an already slow James.
+ */
+public class HedgingPolicy implements HedgingPolicyMXBean {
+
+	private final HedgingSettings settings;
+	private final LongSupplier nanoClock;
+
+	private final long[] latencies;
+	private int nextLatency;
+	private int sampledLatencies;
+	private int latenciesSinceUpdate;
+	private long hedgeDelayNanos = -1;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicLong hedgeWins = new AtomicLong();
+	private final AtomicLong skippedHedges = new AtomicLong();
+
+	public HedgingPolicy(HedgingSettings settings) {
+		this(settings, System::nanoTime);
+	}
+
+	HedgingPolicy(HedgingSettings settings, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.nanoClock = nanoClock;
+		this.latencies = new long[settings.getSampleSize()];
+	}
+
+	/**
+	 * Sends a read through the primary call, and through the hedge call too if
+	 * the primary one is slow.
+	 */
+	public CompletableFuture<Response> execute(Supplier<CompletableFuture<Response>> primary, Supplier<CompletableFuture<Response>> hedge) {
+		requests.incrementAndGet();
+		HedgedRead read = new HedgedRead();
+		read.send(primary, false);
+		long delay = currentHedgeDelayNanos();
+		if (delay >= 0) {
+			CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+				if (read.result.isDone()) {
+					return;
+				}
+				if (hedges.get() + 1 > settings.getMaxHedgeRatio() * requests.get()) {
+					skippedHedges.incrementAndGet();
+					return;
+				}
+				if (read.startHedge()) {
+					hedges.incrementAndGet();
+					read.send(hedge, true);
+				}
+			});
+		}
+		return read.result;
+	}
+
+	@VisibleForTesting
+	synchronized void recordLatency(long nanos) {
+		latencies[nextLatency] = nanos;
+		nextLatency = (nextLatency + 1) % latencies.length;
+		sampledLatencies = Math.min(sampledLatencies + 1, latencies.length);
+		latenciesSinceUpdate++;
+		// Sorting the samples on each read would cost more than it saves
+		if (sampledLatencies >= settings.getMinSamples()
+				&& (hedgeDelayNanos < 0 || latenciesSinceUpdate >= Math.max(1, latencies.length / 10))) {
+			long[] sorted = Arrays.copyOf(latencies, sampledLatencies);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(settings.getPercentile() / 100 * sorted.length) - 1;
+			hedgeDelayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(settings.getMinDelay()), sorted[Math.max(0, index)]);
+			latenciesSinceUpdate = 0;
+		}
+	}
+
+	private synchronized long currentHedgeDelayNanos() {
+		return hedgeDelayNanos;
+	}
+
+	private static boolean isAcceptable(Response response, Throwable failure) {
+		return failure == null
+			&& response.getStatus() != Status.TOO_MANY_REQUESTS.getStatusCode()
+			&& Status.Family.familyOf(response.getStatus()) != Status.Family.SERVER_ERROR;
+	}
+
+	@Override
+	public synchronized double getHedgeDelayMillis() {
+		return hedgeDelayNanos < 0 ? -1 : hedgeDelayNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public long getRequests() {
+		return requests.get();
+	}
+
+	@Override
+	public long getHedges() {
+		return hedges.get();
+	}
+
+	@Override
+	public long getHedgeWins() {
+		return hedgeWins.get();
+	}
+
+	@Override
+	public long getSkippedHedges() {
+		return skippedHedges.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d reads, %d hedged after %.1f ms, %d answered first by the hedge, %d hedges skipped",
+				getRequests(), getHedges(), getHedgeDelayMillis(), getHedgeWins(), getSkippedHedges());
+	}
+
+	/**
+	 * The legs of one read, completing its result with the first acceptable
+	 * response, or with the first outcome once no leg is pending.
+	 */
+	private final class HedgedRead {
+		private final CompletableFuture<Response> result = new CompletableFuture<>();
+		private int pendingLegs;
+		private Response fallbackResponse;
+		private Throwable fallbackFailure;
+		private boolean hasFallback;
+
+		void send(Supplier<CompletableFuture<Response>> call, boolean isHedge) {
+			if (!isHedge) {
+				synchronized (this) {
+					pendingLegs++;
+				}
+			}
+			long start = nanoClock.getAsLong();
+			CompletableFuture<Response> response;
+			try {
+				response = call.get();
+			} catch (RuntimeException e) {
+				response = CompletableFuture.failedFuture(e);
+			}
+			response.whenComplete((value, failure) -> {
+				if (failure == null) {
+					recordLatency(nanoClock.getAsLong() - start);
+				}
+				offer(value, failure, isHedge);
+			});
+		}
+
+		synchronized boolean startHedge() {
+			if (result.isDone()) {
+				return false;
+			}
+			pendingLegs++;
+			return true;
+		}
+
+		private void offer(Response response, Throwable failure, boolean isHedge) {
+			Response toClose = null;
+			synchronized (this) {
+				pendingLegs--;
+				if (result.isDone()) {
+					toClose = response;
+				} else if (isAcceptable(response, failure)) {
+					if (isHedge) {
+						hedgeWins.incrementAndGet();
+					}
+					toClose = fallbackResponse;
+					result.complete(response);
+				} else {
+					if (!hasFallback) {
+						hasFallback = true;
+						fallbackResponse = response;
+						fallbackFailure = failure;
+					} else {
+						toClose = response;
+					}
+					if (pendingLegs == 0) {
+						if (fallbackFailure != null) {
+							result.completeExceptionally(fallbackFailure);
+						} else {
+							result.complete(fallbackResponse);
+						}
+					}
+				}
+			}
+			if (toClose != null) {
+				toClose.close();
+			}
+		}
+	}
+}
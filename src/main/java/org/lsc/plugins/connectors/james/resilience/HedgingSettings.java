@@ -0,0 +1,141 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.HedgingType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link HedgingPolicy}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class HedgingSettings {
+
+	public static final double DEFAULT_PERCENTILE = 95;
+	public static final long DEFAULT_MIN_DELAY = 5;
+	public static final int DEFAULT_SAMPLE_SIZE = 1000;
+	public static final int DEFAULT_MIN_SAMPLES = 100;
+	public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+	public static final HedgingSettings DEFAULT = new HedgingSettings(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY,
+			DEFAULT_SAMPLE_SIZE, DEFAULT_MIN_SAMPLES, DEFAULT_MAX_HEDGE_RATIO, null);
+
+	private final double percentile;
+	private final long minDelay;
+	private final int sampleSize;
+	private final int minSamples;
+	private final double maxHedgeRatio;
+	private final String endpoint;
+
+	public HedgingSettings(double percentile, long minDelay, int sampleSize, int minSamples, double maxHedgeRatio, String endpoint) {
+		Preconditions.checkArgument(percentile > 0 && percentile < 100, "percentile must be between 0 and 100, got %s", percentile);
+		Preconditions.checkArgument(sampleSize >= 1, "sampleSize must be at least 1, got %s", sampleSize);
+		Preconditions.checkArgument(minSamples >= 1 && minSamples <= sampleSize,
+				"minSamples %s must be between 1 and sampleSize %s", minSamples, sampleSize);
+		Preconditions.checkArgument(maxHedgeRatio >= 0 && maxHedgeRatio <= 1, "maxHedgeRatio must be between 0 and 1, got %s", maxHedgeRatio);
+		this.percentile = percentile;
+		this.minDelay = minDelay;
+		this.sampleSize = sampleSize;
+		this.minSamples = minSamples;
+		this.maxHedgeRatio = maxHedgeRatio;
+		this.endpoint = endpoint;
+	}
+
+	public static HedgingSettings from(HedgingType configuration) {
+		if (configuration == null) {
+			return DEFAULT;
+		}
+		return new HedgingSettings(
+				Optional.ofNullable(configuration.getPercentile()).orElse(DEFAULT_PERCENTILE),
+				Optional.ofNullable(configuration.getMinDelay()).orElse(DEFAULT_MIN_DELAY),
+				Optional.ofNullable(configuration.getSampleSize()).orElse(DEFAULT_SAMPLE_SIZE),
+				Optional.ofNullable(configuration.getMinSamples()).orElse(DEFAULT_MIN_SAMPLES),
+				Optional.ofNullable(configuration.getMaxHedgeRatio()).orElse(DEFAULT_MAX_HEDGE_RATIO),
+				Optional.ofNullable(configuration.getEndpoint()).map(String::trim).filter(endpoint -> !endpoint.isEmpty()).orElse(null));
+	}
+
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * @return the lower bound of the delay before hedging, in milliseconds
+	 */
+	public long getMinDelay() {
+		return minDelay;
+	}
+
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	public double getMaxHedgeRatio() {
+		return maxHedgeRatio;
+	}
+
+	/**
+	 * @return the webadmin receiving the hedged requests, if not the main one
+	 */
+	public Optional<String> getEndpoint() {
+		return Optional.ofNullable(endpoint);
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("percentile", percentile)
+			.add("minDelay", minDelay)
+			.add("sampleSize", sampleSize)
+			.add("minSamples", minSamples)
+			.add("maxHedgeRatio", maxHedgeRatio)
+			.add("endpoint", endpoint)
+			.toString();
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.lsc.plugins.connectors.james.generated.RateLimitType;
+import org.lsc.plugins.connectors.james.generated.RateLimitWindowType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Settings of a {@link RateLimiter}: the rates of reads and writes, and the
+ * time windows, such as business hours, overriding them.
+ */
+public final class RateLimitSettings {
+
+	public static final double UNLIMITED = Double.POSITIVE_INFINITY;
+
+	private final Rates rates;
+	private final Integer burst;
+	private final List<Window> windows;
+
+	public RateLimitSettings(Rates rates, Integer burst, List<Window> windows) {
+		Preconditions.checkArgument(burst == null || burst >= 1, "burst must be at least 1, got %s", burst);
+		this.rates = rates;
+		this.burst = burst;
+		this.windows = ImmutableList.copyOf(windows);
+	}
+
+	public static RateLimitSettings from(RateLimitType configuration) {
+		if (configuration == null) {
+			return new RateLimitSettings(new Rates(UNLIMITED, UNLIMITED), null, ImmutableList.of());
+		}
+		Rates rates = new Rates(
+				Optional.ofNullable(configuration.getReadsPerSecond()).orElse(UNLIMITED),
+				Optional.ofNullable(configuration.getWritesPerSecond()).orElse(UNLIMITED));
+		return new RateLimitSettings(rates, configuration.getBurst(), configuration.getWindow().stream()
+				.map(window -> Window.from(window, rates))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * @return the rates of the first window containing the given time, or the
+	 * rates outside of the windows
+	 */
+	public Rates ratesAt(LocalDateTime time) {
+		return windows.stream()
+			.filter(window -> window.contains(time))
+			.findFirst()
+			.map(Window::getRates)
+			.orElse(rates);
+	}
+
+	/**
+	 * @return the number of requests which may be sent at once for the given rate
+	 */
+	public int burstFor(double permitsPerSecond) {
+		if (burst != null) {
+			return burst;
+		}
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, permitsPerSecond));
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("rates", rates)
+			.add("burst", burst)
+			.add("windows", windows)
+			.toString();
+	}
+
+	/**
+	 * Requests per second allowed for reads (GET, HEAD) and writes (PUT, DELETE).
+	 */
+	public static final class Rates {
+		private final double readsPerSecond;
+		private final double writesPerSecond;
+
+		public Rates(double readsPerSecond, double writesPerSecond) {
+			Preconditions.checkArgument(readsPerSecond > 0 && writesPerSecond > 0,
+					"rates must be positive, got %s reads and %s writes per second", readsPerSecond, writesPerSecond);
+			this.readsPerSecond = readsPerSecond;
+			this.writesPerSecond = writesPerSecond;
+		}
+
+		public double getReadsPerSecond() {
+			return readsPerSecond;
+		}
+
+		public double getWritesPerSecond() {
+			return writesPerSecond;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Rates)) {
+				return false;
+			}
+			Rates rates = (Rates) other;
+			return readsPerSecond == rates.readsPerSecond && writesPerSecond == rates.writesPerSecond;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(readsPerSecond, writesPerSecond);
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.add("readsPerSecond", readsPerSecond)
+				.add("writesPerSecond", writesPerSecond)
+				.toString();
+		}
+	}
+
+	/**
+	 * Days and local times during which other rates apply. A window ending
+	 * before it starts spans midnight, and then belongs to the day it starts.
+	 */
+	public static final class Window {
+		private final Set<DayOfWeek> days;
+		private final LocalTime from;
+		private final LocalTime to;
+		private final Rates rates;
+
+		public Window(Set<DayOfWeek> days, LocalTime from, LocalTime to, Rates rates) {
+			this.days = days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : EnumSet.copyOf(days);
+			this.from = from;
+			this.to = to;
+			this.rates = rates;
+		}
+
+		static Window from(RateLimitWindowType configuration, Rates defaultRates) {
+			try {
+				Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+				Splitter.on(' ').omitEmptyStrings().trimResults()
+					.split(Optional.ofNullable(configuration.getDays()).orElse(""))
+					.forEach(day -> days.add(DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT))));
+				return new Window(days,
+						LocalTime.parse(configuration.getFrom().trim()),
+						LocalTime.parse(configuration.getTo().trim()),
+						new Rates(
+							Optional.ofNullable(configuration.getReadsPerSecond()).orElse(defaultRates.getReadsPerSecond()),
+							Optional.ofNullable(configuration.getWritesPerSecond()).orElse(defaultRates.getWritesPerSecond())));
+			} catch (DateTimeParseException | NullPointerException | IllegalArgumentException e) {
+				throw new IllegalArgumentException(String.format("Invalid rate limit window %s - %s on %s: %s",
+						configuration.getFrom(), configuration.getTo(), configuration.getDays(), e.getMessage()), e);
+			}
+		}
+
+		public boolean contains(LocalDateTime time) {
+			LocalTime localTime = time.toLocalTime();
+			if (from.isBefore(to)) {
+				return days.contains(time.getDayOfWeek()) && !localTime.isBefore(from) && localTime.isBefore(to);
+			}
+			return (days.contains(time.getDayOfWeek()) && !localTime.isBefore(from))
+				|| (days.contains(time.getDayOfWeek().minus(1)) && localTime.isBefore(to));
+		}
+
+		public Rates getRates() {
+			return rates;
+		}
+
+		@Override
+		public String toString() {
+			return MoreObjects.toStringHelper(this)
+				.add("days", days)
+				.add("from", from)
+				.add("to", to)
+				.add("rates", rates)
+				.toString();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the requests sent to James below the configured rates, with one token
+ * bucket for reads (GET, HEAD) and one for writes (PUT, DELETE). The rates
+ * follow the time windows of the settings, evaluated in the local time zone.
+ * Requests above the rate are delayed, not rejected.
+ */
+public class RateLimiter implements RateLimiterMXBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RateLimiter.class);
+
+	private final RateLimitSettings settings;
+	private final Clock clock;
+	private final LongSupplier nanoClock;
+
+	private final TokenBucket reads;
+	private final TokenBucket writes;
+	private RateLimitSettings.Rates rates;
+
+	private final AtomicLong throttledReads = new AtomicLong();
+	private final AtomicLong throttledWrites = new AtomicLong();
+	private final AtomicLong throttleDelayNanos = new AtomicLong();
+
+	public RateLimiter(RateLimitSettings settings) {
+		this(settings, Clock.systemDefaultZone(), System::nanoTime);
+	}
+
+	RateLimiter(RateLimitSettings settings, Clock clock, LongSupplier nanoClock) {
+		this.settings = settings;
+		this.clock = clock;
+		this.nanoClock = nanoClock;
+		this.rates = settings.ratesAt(LocalDateTime.now(clock));
+		long now = nanoClock.getAsLong();
+		this.reads = new TokenBucket(rates.getReadsPerSecond(), settings.burstFor(rates.getReadsPerSecond()), now);
+		this.writes = new TokenBucket(rates.getWritesPerSecond(), settings.burstFor(rates.getWritesPerSecond()), now);
+	}
+
+	/**
+	 * Sends a request through the given call once the rate of its method allows it.
+	 */
+	public CompletableFuture<Response> execute(String method, Supplier<CompletableFuture<Response>> call) {
+		long delay = reserve(isRead(method));
+		if (delay == 0) {
+			return call.get();
+		}
+		return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+			.thenCompose(any -> call.get());
+	}
+
+	/**
+	 * @return the delay before a request may be sent, in nanoseconds
+	 */
+	long reserve(boolean read) {
+		long now = nanoClock.getAsLong();
+		updateRates(now);
+		long delay = (read ? reads : writes).reserve(now);
+		if (delay > 0) {
+			(read ? throttledReads : throttledWrites).incrementAndGet();
+			throttleDelayNanos.addAndGet(delay);
+		}
+		return delay;
+	}
+
+	private synchronized void updateRates(long now) {
+		RateLimitSettings.Rates current = settings.ratesAt(LocalDateTime.now(clock));
+		if (!current.equals(rates)) {
+			LOGGER.info("James webadmin rate limits change from {} to {}", rates, current);
+			reads.setRate(current.getReadsPerSecond(), settings.burstFor(current.getReadsPerSecond()), now);
+			writes.setRate(current.getWritesPerSecond(), settings.burstFor(current.getWritesPerSecond()), now);
+			rates = current;
+		}
+	}
+
+	private static boolean isRead(String method) {
+		return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method);
+	}
+
+	@Override
+	public synchronized double getReadsPerSecond() {
+		return Double.isInfinite(rates.getReadsPerSecond()) ? -1 : rates.getReadsPerSecond();
+	}
+
+	@Override
+	public synchronized double getWritesPerSecond() {
+		return Double.isInfinite(rates.getWritesPerSecond()) ? -1 : rates.getWritesPerSecond();
+	}
+
+	@Override
+	public long getThrottledReads() {
+		return throttledReads.get();
+	}
+
+	@Override
+	public long getThrottledWrites() {
+		return throttledWrites.get();
+	}
+
+	@Override
+	public long getThrottleDelayMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(throttleDelayNanos.get());
+	}
+}
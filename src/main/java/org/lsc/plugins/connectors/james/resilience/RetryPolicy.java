@@ -0,0 +1,276 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Retries the webadmin requests failing with a transient error: a connection
+ * failure or timeout, or a 429, 502, 503 or 504 status. A request rejected by
+ * a full bulkhead is not retried, as retrying would only add to the load of
+ * its lane. It must only be used for idempotent requests.
+ *
+ * Retries are delayed by an exponential backoff with full jitter, or by the
+ * Retry-After delay of the response when it is longer. A retry budget bounds
+ * the retries to a share of the requests, so that retries do not amplify an
+ * outage of James: each request earns a fraction of a retry, each retry spends
+ * a whole one.
+ */
+public class RetryPolicy implements RetryPolicyMXBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RetryPolicy.class);
+
+	private static final ImmutableSet<Integer> TRANSIENT_STATUSES = ImmutableSet.of(
+			Status.TOO_MANY_REQUESTS.getStatusCode(),
+			Status.BAD_GATEWAY.getStatusCode(),
+			Status.SERVICE_UNAVAILABLE.getStatusCode(),
+			Status.GATEWAY_TIMEOUT.getStatusCode());
+
+	private final RetrySettings settings;
+
+	private double budgetBalance;
+
+	private final AtomicLong retriedRequests = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong recoveredRequests = new AtomicLong();
+	private final AtomicLong exhaustedRequests = new AtomicLong();
+	private final AtomicLong budgetRejections = new AtomicLong();
+	private final AtomicLong retryDelayMillis = new AtomicLong();
+
+	public RetryPolicy(RetrySettings settings) {
+		this.settings = settings;
+		this.budgetBalance = settings.getBudgetReserve();
+	}
+
+	/**
+	 * Sends a request through the given call, as many times as allowed. The
+	 * responses of the attempts which are retried are closed.
+	 *
+	 * @return the response, or failure, of the last attempt
+	 */
+	public CompletableFuture<Response> execute(Supplier<CompletableFuture<Response>> call) {
+		depositBudget();
+		CompletableFuture<Response> result = new CompletableFuture<>();
+		attempt(1, call, result);
+		return result;
+	}
+
+	private void attempt(int attempt, Supplier<CompletableFuture<Response>> call, CompletableFuture<Response> result) {
+		CompletableFuture<Response> response;
+		try {
+			response = call.get();
+		} catch (RuntimeException e) {
+			response = CompletableFuture.failedFuture(e);
+		}
+		response.whenComplete((value, failure) -> {
+			Optional<Duration> delay = retryDelay(attempt, value, failure);
+			if (delay.isEmpty()) {
+				if (attempt > 1 && failure == null && !isTransient(value)) {
+					recoveredRequests.incrementAndGet();
+				}
+				if (failure != null) {
+					result.completeExceptionally(failure);
+				} else {
+					result.complete(value);
+				}
+				return;
+			}
+			if (value != null) {
+				value.close();
+			}
+			if (attempt == 1) {
+				retriedRequests.incrementAndGet();
+			}
+			retries.incrementAndGet();
+			retryDelayMillis.addAndGet(delay.get().toMillis());
+			LOGGER.debug("Retrying a webadmin request in {} ms after attempt {} ({})", delay.get().toMillis(), attempt,
+					failure != null ? unwrap(failure).toString() : value.getStatus());
+			CompletableFuture.delayedExecutor(delay.get().toMillis(), TimeUnit.MILLISECONDS)
+				.execute(() -> attempt(attempt + 1, call, result));
+		});
+	}
+
+	private Optional<Duration> retryDelay(int attempt, Response response, Throwable failure) {
+		if (failure != null ? !isTransient(unwrap(failure)) : !isTransient(response)) {
+			return Optional.empty();
+		}
+		if (attempt >= settings.getMaxAttempts()) {
+			exhaustedRequests.incrementAndGet();
+			return Optional.empty();
+		}
+		Duration delay = backoff(attempt);
+		if (response != null) {
+			Optional<Duration> retryAfter = retryAfter(response.getHeaderString(HttpHeaders.RETRY_AFTER), Instant.now());
+			if (retryAfter.isPresent() && retryAfter.get().toMillis() > settings.getMaxBackoff()) {
+				LOGGER.debug("Not retrying, James asked to wait {} ms", retryAfter.get().toMillis());
+				exhaustedRequests.incrementAndGet();
+				return Optional.empty();
+			}
+			if (retryAfter.isPresent() && retryAfter.get().compareTo(delay) > 0) {
+				delay = retryAfter.get();
+			}
+		}
+		if (!withdrawBudget()) {
+			budgetRejections.incrementAndGet();
+			return Optional.empty();
+		}
+		return Optional.of(delay);
+	}
+
+	/**
+	 * @return a random delay below the exponential backoff of the attempt
+	 */
+	private Duration backoff(int attempt) {
+		double backoff = Math.min(settings.getMaxBackoff(),
+				settings.getInitialBackoff() * Math.pow(settings.getMultiplier(), attempt - 1));
+		return Duration.ofMillis(ThreadLocalRandom.current().nextLong((long) backoff + 1));
+	}
+
+	/**
+	 * Parses a Retry-After header, either a number of seconds or an HTTP date.
+	 */
+	@VisibleForTesting
+	static Optional<Duration> retryAfter(String header, Instant now) {
+		if (header == null || header.isBlank()) {
+			return Optional.empty();
+		}
+		String value = header.trim();
+		try {
+			if (value.chars().allMatch(Character::isDigit)) {
+				return Optional.of(Duration.ofSeconds(Long.parseLong(value)));
+			}
+			Duration delay = Duration.between(now, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+			return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+		} catch (NumberFormatException | DateTimeParseException e) {
+			LOGGER.debug("Ignoring invalid Retry-After header: {}", value);
+			return Optional.empty();
+		}
+	}
+
+	private static boolean isTransient(Response response) {
+		return TRANSIENT_STATUSES.contains(response.getStatus());
+	}
+
+	private static boolean isTransient(Throwable failure) {
+		return failure instanceof ProcessingException && !(failure instanceof BulkheadFullException);
+	}
+
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+
+	private synchronized void depositBudget() {
+		budgetBalance = Math.min(Math.max(1, settings.getBudgetReserve()), budgetBalance + settings.getBudgetRatio());
+	}
+
+	private synchronized boolean withdrawBudget() {
+		if (budgetBalance < 1) {
+			return false;
+		}
+		budgetBalance--;
+		return true;
+	}
+
+	@Override
+	public long getRetriedRequests() {
+		return retriedRequests.get();
+	}
+
+	@Override
+	public long getRetries() {
+		return retries.get();
+	}
+
+	@Override
+	public long getRecoveredRequests() {
+		return recoveredRequests.get();
+	}
+
+	@Override
+	public long getExhaustedRequests() {
+		return exhaustedRequests.get();
+	}
+
+	@Override
+	public long getBudgetRejections() {
+		return budgetRejections.get();
+	}
+
+	@Override
+	public synchronized double getBudgetBalance() {
+		return budgetBalance;
+	}
+
+	@Override
+	public long getRetryDelayMillis() {
+		return retryDelayMillis.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d requests retried %d times, %d recovered, %d exhausted, %d retries denied by the budget, %d ms waited",
+				getRetriedRequests(), getRetries(), getRecoveredRequests(), getExhaustedRequests(),
+				getBudgetRejections(), getRetryDelayMillis());
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.RetryType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link RetryPolicy}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class RetrySettings {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_INITIAL_BACKOFF = 100;
+	public static final long DEFAULT_MAX_BACKOFF = 5000;
+	public static final double DEFAULT_MULTIPLIER = 2.0;
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+	public static final int DEFAULT_BUDGET_RESERVE = 10;
+
+	public static final RetrySettings DEFAULT = new RetrySettings(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF,
+			DEFAULT_MAX_BACKOFF, DEFAULT_MULTIPLIER, DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_RESERVE);
+
+	private final int maxAttempts;
+	private final long initialBackoff;
+	private final long maxBackoff;
+	private final double multiplier;
+	private final double budgetRatio;
+	private final int budgetReserve;
+
+	public RetrySettings(int maxAttempts, long initialBackoff, long maxBackoff, double multiplier,
+			double budgetRatio, int budgetReserve) {
+		Preconditions.checkArgument(maxAttempts >= 1, "maxAttempts must be at least 1, got %s", maxAttempts);
+		Preconditions.checkArgument(initialBackoff >= 0 && initialBackoff <= maxBackoff,
+				"initialBackoff %s must be between 0 and maxBackoff %s", initialBackoff, maxBackoff);
+		Preconditions.checkArgument(multiplier >= 1, "multiplier must be at least 1, got %s", multiplier);
+		Preconditions.checkArgument(budgetRatio >= 0 && budgetReserve >= 0, "the retry budget can not be negative");
+		this.maxAttempts = maxAttempts;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		this.multiplier = multiplier;
+		this.budgetRatio = budgetRatio;
+		this.budgetReserve = budgetReserve;
+	}
+
+	public static RetrySettings from(RetryType configuration) {
+		if (configuration == null) {
+			return DEFAULT;
+		}
+		return new RetrySettings(
+				Optional.ofNullable(configuration.getMaxAttempts()).orElse(DEFAULT_MAX_ATTEMPTS),
+				Optional.ofNullable(configuration.getInitialBackoff()).orElse(DEFAULT_INITIAL_BACKOFF),
+				Optional.ofNullable(configuration.getMaxBackoff()).orElse(DEFAULT_MAX_BACKOFF),
+				Optional.ofNullable(configuration.getMultiplier()).orElse(DEFAULT_MULTIPLIER),
+				Optional.ofNullable(configuration.getBudgetRatio()).orElse(DEFAULT_BUDGET_RATIO),
+				Optional.ofNullable(configuration.getBudgetReserve()).orElse(DEFAULT_BUDGET_RESERVE));
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @return the upper bound of the delay before the first retry, in milliseconds
+	 */
+	public long getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	/**
+	 * @return the upper bound of the delay before any retry, in milliseconds
+	 */
+	public long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	public double getBudgetRatio() {
+		return budgetRatio;
+	}
+
+	public int getBudgetReserve() {
+		return budgetReserve;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("maxAttempts", maxAttempts)
+			.add("initialBackoff", initialBackoff)
+			.add("maxBackoff", maxBackoff)
+			.add("multiplier", multiplier)
+			.add("budgetRatio", budgetRatio)
+			.add("budgetReserve", budgetReserve)
+			.toString();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket handing out reservations: a request which finds the bucket
+ * empty takes a token in advance and waits until it would have been refilled,
+ * so that waiting requests are served in order at the configured rate.
+ */
+final class TokenBucket {
+
+	private double tokensPerNano;
+	private double capacity;
+	private double tokens;
+	private long lastRefill;
+
+	TokenBucket(double permitsPerSecond, int burst, long now) {
+		this.lastRefill = now;
+		setRate(permitsPerSecond, burst, now);
+		this.tokens = capacity;
+	}
+
+	synchronized void setRate(double permitsPerSecond, int burst, long now) {
+		refill(now);
+		this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.capacity = burst;
+		this.tokens = Math.min(tokens, capacity);
+	}
+
+	/**
+	 * Takes a token.
+	 *
+	 * @return the delay before the request may be sent, in nanoseconds
+	 */
+	synchronized long reserve(long now) {
+		if (Double.isInfinite(tokensPerNano)) {
+			return 0;
+		}
+		refill(now);
+		tokens--;
+		return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+	}
+
+	private void refill(long now) {
+		if (now > lastRefill && !Double.isInfinite(tokensPerNano)) {
+			tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+		}
+		lastRefill = Math.max(lastRefill, now);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.AliasPrefetchType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of the alias prefetch of JamesAliasDstService, with the defaults
+ * of lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class AliasPrefetchSettings {
+
+	public static final int DEFAULT_CONCURRENCY = 16;
+	public static final long DEFAULT_MAX_AGE = 3600000;
+
+	private final int concurrency;
+	private final long maxAge;
+
+	public AliasPrefetchSettings(int concurrency, long maxAge) {
+		Preconditions.checkArgument(concurrency >= 1, "concurrency must be at least 1, got %s", concurrency);
+		Preconditions.checkArgument(maxAge >= 0, "maxAge must not be negative, got %s", maxAge);
+		this.concurrency = concurrency;
+		this.maxAge = maxAge;
+	}
+
+	public static AliasPrefetchSettings from(AliasPrefetchType configuration) {
+		return new AliasPrefetchSettings(
+				Optional.ofNullable(configuration.getConcurrency()).orElse(DEFAULT_CONCURRENCY),
+				Optional.ofNullable(configuration.getMaxAge()).orElse(DEFAULT_MAX_AGE));
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * @return the time after which the snapshot is fetched again, in milliseconds
+	 */
+	public long getMaxAge() {
+		return maxAge;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("concurrency", concurrency)
+			.add("maxAge", maxAge)
+			.toString();
+	}
+}
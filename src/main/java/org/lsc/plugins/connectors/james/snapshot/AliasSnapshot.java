@@ -0,0 +1,179 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import jakarta.ws.rs.NotFoundException;
+
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The aliases of all the users of a James server, fetched at once, so that
+ * the lookups of a synchronization do not cost one request each.
+ *
+ * A user which is not in the snapshot has no alias. The users whose aliases
+ * could not be fetched, or were written since, are not covered by the
+ * snapshot and must be read from James.
+ */
+public final class AliasSnapshot {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AliasSnapshot.class);
+
+	private final Map<String, List<Alias>> aliases;
+	private final Set<String> uncovered;
+	private final long fetchedAt;
+
+	private AliasSnapshot(Map<String, List<Alias>> aliases, Set<String> uncovered, long fetchedAt) {
+		this.aliases = aliases;
+		this.uncovered = uncovered;
+		this.fetchedAt = fetchedAt;
+	}
+
+	/**
+	 * Lists the users having aliases, then fetches their aliases with at most
+	 * {@code concurrency} requests in flight.
+	 *
+	 * @throws CircuitBreakerOpenException when James stopped answering while fetching
+	 */
+	public static AliasSnapshot fetch(JamesDao jamesDao, int concurrency) {
+		long start = System.nanoTime();
+		List<User> users = jamesDao.getUsersListViaAlias();
+		Map<String, List<Alias>> aliases = new ConcurrentHashMap<>(users.size() * 2);
+		Set<String> uncovered = ConcurrentHashMap.newKeySet();
+		fetchEach(jamesDao, users.stream().map(user -> user.email).toList(), concurrency,
+			(email, userAliases) -> {
+				if (userAliases != null) {
+					aliases.put(email, List.copyOf(userAliases));
+				}
+			},
+			uncovered::add);
+		LOGGER.info("Prefetched the aliases of {} users in {} ms, {} to be read again",
+			aliases.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), uncovered.size());
+		return new AliasSnapshot(aliases, uncovered, System.nanoTime());
+	}
+
+	/**
+	 * Fetches the aliases of each user with at most {@code concurrency}
+	 * requests in flight, giving them to {@code found}, null for a user
+	 * unknown to James, or giving the user to {@code failed}. Both may be
+	 * called from several threads.
+	 *
+	 * @throws CircuitBreakerOpenException when James stopped answering while fetching
+	 */
+	public static void fetchEach(JamesDao jamesDao, Collection<String> emails, int concurrency,
+			BiConsumer<String, List<Alias>> found, Consumer<String> failed) {
+		AtomicReference<RuntimeException> abort = new AtomicReference<>();
+		Semaphore permits = new Semaphore(concurrency);
+		for (String email : emails) {
+			permits.acquireUninterruptibly();
+			if (abort.get() != null) {
+				permits.release();
+				break;
+			}
+			jamesDao.getAliasesAsync(email).whenComplete((userAliases, failure) -> {
+				Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+				if (cause == null) {
+					found.accept(email, userAliases);
+				} else if (cause instanceof CircuitBreakerOpenException) {
+					abort.compareAndSet(null, (CircuitBreakerOpenException) cause);
+				} else if (cause instanceof NotFoundException) {
+					found.accept(email, null);
+				} else {
+					LOGGER.debug("Unable to fetch the aliases of {}: {}", email, cause.toString());
+					failed.accept(email);
+				}
+				permits.release();
+			});
+		}
+		permits.acquireUninterruptibly(concurrency);
+		if (abort.get() != null) {
+			throw abort.get();
+		}
+	}
+
+	/**
+	 * @return whether the snapshot tells the aliases of the user, which are
+	 * then given by {@link #get(String)}
+	 */
+	public boolean covers(String email) {
+		return !uncovered.contains(email);
+	}
+
+	/**
+	 * @return the aliases of a covered user, or null when the user has none
+	 */
+	public List<Alias> get(String email) {
+		return aliases.get(email);
+	}
+
+	/**
+	 * Stops answering for a user whose aliases are being written.
+	 */
+	public void invalidate(String email) {
+		uncovered.add(email);
+		aliases.remove(email);
+	}
+
+	public boolean isOlderThan(long maxAgeMillis) {
+		return System.nanoTime() - fetchedAt > TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+	}
+
+	public int size() {
+		return aliases.size();
+	}
+}
@@ -0,0 +1,752 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps on disk the last known state of a James service: for each email its
+ * sorted values, such as the sources of its aliases, with a hash of them, so
+ * that a synchronization does not read them all again from James.
+ *
+ * The file is a header followed by records, only appended to while running:
+ * the last record of an email wins. The hash of each record is checked when
+ * loading, a torn or corrupted record being dropped with the following ones.
+ * The file is memory-mapped when loaded, and only the offset of the last
+ * record of each email is kept in an open-addressing table: the values are
+ * decoded from the mapping when read. The entries recorded since are kept in
+ * memory. Before an entry is written to James, a pending record makes it
+ * unknown to the next runs, should the process stop before the outcome is
+ * recorded. The file is rewritten without the superseded records when
+ * closed, once they are more than maxGarbageRatio of the records.
+ *
+ * Once refreshed from the listing of James, the snapshot answers for all
+ * the emails but those it failed to read from James or being written: an
+ * email it does not hold has no values. The values of the other listed
+ * emails are trusted across runs, and only a rotating share of them is read
+ * again at each run, so that each is read at least once every rereadCycle
+ * runs: the header counts the runs.
+ */
+public final class DestinationSnapshot implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DestinationSnapshot.class);
+
+	private static final int MAGIC = 0x4C534A53;
+	private static final int VERSION = 2;
+	/** Magic, version and run count. */
+	private static final int HEADER_SIZE = 12;
+	/** Length, hash, email length and value count of a record. */
+	private static final int RECORD_OVERHEAD = 4 + 8 + 2 + 4;
+	private static final int REMOVED = -1;
+	private static final int PENDING = -2;
+	private static final int MAX_LENGTH = 0xFFFF;
+	private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+	private static final int COPY_BUFFER_SIZE = 1 << 20;
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Streams the emails James currently holds, such as {@code JamesDao::forEachUserViaAlias}.
+	 */
+	public interface Listing {
+		long forEach(Consumer<String> consumer);
+	}
+
+	private final DestinationSnapshotSettings settings;
+	private final Path path;
+
+	private FileChannel channel;
+	private MappedByteBuffer mapped;
+	/** Receives the records to check when loading. */
+	private byte[] scratch = new byte[4096];
+	/** Offset in the mapping of the last record of each email, 0 for an empty slot. */
+	private int[] slots;
+	private int used;
+	private long size;
+	private int run;
+	private long records;
+	private int entries;
+
+	/** Entries recorded since loading, with a null value once removed. */
+	private final Map<String, List<String>> recorded = new HashMap<>();
+	/** Emails whose last record is pending. */
+	private final Set<String> pending = new HashSet<>();
+	private final Set<String> unknown = new HashSet<>();
+	private final Multiset<String> writing = HashMultiset.create();
+	private boolean refreshed;
+	private boolean failed;
+
+	private long changed;
+	private long unchanged;
+
+	private DestinationSnapshot(DestinationSnapshotSettings settings, Path path) {
+		this.settings = settings;
+		this.path = path;
+	}
+
+	/**
+	 * Loads the snapshot of a service of a James server, empty when there is none yet.
+	 *
+	 * @param name tells apart the snapshots of the services of the same James server
+	 */
+	public static DestinationSnapshot open(DestinationSnapshotSettings settings, String endpoint, String name) throws IOException {
+		Files.createDirectories(settings.getDirectory());
+		String prefix = Hashing.sha256().hashString(endpoint, StandardCharsets.UTF_8).toString().substring(0, 16);
+		DestinationSnapshot snapshot = new DestinationSnapshot(settings, settings.getDirectory().resolve(prefix + "-" + name + ".snapshot"));
+		snapshot.load();
+		return snapshot;
+	}
+
+	private void load() throws IOException {
+		long start = System.nanoTime();
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		mapped = null;
+		slots = new int[16];
+		used = 0;
+		records = 0;
+		entries = 0;
+		recorded.clear();
+		pending.clear();
+		long fileSize = channel.size();
+		if (fileSize > Integer.MAX_VALUE) {
+			LOGGER.warn("The snapshot {} is too large to be mapped ({} bytes), it is rebuilt", path, fileSize);
+			reset();
+			return;
+		}
+		if (fileSize < HEADER_SIZE) {
+			reset();
+			return;
+		}
+		mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+		if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+			LOGGER.warn("{} is not a snapshot of this version, it is rebuilt", path);
+			reset();
+			return;
+		}
+		run = mapped.getInt(8);
+		int offset = HEADER_SIZE;
+		while (offset < fileSize) {
+			int length = checkRecord(offset, (int) fileSize);
+			if (length < 0) {
+				LOGGER.warn("Dropping the {} bytes of the snapshot {} from offset {}, torn or corrupted", fileSize - offset, path, offset);
+				channel.truncate(offset);
+				break;
+			}
+			index(offset);
+			records++;
+			offset += length;
+		}
+		size = offset;
+		for (String email : pending) {
+			// The outcome of its last write is unknown: read it again from James
+			remove(email, false);
+		}
+		changed = 0;
+		LOGGER.info("Loaded the {} entries of the snapshot {} in {} ms", entries, path,
+			(System.nanoTime() - start) / 1_000_000);
+	}
+
+	private void reset() throws IOException {
+		mapped = null;
+		channel.truncate(0);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(run).flip();
+		size = 0;
+		write(header);
+	}
+
+	/**
+	 * @return the length of the valid record at the offset, or -1
+	 */
+	private int checkRecord(int offset, int end) {
+		if (end - offset < RECORD_OVERHEAD) {
+			return -1;
+		}
+		int length = mapped.getInt(offset);
+		if (length < RECORD_OVERHEAD - 4 || length > end - offset - 4) {
+			return -1;
+		}
+		int recordEnd = offset + 4 + length;
+		int position = offset + 14 + Short.toUnsignedInt(mapped.getShort(offset + 12));
+		if (position + 4 > recordEnd) {
+			return -1;
+		}
+		int count = mapped.getInt(position);
+		position += 4;
+		for (int i = 0; i < count && position <= recordEnd - 2; i++) {
+			position += 2 + Short.toUnsignedInt(mapped.getShort(position));
+		}
+		if (position != recordEnd || count < PENDING) {
+			return -1;
+		}
+		if (scratch.length < length - 8) {
+			scratch = new byte[Math.max(length - 8, scratch.length * 2)];
+		}
+		mapped.get(offset + 12, scratch, 0, length - 8);
+		long hash = CONTENT_HASH.hashBytes(scratch, 0, length - 8).asLong();
+		return hash == mapped.getLong(offset + 4) ? 4 + length : -1;
+	}
+
+	private void index(int offset) {
+		int slot = slotOfRecord(offset);
+		boolean live = slots[slot] != 0 && countAt(slots[slot]) >= 0;
+		int count = countAt(offset);
+		if (count == PENDING) {
+			pending.add(new String(emailAt(offset), StandardCharsets.UTF_8));
+			return;
+		}
+		if (!pending.isEmpty()) {
+			pending.remove(new String(emailAt(offset), StandardCharsets.UTF_8));
+		}
+		if (slots[slot] == 0) {
+			used++;
+		}
+		slots[slot] = offset;
+		entries += (count >= 0 ? 1 : 0) - (live ? 1 : 0);
+		if (used * 2 > slots.length) {
+			grow();
+		}
+	}
+
+	private void grow() {
+		int[] previous = slots;
+		slots = new int[previous.length * 2];
+		for (int offset : previous) {
+			if (offset != 0) {
+				slots[slotOfRecord(offset)] = offset;
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #slotOf(byte[])} for the email of a record, read from the mapping.
+	 */
+	private int slotOfRecord(int offset) {
+		int length = Short.toUnsignedInt(mapped.getShort(offset + 12));
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ (mapped.get(offset + 14 + i) & 0xFF)) * FNV_PRIME;
+		}
+		int mask = slots.length - 1;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (slots[slot] != 0 && !sameEmail(slots[slot], offset, length)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private boolean sameEmail(int offset, int otherOffset, int length) {
+		if (Short.toUnsignedInt(mapped.getShort(offset + 12)) != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (mapped.get(offset + 14 + i) != mapped.get(otherOffset + 14 + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the slot holding the last record of the email, or the empty slot where it goes
+	 */
+	private int slotOf(byte[] email) {
+		int mask = slots.length - 1;
+		int slot = (int) fnv(email) & mask;
+		while (slots[slot] != 0 && !emailEquals(slots[slot], email)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static long fnv(byte[] bytes) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : bytes) {
+			hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+		}
+		return hash ^ (hash >>> 32);
+	}
+
+	private boolean emailEquals(int offset, byte[] email) {
+		if (Short.toUnsignedInt(mapped.getShort(offset + 12)) != email.length) {
+			return false;
+		}
+		for (int i = 0; i < email.length; i++) {
+			if (mapped.get(offset + 14 + i) != email[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte[] emailAt(int offset) {
+		byte[] email = new byte[Short.toUnsignedInt(mapped.getShort(offset + 12))];
+		mapped.get(offset + 14, email);
+		return email;
+	}
+
+	private int countAt(int offset) {
+		return mapped.getInt(offset + 14 + Short.toUnsignedInt(mapped.getShort(offset + 12)));
+	}
+
+	private List<String> valuesAt(int offset) {
+		int position = offset + 14 + Short.toUnsignedInt(mapped.getShort(offset + 12));
+		int count = mapped.getInt(position);
+		if (count < 0) {
+			return null;
+		}
+		position += 4;
+		List<String> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] value = new byte[Short.toUnsignedInt(mapped.getShort(position))];
+			mapped.get(position + 2, value);
+			values.add(new String(value, StandardCharsets.UTF_8));
+			position += 2 + value.length;
+		}
+		return List.copyOf(values);
+	}
+
+	/**
+	 * @return the offset of the last loaded record of the email, or 0
+	 */
+	private int loadedOffset(String email) {
+		if (mapped == null) {
+			return 0;
+		}
+		return slots[slotOf(email.getBytes(StandardCharsets.UTF_8))];
+	}
+
+	/**
+	 * Brings the snapshot in line with the emails James holds, before any
+	 * write: the entries James does not hold anymore are removed.
+	 *
+	 * @param all whether to return all the emails of the listing, to read all
+	 * of them again, instead of only those the snapshot does not hold and
+	 * those due in the rotation of this run
+	 * @return the emails to read from James and to give to {@link #put}
+	 */
+	public List<String> refresh(Listing listing, boolean all) {
+		List<String> toRead = new ArrayList<>();
+		BitSet seen;
+		int cycle = settings.getRereadCycle();
+		int due;
+		synchronized (this) {
+			Preconditions.checkState(!refreshed && writing.isEmpty(), "The snapshot must be refreshed once, before any write");
+			seen = new BitSet(slots.length);
+			due = cycle == 0 ? -1 : Math.floorMod(run, cycle);
+			run++;
+			writeRun();
+		}
+		// The listing may call back from another thread: the state is only read meanwhile
+		listing.forEach(email -> {
+			int offset = 0;
+			byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+			if (mapped != null) {
+				int slot = slotOf(bytes);
+				seen.set(slot);
+				offset = slots[slot];
+			}
+			if (all || offset == 0 || countAt(offset) < 0 || pending.contains(email)
+					|| (due >= 0 && Math.floorMod(fnv(bytes), cycle) == due)) {
+				toRead.add(email);
+			}
+		});
+		synchronized (this) {
+			int removed = 0;
+			for (int slot = 0; slot < slots.length; slot++) {
+				if (slots[slot] != 0 && !seen.get(slot) && countAt(slots[slot]) >= 0) {
+					String email = new String(emailAt(slots[slot]), StandardCharsets.UTF_8);
+					if (remove(email, true)) {
+						removed++;
+					}
+				}
+			}
+			refreshed = true;
+			LOGGER.info("{} entries of the snapshot {} removed from James, {} to read", removed, path, toRead.size());
+		}
+		return toRead;
+	}
+
+	/**
+	 * @return whether the snapshot tells the values of the email, which are
+	 * then given by {@link #get(String)}
+	 */
+	public synchronized boolean covers(String email) {
+		return refreshed && !failed && !unknown.contains(email) && !writing.contains(email);
+	}
+
+	/**
+	 * @return the sorted values of the email, or null when it has none
+	 */
+	public synchronized List<String> get(String email) {
+		if (recorded.containsKey(email)) {
+			return recorded.get(email);
+		}
+		int offset = loadedOffset(email);
+		return offset == 0 ? null : valuesAt(offset);
+	}
+
+	/**
+	 * Records the values of an email, as read from James.
+	 */
+	public synchronized void put(String email, Collection<String> values) {
+		unknown.remove(email);
+		record(email, values);
+	}
+
+	/**
+	 * Records that James has no values for an email.
+	 */
+	public synchronized void remove(String email) {
+		unknown.remove(email);
+		remove(email, true);
+	}
+
+	/**
+	 * Records that the values of an email could not be read from James: the
+	 * snapshot does not answer for it until it is written, nor do the next runs.
+	 */
+	public synchronized void unknown(String email) {
+		remove(email);
+		unknown.add(email);
+	}
+
+	/**
+	 * Stops answering for an email about to be written, until the outcome
+	 * of the write is recorded.
+	 */
+	public synchronized void writing(String email) {
+		writing.add(email);
+		if (!pending.contains(email) && get(email) != null) {
+			append(email, List.of(), PENDING);
+			pending.add(email);
+		}
+	}
+
+	/**
+	 * Records the values of an email once written to James.
+	 *
+	 * @param values null when James has no values for it anymore
+	 */
+	public synchronized void written(String email, Collection<String> values) {
+		writing.remove(email);
+		if (values == null) {
+			remove(email);
+		} else {
+			put(email, values);
+		}
+	}
+
+	/**
+	 * Records the values of an email once changed in James, as long as the
+	 * values it had are known: the email is not written by another thread.
+	 *
+	 * @param change gets the values the email had, null when none, and
+	 * returns those it has, null when none
+	 */
+	public synchronized void updated(String email, UnaryOperator<List<String>> change) {
+		if (!refreshed || unknown.contains(email) || writing.count(email) != 1) {
+			failed(email);
+			return;
+		}
+		written(email, change.apply(get(email)));
+	}
+
+	/**
+	 * Records that the write of an email failed, so that its values are not
+	 * known anymore. They are read again from James by the next runs.
+	 */
+	public synchronized void failed(String email) {
+		writing.remove(email);
+		unknown(email);
+	}
+
+	private void record(String email, Collection<String> values) {
+		List<String> sorted = List.copyOf(new TreeSet<>(values));
+		List<String> current = get(email);
+		if (sorted.equals(current) && !pending.contains(email)) {
+			unchanged++;
+			return;
+		}
+		append(email, sorted, sorted.size());
+		if (current == null) {
+			entries++;
+		}
+		if (!sorted.equals(current)) {
+			changed++;
+		}
+		recorded.put(email, sorted);
+		pending.remove(email);
+	}
+
+	/**
+	 * @param append whether to append a removal record, not needed when the
+	 * last record of the email is pending
+	 * @return whether the email had values
+	 */
+	private boolean remove(String email, boolean append) {
+		boolean had = get(email) != null;
+		if (append && (had || pending.contains(email))) {
+			append(email, List.of(), REMOVED);
+			pending.remove(email);
+		}
+		recorded.put(email, null);
+		if (had) {
+			entries--;
+			changed++;
+		}
+		return had;
+	}
+
+	private void append(String email, List<String> values, int count) {
+		if (failed) {
+			return;
+		}
+		write(encode(email, values, count));
+		records++;
+	}
+
+	private void writeRun() {
+		if (failed) {
+			return;
+		}
+		try {
+			channel.write(ByteBuffer.allocate(4).putInt(0, run), 8);
+		} catch (IOException e) {
+			LOGGER.error("Unable to write the snapshot {}, it is not used anymore: {}", path, e.toString());
+			failed = true;
+		}
+	}
+
+	private void write(ByteBuffer buffer) {
+		try {
+			while (buffer.hasRemaining()) {
+				size += channel.write(buffer, size);
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to write the snapshot {}, it is not used anymore: {}", path, e.toString());
+			failed = true;
+		}
+	}
+
+	private static ByteBuffer encode(String email, List<String> values, int count) {
+		byte[] emailBytes = checkLength(email.getBytes(StandardCharsets.UTF_8));
+		List<byte[]> valueBytes = new ArrayList<>(values.size());
+		int length = RECORD_OVERHEAD - 4 + emailBytes.length;
+		for (String value : values) {
+			byte[] bytes = checkLength(value.getBytes(StandardCharsets.UTF_8));
+			valueBytes.add(bytes);
+			length += 2 + bytes.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(4 + length)
+			.putInt(length)
+			.putLong(0)
+			.putShort((short) emailBytes.length)
+			.put(emailBytes)
+			.putInt(count);
+		for (byte[] bytes : valueBytes) {
+			buffer.putShort((short) bytes.length).put(bytes);
+		}
+		buffer.putLong(4, CONTENT_HASH.hashBytes(buffer.array(), 12, length - 8).asLong());
+		return buffer.flip();
+	}
+
+	private static byte[] checkLength(byte[] bytes) {
+		Preconditions.checkArgument(bytes.length <= MAX_LENGTH, "Values of more than %s bytes can not be stored", MAX_LENGTH);
+		return bytes;
+	}
+
+	/**
+	 * Rewrites the file with only the last record of each email having values,
+	 * and the pending records, then loads it again.
+	 */
+	public synchronized void compact() throws IOException {
+		if (failed) {
+			return;
+		}
+		long start = System.nanoTime();
+		Path rewritten = path.resolveSibling(path.getFileName() + ".compacting");
+		try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(run);
+			if (mapped != null) {
+				for (int offset : slots) {
+					if (offset != 0 && countAt(offset) >= 0
+							&& !recorded.containsKey(new String(emailAt(offset), StandardCharsets.UTF_8))) {
+						buffer = copy(out, buffer, mapped.slice(offset, 4 + mapped.getInt(offset)));
+					}
+				}
+			}
+			for (Map.Entry<String, List<String>> entry : recorded.entrySet()) {
+				if (entry.getValue() != null) {
+					buffer = copy(out, buffer, encode(entry.getKey(), entry.getValue(), entry.getValue().size()));
+				}
+			}
+			for (String email : pending) {
+				buffer = copy(out, buffer, encode(email, List.of(), PENDING));
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			out.force(true);
+		}
+		channel.close();
+		Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		LOGGER.info("Compacted the snapshot {} from {} to {} records in {} ms", path, records, entries + pending.size(),
+			(System.nanoTime() - start) / 1_000_000);
+		load();
+	}
+
+	private static ByteBuffer copy(FileChannel out, ByteBuffer buffer, ByteBuffer record) throws IOException {
+		if (record.remaining() > buffer.remaining()) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			buffer.clear();
+			if (record.remaining() > buffer.capacity()) {
+				while (record.hasRemaining()) {
+					out.write(record);
+				}
+				return buffer;
+			}
+		}
+		return buffer.put(record);
+	}
+
+	/**
+	 * @return the number of emails having values
+	 */
+	public synchronized int size() {
+		return entries;
+	}
+
+	/**
+	 * @return the number of records of the file, superseded ones included
+	 */
+	public synchronized long getRecords() {
+		return records;
+	}
+
+	/**
+	 * @return the number of entries whose values changed since loading
+	 */
+	public synchronized long getChanged() {
+		return changed;
+	}
+
+	/**
+	 * @return the number of entries recorded again with the same values
+	 */
+	public synchronized long getUnchanged() {
+		return unchanged;
+	}
+
+	/**
+	 * Compacts the file when the superseded records are more than
+	 * maxGarbageRatio of them. After a failed write, the file is deleted so
+	 * that the next run starts from James.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!channel.isOpen()) {
+			return;
+		}
+		try {
+			if (failed) {
+				channel.close();
+				Files.deleteIfExists(path);
+				return;
+			}
+			long live = entries + pending.size();
+			if (records > 0 && (records - live) / (double) records > settings.getMaxGarbageRatio()) {
+				compact();
+			}
+			channel.force(false);
+			channel.close();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to close the snapshot {}: {}", path, e.toString());
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("entries", entries)
+			.add("records", records)
+			.add("changed", changed)
+			.add("unchanged", unchanged)
+			.add("unknown", unknown.size())
+			.toString();
+	}
+}
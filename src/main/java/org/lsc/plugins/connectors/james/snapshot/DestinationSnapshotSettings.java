@@ -0,0 +1,138 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.DestinationSnapshotType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link DestinationSnapshot}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class DestinationSnapshotSettings {
+
+	public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "lsc-james-snapshots");
+	public static final boolean DEFAULT_VERIFY = false;
+	public static final int DEFAULT_CONCURRENCY = 16;
+	public static final double DEFAULT_MAX_GARBAGE_RATIO = 0.5;
+	public static final int DEFAULT_REREAD_CYCLE = 10;
+
+	private final Path directory;
+	private final boolean verify;
+	private final int concurrency;
+	private final double maxGarbageRatio;
+	private final int rereadCycle;
+
+	public DestinationSnapshotSettings(Path directory, boolean verify, int concurrency, double maxGarbageRatio, int rereadCycle) {
+		Preconditions.checkArgument(concurrency >= 1, "concurrency must be at least 1, got %s", concurrency);
+		Preconditions.checkArgument(maxGarbageRatio >= 0 && maxGarbageRatio <= 1, "maxGarbageRatio must be between 0 and 1, got %s", maxGarbageRatio);
+		Preconditions.checkArgument(rereadCycle >= 0, "rereadCycle must not be negative, got %s", rereadCycle);
+		this.directory = directory;
+		this.verify = verify;
+		this.concurrency = concurrency;
+		this.maxGarbageRatio = maxGarbageRatio;
+		this.rereadCycle = rereadCycle;
+	}
+
+	public static DestinationSnapshotSettings from(DestinationSnapshotType configuration) {
+		return new DestinationSnapshotSettings(
+				Optional.ofNullable(configuration.getDirectory())
+					.map(Paths::get)
+					.orElse(DEFAULT_DIRECTORY),
+				Optional.ofNullable(configuration.isVerify()).orElse(DEFAULT_VERIFY),
+				Optional.ofNullable(configuration.getConcurrency()).orElse(DEFAULT_CONCURRENCY),
+				Optional.ofNullable(configuration.getMaxGarbageRatio()).orElse(DEFAULT_MAX_GARBAGE_RATIO),
+				Optional.ofNullable(configuration.getRereadCycle()).orElse(DEFAULT_REREAD_CYCLE));
+	}
+
+	/**
+	 * @return the directory of the snapshots, one per James server and service
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return whether all the entries are read again from James at startup, instead of only the missing ones
+	 */
+	public boolean isVerify() {
+		return verify;
+	}
+
+	/**
+	 * @return the number of reads in flight while refreshing the snapshot
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * @return the share of superseded records above which the snapshot is rewritten when closed
+	 */
+	public double getMaxGarbageRatio() {
+		return maxGarbageRatio;
+	}
+
+	/**
+	 * @return the number of runs over which every entry is read again from James, or 0 for never
+	 */
+	public int getRereadCycle() {
+		return rereadCycle;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("directory", directory)
+			.add("verify", verify)
+			.add("concurrency", concurrency)
+			.add("maxGarbageRatio", maxGarbageRatio)
+			.add("rereadCycle", rereadCycle)
+			.toString();
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.pivots.CompactPivotMap;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * The users of a James server, fetched at once, so that the existence
+ * checks of a synchronization do not cost one request each.
+ *
+ * The users are kept in a {@link CompactPivotMap}, optionally behind a Bloom
+ * filter answering the most lookups of missing users without searching it.
+ * The writes of the service since the snapshot are recorded on top of it.
+ * The users whose write failed, as the outcome is then unknown, are not
+ * covered by the snapshot any more and must be checked on James.
+ */
+public final class UserSnapshot {
+
+	public enum Membership {
+		PRESENT,
+		ABSENT,
+		/** The existence of the user must be checked on James. */
+		UNKNOWN
+	}
+
+	private static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+	private final CompactPivotMap users;
+	private final BloomFilter<CharSequence> bloomFilter;
+	private final Map<String, Boolean> changes = new ConcurrentHashMap<>();
+	private final Set<String> uncovered = ConcurrentHashMap.newKeySet();
+	private final long fetchedAt = System.nanoTime();
+
+	private UserSnapshot(CompactPivotMap users, boolean bloomFilter) {
+		this.users = users;
+		this.bloomFilter = bloomFilter ? bloomFilterOf(users) : null;
+	}
+
+	/**
+	 * @param users the list of users just read from James
+	 */
+	public static UserSnapshot of(CompactPivotMap users, boolean bloomFilter) {
+		return new UserSnapshot(users, bloomFilter);
+	}
+
+	public static UserSnapshot fetch(JamesDao jamesDao, boolean bloomFilter) {
+		CompactPivotMap.Builder users = CompactPivotMap.builder();
+		jamesDao.forEachUser(users);
+		return new UserSnapshot(users.build(), bloomFilter);
+	}
+
+	private static BloomFilter<CharSequence> bloomFilterOf(CompactPivotMap users) {
+		BloomFilter<CharSequence> bloomFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+			Math.max(1, users.size()), BLOOM_FILTER_FALSE_POSITIVE_RATE);
+		users.keySet().forEach(bloomFilter::put);
+		return bloomFilter;
+	}
+
+	public Membership contains(String email) {
+		if (uncovered.contains(email)) {
+			return Membership.UNKNOWN;
+		}
+		Boolean changed = changes.get(email);
+		if (changed != null) {
+			return changed ? Membership.PRESENT : Membership.ABSENT;
+		}
+		if (bloomFilter != null && !bloomFilter.mightContain(email)) {
+			return Membership.ABSENT;
+		}
+		return users.containsKey(email) ? Membership.PRESENT : Membership.ABSENT;
+	}
+
+	/**
+	 * Stops answering for a user being written, until {@link #written(String, boolean)}.
+	 */
+	public void writing(String email) {
+		uncovered.add(email);
+	}
+
+	/**
+	 * Records the successful creation or removal of a user.
+	 */
+	public void written(String email, boolean present) {
+		changes.put(email, present);
+		uncovered.remove(email);
+	}
+
+	public boolean isOlderThan(long maxAgeMillis) {
+		return System.nanoTime() - fetchedAt > TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+	}
+
+	public int size() {
+		return users.size();
+	}
+}
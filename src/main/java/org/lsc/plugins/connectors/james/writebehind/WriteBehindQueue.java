@@ -0,0 +1,300 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.writebehind;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lsc.exception.LscServiceCommunicationException;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderedExecutor;
+import org.lsc.plugins.connectors.james.ordering.KeyOrderingSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Writes modifications in the background, so that the LSC threads do not
+ * wait for James.
+ *
+ * Submitting blocks while the queue is full: at most capacity modifications
+ * wait or are being written. They are written by a {@link KeyOrderedExecutor},
+ * the modifications of the same key one after the other in the order they
+ * were submitted. A write returning false or failing is counted
+ * and logged, and reported by {@link #checkFailures()}. A communication
+ * failure is thrown again by the next submission, as LSC stops the task on
+ * such failures. Closing waits for the
+ * pending modifications up to the flush timeout, then drops the remaining
+ * ones, logging their keys.
+ */
+public class WriteBehindQueue implements WriteBehindQueueMXBean, Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+	private final WriteBehindSettings settings;
+	private final KeyOrderedExecutor executor;
+	private final Semaphore room;
+	private final AtomicReference<LscServiceCommunicationException> communicationFailure = new AtomicReference<>();
+
+	private int pending;
+	private boolean closed;
+	private long reportedFailures;
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder blockedSubmissions = new LongAdder();
+
+	public WriteBehindQueue(WriteBehindSettings settings, String name) {
+		this(settings, new KeyOrderedExecutor(new KeyOrderingSettings(settings.getWriters(), settings.getCapacity(),
+			KeyOrderingSettings.DEFAULT_MAX_BURST), name + "-writer"));
+	}
+
+	/**
+	 * @param executor writes the modifications, closed with the queue
+	 */
+	public WriteBehindQueue(WriteBehindSettings settings, KeyOrderedExecutor executor) {
+		this.settings = settings;
+		this.executor = executor;
+		this.room = new Semaphore(settings.getCapacity());
+	}
+
+	/**
+	 * Queues a modification, waiting for room in the queue when full.
+	 *
+	 * @param write writes the modification, telling whether it was written
+	 *
+	 * @throws LscServiceCommunicationException when a previous write failed to reach James
+	 */
+	public void submit(String key, Callable<Boolean> write) throws LscServiceException {
+		LscServiceCommunicationException failure = communicationFailure.get();
+		if (failure != null) {
+			throw new LscServiceCommunicationException(failure);
+		}
+		if (!room.tryAcquire()) {
+			blockedSubmissions.increment();
+			try {
+				room.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new LscServiceException(e);
+			}
+		}
+		synchronized (this) {
+			if (closed) {
+				room.release();
+				throw new IllegalStateException("The write-behind queue is closed");
+			}
+			pending++;
+		}
+		try {
+			executor.execute(key, () -> write(key, write));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			done();
+			throw new LscServiceException(e);
+		} catch (IllegalStateException e) {
+			done();
+			throw e;
+		}
+		submitted.increment();
+	}
+
+	/**
+	 * Waits for all the modifications submitted so far to be written, up to the flush timeout.
+	 *
+	 * @return false when some are still pending after the timeout
+	 */
+	public boolean flush() throws InterruptedException {
+		return flush(settings.getFlushTimeout(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Waits for all the modifications submitted so far to be written.
+	 *
+	 * @return false when some are still pending after the timeout
+	 */
+	public synchronized boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (pending > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Reports the writes failed since the previous call, so that they are not
+	 * only logged.
+	 *
+	 * @throws LscServiceCommunicationException when some failed, one of them to reach James
+	 * @throws LscServiceException when some failed
+	 */
+	public void checkFailures() throws LscServiceException {
+		long failures;
+		synchronized (this) {
+			failures = failed.sum() - reportedFailures;
+			reportedFailures += failures;
+		}
+		if (failures == 0) {
+			return;
+		}
+		String message = failures + " background James writes failed";
+		LscServiceCommunicationException failure = communicationFailure.get();
+		if (failure != null) {
+			throw new LscServiceCommunicationException(message, failure);
+		}
+		throw new LscServiceException(message);
+	}
+
+	private void write(String key, Callable<Boolean> write) {
+		boolean success = false;
+		try {
+			success = write.call();
+		} catch (LscServiceCommunicationException e) {
+			communicationFailure.compareAndSet(null, e);
+			LOGGER.error("Communication failure while writing {} in the background: {}", key, e.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted while writing {} in the background", key);
+		} catch (Exception e) {
+			LOGGER.error("Error while writing {} in the background: {}", key, e.toString());
+			LOGGER.debug(e.toString(), e);
+		} finally {
+			if (success) {
+				written.increment();
+			} else {
+				failed.increment();
+				LOGGER.error("The background write of {} failed", key);
+			}
+			done();
+		}
+	}
+
+	private void done() {
+		room.release();
+		synchronized (this) {
+			pending--;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for the pending modifications up to the flush timeout, then stops
+	 * the writers. The modifications still queued are dropped.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		boolean flushed;
+		try {
+			flushed = flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			flushed = false;
+		}
+		if (!flushed) {
+			for (String key : executor.drain()) {
+				LOGGER.error("The background write of {} was dropped, still pending after {} ms", key, settings.getFlushTimeout());
+				done();
+			}
+		}
+		executor.close();
+		if (failed.sum() > 0) {
+			LOGGER.error("{} of {} background James writes failed", failed.sum(), submitted.sum());
+		}
+	}
+
+	@Override
+	public synchronized int getPending() {
+		return pending;
+	}
+
+	@Override
+	public int getCapacity() {
+		return settings.getCapacity();
+	}
+
+	@Override
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	@Override
+	public long getWritten() {
+		return written.sum();
+	}
+
+	@Override
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	@Override
+	public long getBlockedSubmissions() {
+		return blockedSubmissions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("submitted", getSubmitted())
+			.add("written", getWritten())
+			.add("failed", getFailed())
+			.add("pending", getPending())
+			.add("blockedSubmissions", getBlockedSubmissions())
+			.toString();
+	}
+}
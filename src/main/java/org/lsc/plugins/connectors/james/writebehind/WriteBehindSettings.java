@@ -0,0 +1,107 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.writebehind;
+
+import java.util.Optional;
+
+import org.lsc.plugins.connectors.james.generated.WriteBehindType;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of a {@link WriteBehindQueue}, with the defaults of
+ * lsc-james0-plugin-1.0.xsd applied to the unset values.
+ */
+public final class WriteBehindSettings {
+
+	public static final int DEFAULT_CAPACITY = 1000;
+	public static final int DEFAULT_WRITERS = 8;
+	public static final long DEFAULT_FLUSH_TIMEOUT = 600000;
+
+	private final int capacity;
+	private final int writers;
+	private final long flushTimeout;
+
+	public WriteBehindSettings(int capacity, int writers, long flushTimeout) {
+		Preconditions.checkArgument(capacity >= 1, "capacity must be at least 1, got %s", capacity);
+		Preconditions.checkArgument(writers >= 1, "writers must be at least 1, got %s", writers);
+		Preconditions.checkArgument(flushTimeout >= 0, "flushTimeout must not be negative, got %s", flushTimeout);
+		this.capacity = capacity;
+		this.writers = writers;
+		this.flushTimeout = flushTimeout;
+	}
+
+	public static WriteBehindSettings from(WriteBehindType configuration) {
+		return new WriteBehindSettings(
+				Optional.ofNullable(configuration.getCapacity()).orElse(DEFAULT_CAPACITY),
+				Optional.ofNullable(configuration.getWriters()).orElse(DEFAULT_WRITERS),
+				Optional.ofNullable(configuration.getFlushTimeout()).orElse(DEFAULT_FLUSH_TIMEOUT));
+	}
+
+	/**
+	 * @return the number of modifications waiting or being written above which submitting blocks
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getWriters() {
+		return writers;
+	}
+
+	/**
+	 * @return the time waited for the pending modifications when closing, in milliseconds
+	 */
+	public long getFlushTimeout() {
+		return flushTimeout;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+			.add("capacity", capacity)
+			.add("writers", writers)
+			.add("flushTimeout", flushTimeout)
+			.toString();
+	}
+}
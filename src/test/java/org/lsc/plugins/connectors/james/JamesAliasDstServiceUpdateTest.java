@@ -0,0 +1,311 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.IBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType.Connection;
+import org.lsc.configuration.TaskType;
+import org.lsc.exception.LscServiceCommunicationException;
+import org.lsc.plugins.connectors.james.generated.CoalescingType;
+import org.lsc.plugins.connectors.james.generated.DestinationSnapshotType;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.KeyOrderingType;
+import org.lsc.plugins.connectors.james.generated.WriteBehindType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Checks the requests the updates of {@link JamesAliasDstService} send,
+ * against a stub of James webadmin.
+ */
+public class JamesAliasDstServiceUpdateTest {
+	private static final String EMAIL = "user@james.org";
+
+	private final Set<String> sources = ConcurrentHashMap.newKeySet();
+	private JamesWebadminStub webadmin;
+	private JamesAliasService service;
+	private TaskType task;
+	private JamesAliasDstService testee;
+
+	@BeforeEach
+	void setup() throws Exception {
+		sources.addAll(ImmutableList.of("alias1@james.org", "alias2@james.org"));
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases/" + EMAIL, exchange -> {
+				String[] path = exchange.getRequestURI().getPath().split("/");
+				switch (exchange.getRequestMethod()) {
+				case "GET":
+					JamesWebadminStub.respond(exchange, 200, sources.stream()
+						.map(source -> "{\"source\":\"" + source + "\"}")
+						.collect(Collectors.joining(",", "[", "]")));
+					break;
+				case "PUT":
+					sources.add(path[5]);
+					JamesWebadminStub.respond(exchange, 204, "");
+					break;
+				default:
+					sources.remove(path[5]);
+					JamesWebadminStub.respond(exchange, 204, "");
+				}
+			});
+		service = mock(JamesAliasService.class);
+		PluginDestinationServiceType pluginDestinationService = mock(PluginDestinationServiceType.class);
+		PluginConnectionType jamesConnection = mock(PluginConnectionType.class);
+		Connection connection = mock(Connection.class);
+		task = mock(TaskType.class);
+		when(jamesConnection.getUrl()).thenReturn(webadmin.getUrl());
+		when(jamesConnection.getPassword()).thenReturn("token");
+		when(connection.getReference()).thenReturn(jamesConnection);
+		when(service.getConnection()).thenReturn(connection);
+		when(task.getBean()).thenReturn("org.lsc.beans.SimpleBean");
+		when(task.getPluginDestinationService()).thenReturn(pluginDestinationService);
+		when(pluginDestinationService.getAny()).thenReturn(ImmutableList.of(service));
+		testee = new JamesAliasDstService(task);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		testee.close();
+		webadmin.close();
+	}
+
+	private void getBean() throws Exception {
+		testee.getBean("email", new LscDatasets(ImmutableMap.of("email", EMAIL)), true);
+	}
+
+	private boolean apply(LscDatasetModificationType operation, String... values) throws Exception {
+		LscModifications modifications = new LscModifications(LscModificationType.UPDATE_OBJECT);
+		modifications.setMainIdentifer(EMAIL);
+		modifications.setLscAttributeModifications(ImmutableList.of(
+			new LscDatasetModification(operation, "sources", ImmutableList.copyOf(values))));
+		return testee.apply(modifications);
+	}
+
+	private List<String> requests() {
+		return webadmin.getRequests().stream()
+			.map(request -> request.method + " " + request.path.substring(("/address/aliases/" + EMAIL).length()))
+			.collect(Collectors.toList());
+	}
+
+	@Test
+	void replacedValuesShouldBeComparedToTheBeanRead() throws Exception {
+		getBean();
+
+		assertThat(apply(LscDatasetModificationType.REPLACE_VALUES, "alias1@james.org", "alias3@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly("GET ",
+			"DELETE /sources/alias2@james.org",
+			"PUT /sources/alias3@james.org");
+		assertThat(sources).containsOnly("alias1@james.org", "alias3@james.org");
+	}
+
+	@Test
+	void addedAndDeletedValuesShouldBeWrittenAsTheyAre() throws Exception {
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+		assertThat(apply(LscDatasetModificationType.DELETE_VALUES, "alias1@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly(
+			"PUT /sources/alias3@james.org",
+			"DELETE /sources/alias1@james.org");
+		assertThat(sources).containsOnly("alias2@james.org", "alias3@james.org");
+	}
+
+	@Test
+	void deletingNoValueShouldRemoveAllTheAliases() throws Exception {
+		getBean();
+
+		assertThat(apply(LscDatasetModificationType.DELETE_VALUES)).isTrue();
+
+		assertThat(requests()).containsExactlyInAnyOrder("GET ",
+			"DELETE /sources/alias1@james.org",
+			"DELETE /sources/alias2@james.org");
+		assertThat(sources).isEmpty();
+	}
+
+	@Test
+	void replacedValuesShouldBeReadAgainWhenNoBeanWasRead() throws Exception {
+		assertThat(apply(LscDatasetModificationType.REPLACE_VALUES, "alias1@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly("GET ", "DELETE /sources/alias2@james.org");
+	}
+
+	@Test
+	void theBeanReadShouldOnlyBeUsedOnce() throws Exception {
+		getBean();
+		apply(LscDatasetModificationType.REPLACE_VALUES, "alias1@james.org");
+		sources.add("alias2@james.org");
+
+		assertThat(apply(LscDatasetModificationType.REPLACE_VALUES, "alias1@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly("GET ", "DELETE /sources/alias2@james.org",
+			"GET ", "DELETE /sources/alias2@james.org");
+	}
+
+	@Test
+	void replacedValuesShouldBeReadAgainWhenAskedTo() throws Exception {
+		when(service.isRereadAliasesOnUpdate()).thenReturn(true);
+		testee.close();
+		testee = new JamesAliasDstService(task);
+
+		getBean();
+		assertThat(apply(LscDatasetModificationType.REPLACE_VALUES, "alias1@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly("GET ", "GET ", "DELETE /sources/alias2@james.org");
+	}
+
+	@Test
+	void writesBehindShouldBeAppliedInOrderOnceClosed() throws Exception {
+		when(service.getWriteBehind()).thenReturn(new WriteBehindType());
+		testee.close();
+		testee = new JamesAliasDstService(task);
+
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+		assertThat(apply(LscDatasetModificationType.DELETE_VALUES, "alias3@james.org")).isTrue();
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias4@james.org")).isTrue();
+		testee.close();
+
+		assertThat(requests()).containsExactly(
+			"PUT /sources/alias3@james.org",
+			"DELETE /sources/alias3@james.org",
+			"PUT /sources/alias4@james.org");
+		assertThat(sources).containsOnly("alias1@james.org", "alias2@james.org", "alias4@james.org");
+	}
+
+	@Test
+	void failuresToReachJamesInTheBackgroundShouldBeReported() throws Exception {
+		webadmin.handle("/address/aliases/" + EMAIL + "/sources", HttpExchange::close);
+		when(service.getWriteBehind()).thenReturn(new WriteBehindType());
+		testee.close();
+		testee = new JamesAliasDstService(task);
+
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+
+		assertThatThrownBy(() -> testee.getListPivots())
+			.isInstanceOf(LscServiceCommunicationException.class)
+			.hasMessage("1 background James writes failed");
+		assertThatThrownBy(() -> apply(LscDatasetModificationType.ADD_VALUES, "alias4@james.org"))
+			.isInstanceOf(LscServiceCommunicationException.class);
+	}
+
+	@Test
+	void orderedWritesShouldBeAppliedBeforeApplyReturns() throws Exception {
+		when(service.getKeyOrdering()).thenReturn(new KeyOrderingType());
+		testee.close();
+		testee = new JamesAliasDstService(task);
+
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+		assertThat(requests()).containsExactly("PUT /sources/alias3@james.org");
+		assertThat(apply(LscDatasetModificationType.DELETE_VALUES, "alias3@james.org")).isTrue();
+
+		assertThat(requests()).containsExactly(
+			"PUT /sources/alias3@james.org",
+			"DELETE /sources/alias3@james.org");
+		assertThat(sources).containsOnly("alias1@james.org", "alias2@james.org");
+	}
+
+	@Test
+	void coalescedModificationsShouldBeWrittenAsOneNetChange() throws Exception {
+		CoalescingType coalescing = new CoalescingType();
+		coalescing.setWindow(3_600_000L);
+		when(service.getCoalescing()).thenReturn(coalescing);
+		testee.close();
+		testee = new JamesAliasDstService(task);
+
+		getBean();
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+		assertThat(apply(LscDatasetModificationType.DELETE_VALUES, "alias3@james.org", "alias1@james.org")).isTrue();
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias4@james.org")).isTrue();
+		testee.close();
+
+		assertThat(requests()).containsExactly("GET ",
+			"DELETE /sources/alias3@james.org",
+			"DELETE /sources/alias1@james.org",
+			"PUT /sources/alias4@james.org");
+		assertThat(sources).containsOnly("alias2@james.org", "alias4@james.org");
+	}
+
+	@Test
+	void theNextRunsShouldReadTheAliasesFromTheDestinationSnapshot(@TempDir Path directory) throws Exception {
+		webadmin.handle("/address/aliases", exchange -> JamesWebadminStub.respond(exchange, 200, "[\"" + EMAIL + "\"]"));
+		DestinationSnapshotType destinationSnapshot = new DestinationSnapshotType();
+		destinationSnapshot.setDirectory(directory.toString());
+		when(service.getDestinationSnapshot()).thenReturn(destinationSnapshot);
+		testee.close();
+		testee = new JamesAliasDstService(task);
+		getBean();
+		assertThat(apply(LscDatasetModificationType.ADD_VALUES, "alias3@james.org")).isTrue();
+		testee.close();
+		webadmin.getRequests().clear();
+
+		testee = new JamesAliasDstService(task);
+		IBean bean = testee.getBean("email", new LscDatasets(ImmutableMap.of("email", EMAIL)), true);
+
+		assertThat(bean.getDatasetById("sources"))
+			.containsExactly("alias1@james.org", "alias2@james.org", "alias3@james.org");
+		assertThat(webadmin.getRequests()).extracting(request -> request.method + " " + request.path)
+			.containsExactly("GET /address/aliases");
+	}
+}
@@ -0,0 +1,766 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.ServerErrorException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.BulkheadType;
+import org.lsc.plugins.connectors.james.generated.BulkheadsType;
+import org.lsc.plugins.connectors.james.generated.CircuitBreakerType;
+import org.lsc.plugins.connectors.james.generated.ConcurrencyLimitType;
+import org.lsc.plugins.connectors.james.generated.FailureJournalType;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.HedgingType;
+import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.generated.ListingCacheType;
+import org.lsc.plugins.connectors.james.generated.RateLimitType;
+import org.lsc.plugins.connectors.james.generated.RetryType;
+import org.lsc.plugins.connectors.james.journal.FailureJournal;
+import org.lsc.plugins.connectors.james.pivots.CompactPivotMap;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerOpenException;
+
+import com.google.common.collect.ImmutableList;
+
+public class JamesDaoTest {
+	private static final String TOKEN = "token";
+	private static final User USER = new User("user@james.org");
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger flakyAttempts = new AtomicInteger();
+
+	private JamesWebadminStub webadmin;
+	private JamesDao testee;
+
+	@BeforeEach
+	void setup() throws Exception {
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases/user@james.org", exchange -> JamesWebadminStub.respond(exchange, 200,
+				"[{\"source\":\"alias1@james.org\"},{\"source\":\"alias2@james.org\"}]"))
+			.handle("/address/aliases/unknown@james.org", exchange -> JamesWebadminStub.respond(exchange, 200, "[]"))
+			.handle("/address/aliases/slow@james.org", exchange -> {
+				try {
+					Thread.sleep(2000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				JamesWebadminStub.respond(exchange, 200, "[{\"source\":\"slow@james.org\"}]");
+			})
+			.handle("/address/aliases/broken@james.org", exchange -> JamesWebadminStub.respond(exchange, 500, "{}"))
+			.handle("/address/aliases/verbose@james.org", exchange -> JamesWebadminStub.respond(exchange,
+				exchange.getRequestMethod().equals("PUT") ? 200 : 400, "x".repeat(64 * 1024)))
+			.handle("/address/aliases/parallel@james.org", exchange -> {
+				if (exchange.getRequestMethod().equals("GET")) {
+					JamesWebadminStub.respond(exchange, 200,
+						"[{\"source\":\"alias1@james.org\"},{\"source\":\"alias2@james.org\"},{\"source\":\"alias3@james.org\"}]");
+					return;
+				}
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				if (exchange.getRequestURI().getPath().endsWith("/failing@james.org")) {
+					JamesWebadminStub.respond(exchange, 400, "{}");
+				} else {
+					JamesWebadminStub.respond(exchange, 204, "");
+				}
+			})
+			.handle("/users/", exchange -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				JamesWebadminStub.respond(exchange, 200, "");
+			})
+			.handle("/users/flaky@james.org", exchange -> {
+				if (flakyAttempts.incrementAndGet() < 3) {
+					JamesWebadminStub.respond(exchange, 503, "");
+				} else {
+					JamesWebadminStub.respond(exchange, 200, "");
+				}
+			})
+			.handle("/users", exchange -> JamesWebadminStub.respond(exchange, 200,
+				"[{\"username\":\"user1@james.org\"},{\"username\":\"user2@james.org\"}]"));
+		testee = new JamesDao(webadmin.getUrl(), TOKEN, new JamesAliasService());
+	}
+
+	@AfterEach
+	void tearDown() {
+		testee.close();
+		webadmin.close();
+	}
+
+	@Test
+	void getAliasesAsyncShouldCompleteWithTheAliases() {
+		assertThat(testee.getAliasesAsync(USER.email).join())
+			.containsExactly(new Alias("alias1@james.org"), new Alias("alias2@james.org"));
+	}
+
+	@Test
+	void getAliasesAsyncShouldFailWithNotFoundWhenNoAlias() {
+		assertThatThrownBy(() -> testee.getAliasesAsync("unknown@james.org").join())
+			.isInstanceOf(CompletionException.class)
+			.hasCauseInstanceOf(NotFoundException.class);
+	}
+
+	@Test
+	void getAliasesShouldRethrowTheFailureOfTheAsyncCall() {
+		assertThatThrownBy(() -> testee.getAliases("broken@james.org"))
+			.isInstanceOf(ServerErrorException.class);
+	}
+
+	@Test
+	void blockingCallsShouldRethrowConnectionFailures() {
+		JamesDao unreachable = new JamesDao("http://localhost:1", TOKEN, new JamesAliasService());
+		try {
+			assertThatThrownBy(() -> unreachable.userExists(USER.email))
+				.isInstanceOf(ProcessingException.class);
+		} finally {
+			unreachable.close();
+		}
+	}
+
+	@Test
+	void getUserListAsyncShouldCompleteWithTheUsers() {
+		assertThat(testee.getUserListAsync().join())
+			.extracting(user -> user.email)
+			.containsExactly("user1@james.org", "user2@james.org");
+	}
+
+	@Test
+	void forEachUserShouldStreamTheUsernames() throws Exception {
+		try (JamesWebadminStub users = new JamesWebadminStub()
+				.handle("/users", exchange -> JamesWebadminStub.respond(exchange, 200,
+					"[{\"username\":\"user1@james.org\",\"extra\":{\"nested\":[1,2]}},{\"other\":1},\"junk\",{\"username\":\"user2@james.org\"}]"));
+				JamesDao dao = new JamesDao(users.getUrl(), TOKEN, new JamesAliasService())) {
+			List<String> usernames = new ArrayList<>();
+
+			assertThat(dao.forEachUser(usernames::add)).isEqualTo(2);
+			assertThat(usernames).containsExactly("user1@james.org", "user2@james.org");
+		}
+	}
+
+	@Test
+	void forEachUserViaAliasShouldStreamTheEmails() throws Exception {
+		try (JamesWebadminStub aliases = new JamesWebadminStub()
+				.handle("/address/aliases", exchange -> JamesWebadminStub.respond(exchange, 200,
+					"[\"user1@james.org\",null,\"user2@james.org\"]"));
+				JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, new JamesAliasService())) {
+			assertThat(dao.getUsersListViaAlias())
+				.extracting(user -> user.email)
+				.containsExactly("user1@james.org", "user2@james.org");
+		}
+	}
+
+	@Test
+	void forEachUserShouldFailOnATruncatedResponse() throws Exception {
+		try (JamesWebadminStub users = new JamesWebadminStub()
+				.handle("/users", exchange -> JamesWebadminStub.respond(exchange, 200, "[{\"username\":\"user1@james.org\"},"));
+				JamesDao dao = new JamesDao(users.getUrl(), TOKEN, new JamesAliasService())) {
+			assertThatThrownBy(() -> dao.forEachUser(username -> { }))
+				.isInstanceOf(ProcessingException.class);
+		}
+	}
+
+	@Test
+	void listingThePivotsShouldHoldOneCompactCopyOfTheUsers() throws Exception {
+		int userCount = 1_000_000;
+		try (JamesWebadminStub users = new JamesWebadminStub()
+				.handle("/users", exchange -> {
+					exchange.getResponseHeaders().set("Content-Type", "application/json");
+					exchange.sendResponseHeaders(200, 0);
+					try (Writer body = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+						body.write('[');
+						for (int i = 0; i < userCount; i++) {
+							body.write((i == 0 ? "" : ",") + "{\"username\":\"user" + i + "@james.org\"}");
+						}
+						body.write(']');
+					}
+				});
+				JamesDao dao = new JamesDao(users.getUrl(), TOKEN, new JamesAliasService())) {
+			// As getListPivots does, sampling the live heap once the last user is listed
+			CompactPivotMap.Builder listPivots = CompactPivotMap.builder();
+			AtomicInteger consumed = new AtomicInteger();
+			long before = liveHeapBytes();
+			long[] listed = new long[1];
+
+			long count = dao.forEachUser(username -> {
+				listPivots.accept(username);
+				if (consumed.incrementAndGet() == userCount) {
+					listed[0] = liveHeapBytes() - before;
+				}
+			});
+			CompactPivotMap pivots = listPivots.build();
+			long built = liveHeapBytes() - before;
+
+			assertThat(count).isEqualTo(userCount);
+			assertThat(pivots).hasSize(userCount);
+			// The local parts take about 40 bytes per user while listed and 15 once
+			// built, while a List<UserDto> or the whole response body held during
+			// the listing takes above 70, and a HashMap of LscDatasets above 250
+			assertThat(listed[0] / userCount).isLessThan(64);
+			assertThat(built / userCount).isLessThan(24);
+			assertThat(listPivots.retainedBytes()).isZero();
+		}
+	}
+
+	/** The heap used after a full collection, as the VM runs one on System.gc() by default. */
+	private static long liveHeapBytes() {
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@Test
+	void asyncCallsShouldOverlap() {
+		List<CompletableFuture<Boolean>> futures = IntStream.range(0, 5)
+			.mapToObj(i -> testee.userExistsAsync("user" + i + "@james.org"))
+			.collect(Collectors.toList());
+
+		assertThat(futures).allMatch(CompletableFuture::join);
+		assertThat(maxInFlight.get()).isGreaterThan(1);
+	}
+
+	@Test
+	void createAliasesAsyncShouldCompose() {
+		CompletableFuture<Boolean> result = testee.createAliasesAsync(USER, ImmutableList.of(new Alias("alias3@james.org")))
+			.thenCompose(created -> testee.removeAliasesAsync(USER, ImmutableList.of(new Alias("alias3@james.org"))));
+
+		assertThat(result.join()).isTrue();
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.method)
+			.containsExactly("PUT", "DELETE");
+	}
+
+	@Test
+	void createAliasesShouldStopAtTheFirstFailureByDefault() {
+		User user = new User("parallel@james.org");
+
+		assertThat(testee.createAliases(user, ImmutableList.of(new Alias("failing@james.org"), new Alias("alias4@james.org")))).isFalse();
+		assertThat(webadmin.getRequests()).hasSize(1);
+	}
+
+	@Test
+	void writeAliasesShouldTellTheOutcomeOfEachAlias() {
+		User user = new User("parallel@james.org");
+
+		AliasWriteResult result = testee.writeAliases(user, AliasWriteResult.Operation.CREATE, ImmutableList.of(
+			new Alias("alias4@james.org"), new Alias("failing@james.org"), new Alias("alias5@james.org")));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.getItems())
+			.extracting(item -> item.getAlias().source + " " + item.getStatus() + " " + item.getError())
+			.containsExactly(
+				"alias4@james.org WRITTEN null",
+				"failing@james.org FAILED 400 Bad Request",
+				"alias5@james.org NOT_ATTEMPTED null");
+	}
+
+	@Test
+	void createAliasesShouldWriteConcurrentlyUpToTheConfiguredCap() {
+		User user = new User("parallel@james.org");
+		List<Alias> aliases = IntStream.range(0, 6)
+			.mapToObj(i -> new Alias("alias" + i + "@james.org"))
+			.collect(Collectors.toList());
+
+		try (JamesDao parallel = new JamesDao(webadmin.getUrl(), TOKEN, withAliasWriteConcurrency(3))) {
+			assertThat(parallel.createAliases(user, aliases)).isTrue();
+		}
+
+		assertThat(webadmin.getRequests()).hasSize(6);
+		assertThat(maxInFlight.get()).isBetween(2, 3);
+	}
+
+	@Test
+	void concurrentAliasWritesShouldAllBeAttemptedDespiteFailures() {
+		User user = new User("parallel@james.org");
+
+		try (JamesDao parallel = new JamesDao(webadmin.getUrl(), TOKEN, withAliasWriteConcurrency(4))) {
+			assertThat(parallel.createAliases(user, ImmutableList.of(
+				new Alias("failing@james.org"), new Alias("alias4@james.org"), new Alias("alias5@james.org")))).isFalse();
+		}
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.method + " " + request.path)
+			.containsExactlyInAnyOrder(
+				"PUT /address/aliases/parallel@james.org/sources/failing@james.org",
+				"PUT /address/aliases/parallel@james.org/sources/alias4@james.org",
+				"PUT /address/aliases/parallel@james.org/sources/alias5@james.org");
+	}
+
+	@Test
+	void deleteAliasShouldRemoveAllAliasesConcurrently() {
+		User user = new User("parallel@james.org");
+
+		try (JamesDao parallel = new JamesDao(webadmin.getUrl(), TOKEN, withAliasWriteConcurrency(4))) {
+			assertThat(parallel.deleteAlias(user)).isTrue();
+		}
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.method)
+			.containsExactly("GET", "DELETE", "DELETE", "DELETE");
+		assertThat(maxInFlight.get()).isGreaterThan(1);
+	}
+
+	@Test
+	void updateAliasesShouldShareTheCapBetweenRemovalsAndCreations() {
+		User user = new User("parallel@james.org");
+
+		try (JamesDao parallel = new JamesDao(webadmin.getUrl(), TOKEN, withAliasWriteConcurrency(2))) {
+			assertThat(parallel.updateAliases(user, ImmutableList.of(
+				new Alias("alias1@james.org"), new Alias("alias4@james.org"), new Alias("alias5@james.org")))).isTrue();
+		}
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.method + " " + request.path)
+			.containsExactlyInAnyOrder(
+				"GET /address/aliases/parallel@james.org",
+				"DELETE /address/aliases/parallel@james.org/sources/alias2@james.org",
+				"DELETE /address/aliases/parallel@james.org/sources/alias3@james.org",
+				"PUT /address/aliases/parallel@james.org/sources/alias4@james.org",
+				"PUT /address/aliases/parallel@james.org/sources/alias5@james.org");
+		assertThat(maxInFlight.get()).isEqualTo(2);
+	}
+
+	@Test
+	void overloadedResponsesShouldDecreaseTheConcurrencyLimit() {
+		JamesService service = new JamesAliasService();
+		ConcurrencyLimitType concurrencyLimit = new ConcurrencyLimitType();
+		concurrencyLimit.setInitialLimit(10);
+		service.setConcurrencyLimit(concurrencyLimit);
+
+		try (JamesDao limited = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			assertThatThrownBy(() -> limited.getAliases("broken@james.org")).isInstanceOf(ServerErrorException.class);
+
+			assertThat(limited.getConcurrencyLimiter()).hasValueSatisfying(limiter -> {
+				assertThat(limiter.getLimit()).isEqualTo(9);
+				assertThat(limiter.getOverloadSignals()).isEqualTo(1);
+				assertThat(limiter.getInFlight()).isZero();
+			});
+		}
+	}
+
+	@Test
+	void concurrencyLimiterShouldBeDisabledByDefault() {
+		assertThat(testee.getConcurrencyLimiter()).isEmpty();
+	}
+
+	@Test
+	void transientErrorsShouldBeRetriedWhenConfigured() {
+		JamesService service = new JamesAliasService();
+		RetryType retry = new RetryType();
+		retry.setInitialBackoff(10L);
+		service.setRetry(retry);
+
+		try (JamesDao retrying = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			assertThat(retrying.userExists("flaky@james.org")).isTrue();
+
+			assertThat(retrying.getRetryPolicy()).hasValueSatisfying(policy -> {
+				assertThat(policy.getRetries()).isEqualTo(2);
+				assertThat(policy.getRecoveredRequests()).isEqualTo(1);
+			});
+		}
+		assertThat(flakyAttempts).hasValue(3);
+	}
+
+	@Test
+	void transientErrorsShouldNotBeRetriedByDefault() {
+		assertThatThrownBy(() -> testee.userExists("flaky@james.org")).isInstanceOf(JamesClientException.class);
+		assertThat(flakyAttempts).hasValue(1);
+	}
+
+	@Test
+	void openCircuitShouldFailFastWithoutReachingJames() {
+		JamesService service = new JamesAliasService();
+		CircuitBreakerType circuitBreaker = new CircuitBreakerType();
+		circuitBreaker.setMinimumCalls(2);
+		circuitBreaker.setWindowSize(2);
+		service.setCircuitBreaker(circuitBreaker);
+
+		try (JamesDao guarded = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			assertThatThrownBy(() -> guarded.getAliases("broken@james.org")).isInstanceOf(ServerErrorException.class);
+			assertThatThrownBy(() -> guarded.getAliases("broken@james.org")).isInstanceOf(ServerErrorException.class);
+
+			assertThatThrownBy(() -> guarded.getAliases(USER.email)).isInstanceOf(CircuitBreakerOpenException.class);
+			assertThat(guarded.getCircuitBreaker()).hasValueSatisfying(breaker ->
+				assertThat(breaker.getRejectedCalls()).isEqualTo(1));
+		}
+		assertThat(webadmin.getRequests()).hasSize(2);
+	}
+
+	@Test
+	void openCircuitShouldFailConcurrentAliasWrites() {
+		JamesService service = withAliasWriteConcurrency(2);
+		CircuitBreakerType circuitBreaker = new CircuitBreakerType();
+		circuitBreaker.setMinimumCalls(1);
+		circuitBreaker.setWindowSize(1);
+		service.setCircuitBreaker(circuitBreaker);
+
+		try (JamesDao guarded = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			assertThatThrownBy(() -> guarded.getAliases("broken@james.org")).isInstanceOf(ServerErrorException.class);
+
+			assertThatThrownBy(() -> guarded.createAliases(new User("parallel@james.org"),
+					ImmutableList.of(new Alias("alias4@james.org"), new Alias("alias5@james.org"))))
+				.isInstanceOf(CircuitBreakerOpenException.class);
+		}
+	}
+
+	@Test
+	void writesShouldBeThrottledByTheirOwnRate() {
+		JamesService service = new JamesAliasService();
+		RateLimitType rateLimit = new RateLimitType();
+		rateLimit.setWritesPerSecond(10.0);
+		rateLimit.setBurst(1);
+		service.setRateLimit(rateLimit);
+
+		try (JamesDao throttled = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			long start = System.nanoTime();
+			assertThat(throttled.createAliases(USER, ImmutableList.of(
+				new Alias("alias3@james.org"), new Alias("alias4@james.org"), new Alias("alias5@james.org")))).isTrue();
+			assertThat(throttled.getAliases(USER.email)).hasSize(2);
+
+			assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+			assertThat(throttled.getRateLimiter()).hasValueSatisfying(limiter -> {
+				assertThat(limiter.getThrottledWrites()).isEqualTo(2);
+				assertThat(limiter.getThrottledReads()).isZero();
+			});
+		}
+	}
+
+	@Test
+	void slowReadsShouldBeHedgedToTheOtherEndpoint() throws Exception {
+		JamesService service = new JamesAliasService();
+		HedgingType hedging = new HedgingType();
+		hedging.setMinSamples(1);
+		hedging.setMaxHedgeRatio(1.0);
+		try (JamesWebadminStub otherWebadmin = new JamesWebadminStub()
+				.handle("/address/aliases/slow@james.org", exchange -> JamesWebadminStub.respond(exchange, 200,
+					"[{\"source\":\"hedged@james.org\"}]"))) {
+			hedging.setEndpoint(otherWebadmin.getUrl());
+			service.setHedging(hedging);
+
+			try (JamesDao hedged = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+				hedged.getAliases(USER.email);
+
+				long start = System.nanoTime();
+				assertThat(hedged.getAliases("slow@james.org")).containsExactly(new Alias("hedged@james.org"));
+
+				assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+				assertThat(hedged.getHedgingPolicy()).hasValueSatisfying(policy ->
+					assertThat(policy.getHedgeWins()).isEqualTo(1));
+			}
+			assertThat(otherWebadmin.getRequests())
+				.extracting(request -> request.method + " " + request.path)
+				.containsExactly("GET /address/aliases/slow@james.org");
+		}
+	}
+
+	@Test
+	void readsShouldNotWaitForTheWritesWithBulkheads() {
+		BulkheadType write = new BulkheadType();
+		write.setMaxConcurrent(1);
+		BulkheadsType bulkheads = new BulkheadsType();
+		bulkheads.setWrite(write);
+		JamesService service = new JamesAliasService();
+		service.setBulkheads(bulkheads);
+
+		try (JamesDao isolated = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			User slow = new User("slow@james.org");
+			for (int i = 0; i < 3; i++) {
+				isolated.createAliasesAsync(slow, ImmutableList.of(new Alias("alias" + i + "@james.org")));
+			}
+
+			long start = System.nanoTime();
+			assertThat(isolated.getAliases(USER.email)).hasSize(2);
+
+			assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+			assertThat(isolated.getWriteBulkhead()).hasValueSatisfying(bulkhead -> {
+				assertThat(bulkhead.getInFlight()).isEqualTo(1);
+				assertThat(bulkhead.getQueueLength()).isEqualTo(2);
+				assertThat(bulkhead.getUtilization()).isEqualTo(1.0);
+			});
+			assertThat(isolated.getReadBulkhead()).hasValueSatisfying(bulkhead ->
+				assertThat(bulkhead.getRequests()).isEqualTo(1));
+		}
+	}
+
+	@Test
+	void requestsShouldFailAfterTheTimeoutOfTheirBulkhead() {
+		BulkheadType read = new BulkheadType();
+		read.setTimeout(200L);
+		BulkheadsType bulkheads = new BulkheadsType();
+		bulkheads.setRead(read);
+		JamesService service = new JamesAliasService();
+		service.setBulkheads(bulkheads);
+
+		try (JamesDao isolated = new JamesDao(webadmin.getUrl(), TOKEN, service)) {
+			assertThatThrownBy(() -> isolated.getAliases("slow@james.org"))
+				.isInstanceOf(ProcessingException.class);
+
+			assertThat(isolated.getReadBulkhead()).hasValueSatisfying(bulkhead ->
+				assertThat(bulkhead.getTimeouts()).isEqualTo(1));
+			assertThat(isolated.getWriteBulkhead()).hasValueSatisfying(bulkhead ->
+				assertThat(bulkhead.getTimeouts()).isZero());
+		}
+	}
+
+	@Test
+	void successfulWritesShouldReleaseTheConnectionWithoutReadingTheBody() {
+		User verbose = new User("verbose@james.org");
+
+		assertThat(testee.createAliases(verbose, ImmutableList.of(new Alias("alias1@james.org")))).isTrue();
+		assertThat(testee.createAliases(verbose, ImmutableList.of(new Alias("alias2@james.org")))).isTrue();
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.remotePort)
+			.hasSize(2)
+			.containsOnly(webadmin.getRequests().get(0).remotePort);
+	}
+
+	@Test
+	void failedWritesShouldReadABoundedBodyAndReleaseTheConnection() {
+		User verbose = new User("verbose@james.org");
+
+		assertThat(testee.removeAliases(verbose, ImmutableList.of(new Alias("alias1@james.org")))).isFalse();
+		assertThat(testee.removeAliases(verbose, ImmutableList.of(new Alias("alias2@james.org")))).isFalse();
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.remotePort)
+			.hasSize(2)
+			.containsOnly(webadmin.getRequests().get(0).remotePort);
+	}
+
+	@Test
+	void unchangedListingsShouldBeReadFromTheStoredCopy(@TempDir Path directory) throws Exception {
+		AtomicReference<String> version = new AtomicReference<>("v1");
+		List<String> conditions = new CopyOnWriteArrayList<>();
+		try (JamesWebadminStub users = new JamesWebadminStub()
+				.handle("/users", exchange -> {
+					String entityTag = "\"" + version.get() + "\"";
+					conditions.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-None-Match")));
+					exchange.getResponseHeaders().set("ETag", entityTag);
+					if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+						JamesWebadminStub.respond(exchange, 304, "");
+					} else {
+						JamesWebadminStub.respond(exchange, 200, "[{\"username\":\"" + version.get() + "@james.org\"}]");
+					}
+				});
+				JamesDao dao = new JamesDao(users.getUrl(), TOKEN, withListingCache(directory))) {
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("v1@james.org");
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("v1@james.org");
+			version.set("v2");
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("v2@james.org");
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("v2@james.org");
+
+			assertThat(conditions).containsExactly("null", "\"v1\"", "\"v1\"", "\"v2\"");
+		}
+	}
+
+	@Test
+	void listingsShouldBeRequestedConditionallyOnTheirLastModificationDate(@TempDir Path directory) throws Exception {
+		String lastModified = "Wed, 21 Oct 2026 07:28:00 GMT";
+		AtomicInteger downloads = new AtomicInteger();
+		try (JamesWebadminStub aliases = new JamesWebadminStub()
+				.handle("/address/aliases", exchange -> {
+					exchange.getResponseHeaders().set("Last-Modified", lastModified);
+					if (lastModified.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+						JamesWebadminStub.respond(exchange, 304, "");
+					} else {
+						downloads.incrementAndGet();
+						JamesWebadminStub.respond(exchange, 200, "[\"user1@james.org\",\"user2@james.org\"]");
+					}
+				});
+				JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, withListingCache(directory))) {
+			for (int i = 0; i < 3; i++) {
+				assertThat(dao.getUsersListViaAlias())
+					.extracting(user -> user.email)
+					.containsExactly("user1@james.org", "user2@james.org");
+			}
+
+			assertThat(downloads).hasValue(1);
+		}
+	}
+
+	@Test
+	void listingsWithoutValidatorsShouldBeDownloadedEachTime(@TempDir Path directory) throws Exception {
+		List<String> conditions = new CopyOnWriteArrayList<>();
+		try (JamesWebadminStub users = new JamesWebadminStub()
+				.handle("/users", exchange -> {
+					conditions.add(exchange.getRequestHeaders().getFirst("If-None-Match")
+						+ " " + exchange.getRequestHeaders().getFirst("If-Modified-Since"));
+					JamesWebadminStub.respond(exchange, 200, "[{\"username\":\"user1@james.org\"}]");
+				});
+				JamesDao dao = new JamesDao(users.getUrl(), TOKEN, withListingCache(directory))) {
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("user1@james.org");
+			assertThat(dao.getUserList()).extracting(user -> user.email).containsExactly("user1@james.org");
+
+			assertThat(conditions).containsExactly("null null", "null null");
+			try (Stream<Path> stored = Files.list(directory)) {
+				assertThat(stored).isEmpty();
+			}
+		}
+	}
+
+	@Test
+	void replayShouldWriteAgainOnlyTheJournaledFailures(@TempDir Path directory) throws Exception {
+		AtomicBoolean down = new AtomicBoolean(true);
+		try (JamesWebadminStub aliases = new JamesWebadminStub()
+				.handle("/address/aliases/flapping@james.org", exchange -> JamesWebadminStub.respond(exchange,
+					down.get() && exchange.getRequestURI().getPath().endsWith("/failing@james.org") ? 500 : 204, ""))) {
+			JamesService service = withAliasWriteConcurrency(2);
+			FailureJournalType failureJournal = new FailureJournalType();
+			failureJournal.setDirectory(directory.toString());
+			service.setFailureJournal(failureJournal);
+			User user = new User("flapping@james.org");
+
+			try (JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, service)) {
+				assertThat(dao.createAliases(user, ImmutableList.of(new Alias("alias1@james.org"), new Alias("failing@james.org")))).isFalse();
+			}
+			down.set(false);
+			int sent = aliases.getRequests().size();
+
+			try (JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, service)) {
+				assertThat(dao.replayFailureJournal()).hasValueSatisfying(replay -> {
+					assertThat(replay.getWritten()).isEqualTo(1);
+					assertThat(replay.getFailed()).isZero();
+				});
+				assertThat(dao.replayFailureJournal()).map(FailureJournal.Replay::getWritten).hasValue(0);
+			}
+
+			assertThat(aliases.getRequests().subList(sent, aliases.getRequests().size()))
+				.extracting(request -> request.method + " " + request.path)
+				.containsExactly("PUT /address/aliases/flapping@james.org/sources/failing@james.org");
+		}
+	}
+
+	@Test
+	void aFailureToReachJamesShouldOnlyJournalTheAliasesNotWritten(@TempDir Path directory) throws Exception {
+		AtomicBoolean down = new AtomicBoolean(true);
+		try (JamesWebadminStub aliases = new JamesWebadminStub()
+				.handle("/address/aliases/flapping@james.org", exchange -> {
+					if (down.get() && exchange.getRequestURI().getPath().endsWith("/failing@james.org")) {
+						exchange.close();
+					} else {
+						JamesWebadminStub.respond(exchange, 204, "");
+					}
+				})) {
+			JamesService service = new JamesAliasService();
+			FailureJournalType failureJournal = new FailureJournalType();
+			failureJournal.setDirectory(directory.toString());
+			service.setFailureJournal(failureJournal);
+			User user = new User("flapping@james.org");
+
+			try (JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, service)) {
+				assertThatThrownBy(() -> dao.createAliases(user, ImmutableList.of(new Alias("alias1@james.org"),
+						new Alias("failing@james.org"), new Alias("alias3@james.org"))))
+					.isInstanceOf(ProcessingException.class);
+			}
+			down.set(false);
+			int sent = aliases.getRequests().size();
+
+			try (JamesDao dao = new JamesDao(aliases.getUrl(), TOKEN, service)) {
+				assertThat(dao.replayFailureJournal()).map(FailureJournal.Replay::getWritten).hasValue(2);
+			}
+
+			assertThat(aliases.getRequests().subList(sent, aliases.getRequests().size()))
+				.extracting(request -> request.method + " " + request.path)
+				.containsExactly("PUT /address/aliases/flapping@james.org/sources/failing@james.org",
+					"PUT /address/aliases/flapping@james.org/sources/alias3@james.org");
+		}
+	}
+
+	@Test
+	void replayShouldDoNothingWithoutFailureJournal() throws Exception {
+		assertThat(testee.replayFailureJournal()).isEmpty();
+	}
+
+	private static JamesService withListingCache(Path directory) {
+		JamesService service = new JamesAliasService();
+		ListingCacheType listingCache = new ListingCacheType();
+		listingCache.setDirectory(directory.toString());
+		service.setListingCache(listingCache);
+		return service;
+	}
+
+	private static JamesService withAliasWriteConcurrency(int concurrency) {
+		JamesService service = new JamesAliasService();
+		service.setAliasWriteConcurrency(concurrency);
+		return service;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.TransportType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compares the connectors of {@link JamesDao} on the createAlias/removeAlias
+ * path, against a local webadmin stub speaking HTTP/1.1 and h2c.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.lsc.plugins.connectors.james.TransportBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class TransportBenchmark {
+
+	private static final long WEBADMIN_LATENCY_MILLIS = 2;
+
+	/**
+	 * LEGACY is the unpooled HttpURLConnection connector JamesDao used to rely on.
+	 */
+	@Param({"LEGACY", "HTTP_1_1", "HTTP_2"})
+	public String connector;
+
+	private Server webadmin;
+	private JamesDao jamesDao;
+	private final AtomicInteger users = new AtomicInteger();
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		User user;
+		List<Alias> aliases;
+
+		@Setup(Level.Trial)
+		public void setup(TransportBenchmark benchmark) {
+			user = new User("user" + benchmark.users.incrementAndGet() + "@james.org");
+			aliases = ImmutableList.of(new Alias("alias-" + user.email));
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		webadmin = new Server();
+		HttpConfiguration configuration = new HttpConfiguration();
+		ServerConnector serverConnector = new ServerConnector(webadmin,
+			new HttpConnectionFactory(configuration), new HTTP2CServerConnectionFactory(configuration));
+		serverConnector.setPort(0);
+		webadmin.addConnector(serverConnector);
+		webadmin.setHandler(new Handler.Abstract() {
+			@Override
+			public boolean handle(Request request, Response response, Callback callback) {
+				request.getComponents().getScheduler().schedule(() -> {
+					response.setStatus(204);
+					callback.succeeded();
+				}, WEBADMIN_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+				return true;
+			}
+		});
+		webadmin.start();
+
+		String url = "http://localhost:" + serverConnector.getLocalPort();
+		JamesAliasService service = new JamesAliasService();
+		if (connector.equals("LEGACY")) {
+			Client client = ClientBuilder.newClient().register(JacksonFeature.class);
+			jamesDao = new JamesDao(client.target(url), "token", service, client::close);
+		} else {
+			service.setTransport(TransportType.valueOf(connector));
+			jamesDao = new JamesDao(url, "token", service);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		jamesDao.close();
+		webadmin.stop();
+	}
+
+	@Benchmark
+	public boolean createThenRemoveAlias(ThreadState state) {
+		return jamesDao.createAliases(state.user, state.aliases)
+			&& jamesDao.removeAliases(state.user, state.aliases);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(TransportBenchmark.class.getSimpleName())
+			.build())
+			.run();
+	}
+}
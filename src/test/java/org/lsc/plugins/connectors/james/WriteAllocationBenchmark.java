@@ -0,0 +1,177 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response.Status;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.http.ConnectionPoolSettings;
+import org.lsc.plugins.connectors.james.http.JamesClientRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Measures the allocations of a successful alias creation, with the body of
+ * the response closed unread by {@link JamesDao}, against the same request
+ * with the body decoded into a String as JamesDao used to do. Compare the
+ * {@code gc.alloc.rate.norm} columns, in bytes per write.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.lsc.plugins.connectors.james.WriteAllocationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteAllocationBenchmark {
+
+	private static final User USER = new User("user@james.org");
+	private static final List<Alias> ALIASES = ImmutableList.of(new Alias("alias@james.org"));
+
+	/**
+	 * Size of the body of the successful responses: James answers 204, but
+	 * proxies in front of it may not.
+	 */
+	@Param({"0", "256", "4096"})
+	public int bodyLength;
+
+	private Server webadmin;
+	private JamesClientRegistry.Lease lease;
+	private WebTarget aliases;
+	private JamesDao jamesDao;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		byte[] body = "x".repeat(bodyLength).getBytes();
+		webadmin = new Server();
+		ServerConnector serverConnector = new ServerConnector(webadmin);
+		serverConnector.setPort(0);
+		webadmin.addConnector(serverConnector);
+		webadmin.setHandler(new Handler.Abstract() {
+			@Override
+			public boolean handle(Request request, Response response, Callback callback) {
+				if (body.length == 0) {
+					response.setStatus(Status.NO_CONTENT.getStatusCode());
+					callback.succeeded();
+				} else {
+					response.setStatus(Status.OK.getStatusCode());
+					response.write(true, ByteBuffer.wrap(body), callback);
+				}
+				return true;
+			}
+		});
+		webadmin.start();
+
+		String url = "http://localhost:" + serverConnector.getLocalPort();
+		jamesDao = new JamesDao(url, "token", new JamesAliasService());
+		lease = JamesClientRegistry.getInstance().acquire(url, "token", ConnectionPoolSettings.DEFAULT);
+		aliases = lease.getClient().target(url).path(JamesDao.ALIASES_PATH);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		jamesDao.close();
+		lease.close();
+		webadmin.stop();
+	}
+
+	@Benchmark
+	public boolean createAlias() {
+		return jamesDao.createAliases(USER, ALIASES);
+	}
+
+	/**
+	 * The same write, reading the body of the response before checking its status.
+	 */
+	@Benchmark
+	public boolean createAliasBufferingTheBody() {
+		jakarta.ws.rs.core.Response response = aliases.path(USER.email).path("sources").path(ALIASES.get(0).source)
+			.request()
+			.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+			.put(Entity.text(""));
+		String rawResponseBody = response.readEntity(String.class);
+		response.close();
+		return Status.Family.familyOf(response.getStatus()) == Status.Family.SUCCESSFUL && rawResponseBody != null;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(WriteAllocationBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build())
+			.run();
+	}
+}
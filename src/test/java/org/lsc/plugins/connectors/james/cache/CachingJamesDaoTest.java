@@ -0,0 +1,286 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import jakarta.ws.rs.NotFoundException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.JamesWebadminStub;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.generated.ReadCacheType;
+
+import com.google.common.collect.ImmutableList;
+
+public class CachingJamesDaoTest {
+
+	private static final User USER = new User("user@james.org");
+
+	/** Aliases stored by the stub, by destination. */
+	private final Map<String, Set<String>> aliases = new ConcurrentHashMap<>();
+	private final Set<String> users = ConcurrentHashMap.newKeySet();
+
+	private JamesWebadminStub webadmin;
+	private JamesDao testee;
+
+	@BeforeEach
+	void setup() throws Exception {
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases/", exchange -> {
+				String[] path = exchange.getRequestURI().getPath().split("/");
+				Set<String> sources = aliases.computeIfAbsent(path[3], destination -> ConcurrentHashMap.newKeySet());
+				switch (exchange.getRequestMethod()) {
+				case "GET":
+					String body = sources.stream()
+						.map(source -> "{\"source\":\"" + source + "\"}")
+						.collect(Collectors.joining(",", "[", "]"));
+					// Late enough for the writes to overtake the read
+					pause(6);
+					JamesWebadminStub.respond(exchange, 200, body);
+					break;
+				case "PUT":
+					if (path[5].startsWith("failing")) {
+						JamesWebadminStub.respond(exchange, 500, "{}");
+						return;
+					}
+					pause(3);
+					sources.add(path[5]);
+					JamesWebadminStub.respond(exchange, 204, "");
+					break;
+				default:
+					pause(3);
+					sources.remove(path[5]);
+					JamesWebadminStub.respond(exchange, 204, "");
+				}
+			})
+			.handle("/users/", exchange -> {
+				String user = exchange.getRequestURI().getPath().substring("/users/".length());
+				switch (exchange.getRequestMethod()) {
+				case "HEAD":
+					JamesWebadminStub.respond(exchange, users.contains(user) ? 200 : 404, "");
+					break;
+				case "PUT":
+					users.add(user);
+					JamesWebadminStub.respond(exchange, 204, "");
+					break;
+				default:
+					users.remove(user);
+					JamesWebadminStub.respond(exchange, 204, "");
+				}
+			});
+		JamesService service = new JamesAliasService();
+		service.setReadCache(new ReadCacheType());
+		testee = CachingJamesDao.of(webadmin.getUrl(), "token", service);
+	}
+
+	private static void pause(int maxMillis) {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextInt(maxMillis));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		testee.close();
+		webadmin.close();
+	}
+
+	private long requests(String method) {
+		return webadmin.getRequests().stream().filter(request -> request.method.equals(method)).count();
+	}
+
+	@Test
+	void ofShouldNotCacheByDefault() {
+		try (JamesDao plain = CachingJamesDao.of(webadmin.getUrl(), "token", new JamesAliasService())) {
+			assertThat(plain).isNotInstanceOf(CachingJamesDao.class);
+		}
+	}
+
+	@Test
+	void readsShouldBeAnsweredFromTheCache() {
+		aliases.put(USER.email, Set.of("alias1@james.org"));
+
+		testee.getAliases(USER.email);
+
+		assertThat(testee.getAliases(USER.email)).containsExactly(new Alias("alias1@james.org"));
+		assertThat(requests("GET")).isEqualTo(1);
+	}
+
+	@Test
+	void usersWithoutAliasShouldBeCachedAsNotFound() {
+		assertThatThrownBy(() -> testee.getAliases(USER.email)).isInstanceOf(NotFoundException.class);
+		assertThatThrownBy(() -> testee.getAliases(USER.email)).isInstanceOf(NotFoundException.class);
+
+		assertThat(requests("GET")).isEqualTo(1);
+	}
+
+	@Test
+	void writesShouldBeVisibleToTheFollowingReads() {
+		assertThatThrownBy(() -> testee.getAliases(USER.email)).isInstanceOf(NotFoundException.class);
+
+		testee.createAliases(USER, ImmutableList.of(new Alias("alias1@james.org"), new Alias("alias2@james.org")));
+		assertThat(testee.getAliases(USER.email)).containsExactly(new Alias("alias1@james.org"), new Alias("alias2@james.org"));
+		testee.removeAliases(USER, ImmutableList.of(new Alias("alias1@james.org")));
+		assertThat(testee.getAliases(USER.email)).containsExactly(new Alias("alias2@james.org"));
+		testee.deleteAlias(USER);
+		assertThatThrownBy(() -> testee.getAliases(USER.email)).isInstanceOf(NotFoundException.class);
+
+		// The only reads sent are the first one and the one of deleteAlias
+		assertThat(requests("GET")).isEqualTo(2);
+	}
+
+	@Test
+	void failedWritesShouldEvictTheCachedAliases() {
+		aliases.put(USER.email, ConcurrentHashMap.newKeySet());
+		aliases.get(USER.email).add("alias1@james.org");
+		testee.getAliases(USER.email);
+
+		assertThat(testee.createAliases(USER, ImmutableList.of(new Alias("alias2@james.org"), new Alias("failing@james.org"))))
+			.isFalse();
+
+		assertThat(testee.getAliases(USER.email)).containsExactlyInAnyOrder(new Alias("alias1@james.org"), new Alias("alias2@james.org"));
+		assertThat(requests("GET")).isEqualTo(2);
+	}
+
+	@Test
+	void userWritesShouldBeVisibleToTheFollowingReads() {
+		assertThat(testee.userExists(USER.email)).isFalse();
+
+		testee.addUser(USER, "secret");
+		assertThat(testee.userExists(USER.email)).isTrue();
+		testee.removeUser(USER);
+		assertThat(testee.userExists(USER.email)).isFalse();
+
+		assertThat(requests("HEAD")).isEqualTo(1);
+	}
+
+	/**
+	 * Like the synchronization threads of LSC, each thread writes its own alias
+	 * to shared users, reading them between its writes: it must always read
+	 * what it wrote last, whatever the other threads do to the same users.
+	 * Failing writes keep evicting the users, so that reads race with writes.
+	 */
+	@Test
+	void concurrentReadsAndWritesShouldNeverReadStaleAliases() throws Exception {
+		List<User> sharedUsers = List.of(new User("shared1@james.org"), new User("shared2@james.org"));
+		ExecutorService threads = Executors.newFixedThreadPool(10);
+		AtomicBoolean done = new AtomicBoolean();
+		try {
+			for (int thread = 0; thread < 2; thread++) {
+				User user = sharedUsers.get(thread);
+				threads.submit(() -> {
+					while (!done.get()) {
+						testee.createAliases(user, ImmutableList.of(new Alias("failing@james.org")));
+					}
+				});
+			}
+			List<Future<List<String>>> results = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				Alias own = new Alias("thread" + thread + "@james.org");
+				results.add(threads.submit(() -> {
+					List<String> staleReads = new ArrayList<>();
+					for (int i = 0; i < 100; i++) {
+						User user = sharedUsers.get(i % sharedUsers.size());
+						boolean present = ThreadLocalRandom.current().nextBoolean();
+						if (present) {
+							testee.createAliases(user, ImmutableList.of(own));
+						} else {
+							testee.removeAliases(user, ImmutableList.of(own));
+						}
+						List<Alias> read;
+						try {
+							read = testee.getAliases(user.email);
+						} catch (NotFoundException e) {
+							read = List.of();
+						}
+						if (read.contains(own) != present) {
+							staleReads.add(user.email + " " + own.source + (present ? " missing" : " still there"));
+						}
+					}
+					return staleReads;
+				}));
+			}
+			for (Future<List<String>> result : results) {
+				assertThat(result.get()).isEmpty();
+			}
+		} finally {
+			done.set(true);
+			threads.shutdown();
+			threads.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		// Writes overtaken by slow reads show here, once no write is in flight
+		for (User user : sharedUsers) {
+			List<Alias> cached;
+			try {
+				cached = testee.getAliases(user.email);
+			} catch (NotFoundException e) {
+				cached = List.of();
+			}
+			assertThat(cached)
+				.extracting(alias -> alias.source)
+				.containsExactlyInAnyOrderElementsOf(aliases.get(user.email));
+		}
+	}
+}
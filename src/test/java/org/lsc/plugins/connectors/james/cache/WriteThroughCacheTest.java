@@ -0,0 +1,213 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class WriteThroughCacheTest {
+
+	private static final String KEY = "bob@james.org";
+
+	private final AtomicLong now = new AtomicLong();
+	private final WriteThroughCache<String> testee = new WriteThroughCache<>(new ReadCacheSettings(1000, 100, 3),
+		String::isEmpty, now::get);
+
+	private void read(String value) {
+		read(KEY, value);
+	}
+
+	private void read(String key, String value) {
+		testee.completeRead(key, testee.beginRead(), value);
+	}
+
+	@Test
+	void readsShouldBeCachedUntilTheyExpire() {
+		read("v1");
+
+		assertThat(testee.get(KEY)).contains("v1");
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+		assertThat(testee.get(KEY)).isEmpty();
+	}
+
+	@Test
+	void keysShouldNotBeAnsweredWhileWritten() {
+		read("v1");
+
+		assertThat(testee.beginWrite(KEY)).contains("v1");
+		assertThat(testee.get(KEY)).isEmpty();
+	}
+
+	@Test
+	void successfulWritesShouldStoreTheWrittenValue() {
+		read("v1");
+
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, "v2");
+
+		assertThat(testee.get(KEY)).contains("v2");
+	}
+
+	@Test
+	void failedWritesShouldEvictTheKey() {
+		read("v1");
+
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, null);
+
+		assertThat(testee.get(KEY)).isEmpty();
+		assertThat(testee.getSize()).isZero();
+	}
+
+	@Test
+	void readsStartedBeforeAWriteShouldNotBeStored() {
+		long token = testee.beginRead();
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, "v2");
+
+		testee.completeRead(KEY, token, "v1");
+
+		assertThat(testee.get(KEY)).contains("v2");
+	}
+
+	@Test
+	void readsStartedBeforeAFailedWriteShouldNotBeStored() {
+		long token = testee.beginRead();
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, null);
+
+		testee.completeRead(KEY, token, "v1");
+
+		assertThat(testee.get(KEY)).isEmpty();
+		read("v2");
+		assertThat(testee.get(KEY)).contains("v2");
+	}
+
+	@Test
+	void readsCompletingDuringAWriteShouldNotBeStored() {
+		long token = testee.beginRead();
+		testee.beginWrite(KEY);
+
+		testee.completeRead(KEY, token, "v1");
+
+		assertThat(testee.get(KEY)).isEmpty();
+	}
+
+	@Test
+	void overlappingWritesShouldEvictTheKey() {
+		testee.beginWrite(KEY);
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, "v1");
+		testee.completeWrite(KEY, "v2");
+
+		assertThat(testee.get(KEY)).isEmpty();
+	}
+
+	@Test
+	void negativeValuesShouldExpireSooner() {
+		read("bob@james.org", "");
+		read("alice@james.org", "v1");
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(101));
+		assertThat(testee.get("bob@james.org")).isEmpty();
+		assertThat(testee.get("alice@james.org")).contains("v1");
+	}
+
+	@Test
+	void leastRecentlyUsedKeysShouldBeEvictedAboveTheMaximumSize() {
+		read("a@james.org", "a");
+		read("b@james.org", "b");
+		read("c@james.org", "c");
+		testee.get("a@james.org");
+		read("d@james.org", "d");
+
+		assertThat(testee.getSize()).isEqualTo(3);
+		assertThat(testee.getEvictions()).isEqualTo(1);
+		assertThat(testee.get("b@james.org")).isEmpty();
+		assertThat(testee.get("a@james.org")).contains("a");
+	}
+
+	@Test
+	void keysBeingWrittenShouldNotBeEvicted() {
+		testee.beginWrite(KEY);
+		read("a@james.org", "a");
+		read("b@james.org", "b");
+		read("c@james.org", "c");
+		testee.completeWrite(KEY, "v1");
+
+		assertThat(testee.get(KEY)).contains("v1");
+		assertThat(testee.get("a@james.org")).isEmpty();
+	}
+
+	@Test
+	void readsStartedBeforeTheWriteOfAnEvictedKeyShouldNotBeStored() {
+		long token = testee.beginRead();
+		testee.beginWrite(KEY);
+		testee.completeWrite(KEY, "v2");
+		read("a@james.org", "a");
+		read("b@james.org", "b");
+		read("c@james.org", "c");
+		testee.completeRead(KEY, token, "v1");
+
+		assertThat(testee.get(KEY)).isEmpty();
+	}
+
+	@Test
+	void lookupsShouldBeCounted() {
+		read("bob@james.org", "");
+		read("alice@james.org", "v1");
+
+		testee.get("bob@james.org");
+		testee.get("alice@james.org");
+		testee.get("alice@james.org");
+		testee.get("carol@james.org");
+
+		assertThat(testee.getNegativeHits()).isEqualTo(1);
+		assertThat(testee.getHits()).isEqualTo(2);
+		assertThat(testee.getMisses()).isEqualTo(1);
+		assertThat(testee.getHitRatio()).isEqualTo(0.75);
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.coalesce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.beans.Alias;
+
+public class AliasDeltaTest {
+
+	private static final Alias ALIAS1 = new Alias("alias1@james.org");
+	private static final Alias ALIAS2 = new Alias("alias2@james.org");
+	private static final Alias ALIAS3 = new Alias("alias3@james.org");
+
+	@Test
+	void creationFollowedByDeletionShouldCancelOut() {
+		assertThat(AliasDelta.created(List.of(ALIAS1)).then(AliasDelta.deleted())).isNull();
+	}
+
+	@Test
+	void creationWhoseAliasesAreAllRemovedShouldCancelOut() {
+		assertThat(AliasDelta.created(List.of(ALIAS1)).then(AliasDelta.removed(List.of(ALIAS1), null))).isNull();
+	}
+
+	@Test
+	void updatesOfACreationShouldOnlyChangeTheCreatedAliases() {
+		AliasDelta delta = AliasDelta.created(List.of(ALIAS1, ALIAS2))
+			.then(AliasDelta.added(List.of(ALIAS3), null))
+			.then(AliasDelta.removed(List.of(ALIAS1), null));
+
+		assertThat(delta.isCreated()).isTrue();
+		assertThat(delta.getReplacement()).containsExactly(ALIAS2, ALIAS3);
+	}
+
+	@Test
+	void addedThenRemovedAliasShouldOnlyBeRemoved() {
+		AliasDelta delta = AliasDelta.added(List.of(ALIAS1, ALIAS2), null)
+			.then(AliasDelta.removed(List.of(ALIAS1), null));
+
+		assertThat(delta.isReplacement()).isFalse();
+		assertThat(delta.getAdded()).containsExactly(ALIAS2);
+		assertThat(delta.getRemoved()).containsExactly(ALIAS1);
+	}
+
+	@Test
+	void removedThenAddedAliasShouldOnlyBeAdded() {
+		AliasDelta delta = AliasDelta.removed(List.of(ALIAS1), null)
+			.then(AliasDelta.added(List.of(ALIAS1), null));
+
+		assertThat(delta.getAdded()).containsExactly(ALIAS1);
+		assertThat(delta.getRemoved()).isEmpty();
+	}
+
+	@Test
+	void replacementShouldOverrideThePreviousChanges() {
+		AliasDelta delta = AliasDelta.added(List.of(ALIAS1), List.of(ALIAS3))
+			.then(AliasDelta.replaced(List.of(ALIAS2), null))
+			.then(AliasDelta.added(List.of(ALIAS1), null));
+
+		assertThat(delta.isReplacement()).isTrue();
+		assertThat(delta.getReplacement()).containsExactly(ALIAS2, ALIAS1);
+		assertThat(delta.getExisting()).containsExactly(ALIAS3);
+	}
+
+	@Test
+	void creationAfterADeletionShouldReplaceTheAliases() {
+		AliasDelta delta = AliasDelta.deleted().then(AliasDelta.created(List.of(ALIAS1)));
+
+		assertThat(delta.isCreated()).isFalse();
+		assertThat(delta.getReplacement()).containsExactly(ALIAS1);
+	}
+
+	@Test
+	void userCreationFollowedByDeletionShouldCancelOut() {
+		assertThat(UserDelta.CREATED.then(UserDelta.DELETED)).isNull();
+		assertThat(UserDelta.DELETED.then(UserDelta.CREATED)).isEqualTo(UserDelta.CREATED);
+		assertThat(UserDelta.CREATED.then(UserDelta.CREATED)).isEqualTo(UserDelta.CREATED);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.coalesce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.exception.LscServiceCommunicationException;
+
+public class CoalescerTest {
+
+	private static final long HOUR = 3_600_000;
+
+	private final List<String> written = new CopyOnWriteArrayList<>();
+	private Coalescer<UserDelta> testee;
+
+	@AfterEach
+	void tearDown() {
+		testee.close();
+	}
+
+	private Coalescer<UserDelta> coalescer(long window, int maxPending) {
+		return new Coalescer<>(new CoalescingSettings(window, maxPending), UserDelta::then,
+			(key, delta) -> written.add(key + " " + delta), "test");
+	}
+
+	@Test
+	void modificationsOfTheSameKeyShouldBeMerged() throws Exception {
+		testee = coalescer(HOUR, 100);
+
+		testee.add("user1@james.org", UserDelta.DELETED);
+		testee.add("user2@james.org", UserDelta.CREATED);
+		testee.add("user1@james.org", UserDelta.CREATED);
+		testee.flush();
+
+		assertThat(written).containsExactly("user1@james.org CREATED", "user2@james.org CREATED");
+		assertThat(testee.getReceived()).isEqualTo(3);
+		assertThat(testee.getDispatched()).isEqualTo(2);
+		assertThat(testee.getWritesAvoided()).isEqualTo(1);
+	}
+
+	@Test
+	void modificationsCancellingOutShouldNotBeWritten() throws Exception {
+		testee = coalescer(HOUR, 100);
+
+		testee.add("user@james.org", UserDelta.CREATED);
+		testee.add("user@james.org", UserDelta.DELETED);
+		testee.flush();
+
+		assertThat(written).isEmpty();
+		assertThat(testee.getCancelled()).isEqualTo(1);
+		assertThat(testee.getWritesAvoided()).isEqualTo(2);
+	}
+
+	@Test
+	void heldModificationsShouldNotCountAsAvoided() throws Exception {
+		testee = coalescer(HOUR, 100);
+
+		testee.add("user@james.org", UserDelta.DELETED);
+		testee.add("user@james.org", UserDelta.CREATED);
+
+		assertThat(testee.getPending()).isEqualTo(1);
+		assertThat(testee.getWritesAvoided()).isZero();
+	}
+
+	@Test
+	void modificationsShouldBeWrittenAtTheEndOfTheirWindow() throws Exception {
+		testee = coalescer(100, 100);
+
+		testee.add("user@james.org", UserDelta.CREATED);
+
+		for (int i = 0; i < 500 && written.isEmpty(); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(written).containsExactly("user@james.org CREATED");
+		assertThat(testee.getPending()).isZero();
+	}
+
+	@Test
+	void oldestKeyShouldBeWrittenWhenTooManyAreHeld() throws Exception {
+		testee = coalescer(HOUR, 2);
+
+		testee.add("user1@james.org", UserDelta.CREATED);
+		testee.add("user2@james.org", UserDelta.CREATED);
+		testee.add("user3@james.org", UserDelta.CREATED);
+
+		assertThat(written).containsExactly("user1@james.org CREATED");
+		assertThat(testee.getPending()).isEqualTo(2);
+	}
+
+	@Test
+	void closeShouldWriteTheHeldModifications() throws Exception {
+		testee = coalescer(HOUR, 100);
+
+		testee.add("user@james.org", UserDelta.DELETED);
+		testee.close();
+
+		assertThat(written).containsExactly("user@james.org DELETED");
+	}
+
+	@Test
+	void sinkFailuresShouldBeThrownByTheNextModification() throws Exception {
+		testee = new Coalescer<>(new CoalescingSettings(HOUR, 100), UserDelta::then,
+			(key, delta) -> {
+				throw new LscServiceCommunicationException("James is down");
+			}, "test");
+
+		testee.add("user1@james.org", UserDelta.CREATED);
+		testee.flush();
+
+		assertThatThrownBy(() -> testee.add("user2@james.org", UserDelta.CREATED))
+			.isInstanceOf(LscServiceCommunicationException.class)
+			.hasRootCauseMessage("James is down");
+	}
+
+	@Test
+	void sinkFailuresShouldBeThrownOnceAndTheirModificationsCountedAsDropped() throws Exception {
+		AtomicBoolean down = new AtomicBoolean(true);
+		List<String> written = new CopyOnWriteArrayList<>();
+		testee = new Coalescer<>(new CoalescingSettings(HOUR, 100), UserDelta::then,
+			(key, delta) -> {
+				if (down.get()) {
+					throw new LscServiceCommunicationException("James is down");
+				}
+				written.add(key);
+			}, "test");
+
+		testee.add("user1@james.org", UserDelta.CREATED);
+		testee.flush();
+		down.set(false);
+		assertThatThrownBy(() -> testee.add("user2@james.org", UserDelta.CREATED))
+			.isInstanceOf(LscServiceCommunicationException.class);
+		testee.add("user3@james.org", UserDelta.CREATED);
+		testee.flush();
+
+		assertThat(written).containsExactly("user3@james.org");
+		assertThat(testee.getDropped()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the diff of the aliases of a user with the List.contains filters
+ * JamesDao used to run, quadratic in the number of aliases, with the hash
+ * table and sorted merge diffs of {@link AliasDiff}. A tenth of the aliases
+ * of James are removed from the source and as many are new in it.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.lsc.plugins.connectors.james.diff.AliasDiffBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AliasDiffBenchmark {
+
+	@Param({"10", "1000", "50000"})
+	public int aliasCount;
+
+	private List<Alias> wanted;
+	private List<Alias> existing;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		wanted = new ArrayList<>();
+		existing = new ArrayList<>();
+		int changed = Math.max(1, aliasCount / 10);
+		for (int i = 0; i < aliasCount; i++) {
+			existing.add(new Alias("alias" + i + "@james.org"));
+			if (i >= changed) {
+				wanted.add(new Alias("alias" + i + "@james.org"));
+			}
+		}
+		for (int i = 0; i < changed; i++) {
+			wanted.add(new Alias("new-alias" + i + "@james.org"));
+		}
+	}
+
+	@Benchmark
+	public void listContains(Blackhole blackhole) {
+		blackhole.consume(wanted.stream()
+			.filter(alias -> !existing.contains(alias))
+			.collect(Collectors.toList()));
+		blackhole.consume(existing.stream()
+			.filter(alias -> !wanted.contains(alias))
+			.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public AliasDiff hashed() {
+		return AliasDiff.hashed(wanted, existing);
+	}
+
+	@Benchmark
+	public AliasDiff sortedMerge() {
+		return AliasDiff.sortedMerge(wanted, existing);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(AliasDiffBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build())
+			.run();
+	}
+}
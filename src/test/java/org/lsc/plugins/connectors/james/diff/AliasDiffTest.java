@@ -0,0 +1,151 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.diff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.lsc.plugins.connectors.james.beans.Alias;
+
+public class AliasDiffTest {
+
+	static Stream<Arguments> algorithms() {
+		return Stream.of(
+			Arguments.of("hashed", (BiFunction<List<Alias>, List<Alias>, AliasDiff>) AliasDiff::hashed),
+			Arguments.of("sortedMerge", (BiFunction<List<Alias>, List<Alias>, AliasDiff>) AliasDiff::sortedMerge),
+			Arguments.of("between", (BiFunction<List<Alias>, List<Alias>, AliasDiff>) AliasDiff::between));
+	}
+
+	private static List<Alias> aliases(String... sources) {
+		return Arrays.stream(sources).map(Alias::new).collect(Collectors.toList());
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void shouldAddTheMissingAliasesAndRemoveTheExtraOnes(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		AliasDiff testee = diff.apply(aliases("a@james.org", "b@james.org", "c@james.org"),
+			aliases("b@james.org", "d@james.org"));
+
+		assertThat(testee.getToAdd()).containsExactlyInAnyOrderElementsOf(aliases("a@james.org", "c@james.org"));
+		assertThat(testee.getToRemove()).containsExactlyElementsOf(aliases("d@james.org"));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void identicalSidesShouldHaveNoDifference(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		assertThat(diff.apply(aliases("a@james.org", "b@james.org"), aliases("b@james.org", "a@james.org")).isEmpty()).isTrue();
+		assertThat(diff.apply(List.of(), List.of()).isEmpty()).isTrue();
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void domainsShouldBeComparedIgnoringCase(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		AliasDiff testee = diff.apply(aliases("a@James.ORG", "B@james.org"), aliases("a@james.org", "b@james.org"));
+
+		assertThat(testee.getToAdd()).containsExactlyElementsOf(aliases("B@james.org"));
+		assertThat(testee.getToRemove()).containsExactlyElementsOf(aliases("b@james.org"));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void sourcesWithoutDomainShouldBeComparedWithCase(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		AliasDiff testee = diff.apply(aliases("Alias", "other"), aliases("alias", "other"));
+
+		assertThat(testee.getToAdd()).containsExactlyElementsOf(aliases("Alias"));
+		assertThat(testee.getToRemove()).containsExactlyElementsOf(aliases("alias"));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void repeatedAndEmptyAliasesShouldBeIgnored(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		List<Alias> wanted = aliases("a@james.org", "a@JAMES.org", "c@james.org", "c@james.org");
+		wanted.add(new Alias());
+		List<Alias> existing = aliases("b@james.org", "b@james.org");
+		existing.add(new Alias());
+
+		AliasDiff testee = diff.apply(wanted, existing);
+
+		assertThat(testee.getToAdd()).containsExactlyInAnyOrderElementsOf(aliases("a@james.org", "c@james.org"));
+		assertThat(testee.getToRemove()).containsExactlyElementsOf(aliases("b@james.org"));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("algorithms")
+	void largeListsShouldMatchTheQuadraticDiff(String name, BiFunction<List<Alias>, List<Alias>, AliasDiff> diff) {
+		List<Alias> wanted = new ArrayList<>();
+		List<Alias> existing = new ArrayList<>();
+		IntStream.range(0, 6_000).forEach(i -> {
+			if (i % 7 != 0) {
+				wanted.add(new Alias("alias" + i + "@james.org"));
+			}
+			if (i % 5 != 0) {
+				existing.add(new Alias("alias" + i + "@james.org"));
+			}
+		});
+
+		AliasDiff testee = diff.apply(wanted, existing);
+
+		assertThat(testee.getToAdd()).containsExactlyInAnyOrderElementsOf(
+			wanted.stream().filter(alias -> !existing.contains(alias)).collect(Collectors.toList()));
+		assertThat(testee.getToRemove()).containsExactlyInAnyOrderElementsOf(
+			existing.stream().filter(alias -> !wanted.contains(alias)).collect(Collectors.toList()));
+	}
+
+	@Test
+	void theHashedDiffShouldKeepTheOrderOfBothSides() {
+		AliasDiff testee = AliasDiff.hashed(aliases("z@james.org", "a@james.org"), aliases("y@james.org", "b@james.org"));
+
+		assertThat(testee.getToAdd()).containsExactlyElementsOf(aliases("z@james.org", "a@james.org"));
+		assertThat(testee.getToRemove()).containsExactlyElementsOf(aliases("y@james.org", "b@james.org"));
+	}
+}
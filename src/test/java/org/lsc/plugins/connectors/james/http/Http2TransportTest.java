@@ -0,0 +1,176 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jakarta.ws.rs.NotFoundException;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.JamesWebadminStub;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.TransportType;
+
+import com.google.common.collect.ImmutableList;
+
+public class Http2TransportTest {
+	private static final String TOKEN = "token";
+	private static final User USER = new User("user@james.org");
+
+	private JamesWebadminStub webadmin;
+	private JamesDao testee;
+
+	@BeforeEach
+	void setup() throws Exception {
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases/user@james.org", exchange -> {
+				if (exchange.getRequestMethod().equals("GET")) {
+					JamesWebadminStub.respond(exchange, 200, "[{\"source\":\"alias@james.org\"}]");
+				} else if (exchange.getRequestURI().getPath().endsWith("/failing@james.org")) {
+					JamesWebadminStub.respond(exchange, 400, "{\"message\":\"bad request\"}");
+				} else {
+					JamesWebadminStub.respond(exchange, 204, "");
+				}
+			})
+			.handle("/address/aliases/unknown@james.org", exchange -> JamesWebadminStub.respond(exchange, 200, "[]"))
+			.handle("/users/user@james.org", exchange -> JamesWebadminStub.respond(exchange, 200, ""))
+			.handle("/users/unknown@james.org", exchange -> JamesWebadminStub.respond(exchange, 404, ""));
+		JamesAliasService service = mock(JamesAliasService.class);
+		when(service.getTransport()).thenReturn(TransportType.HTTP_2);
+		testee = new JamesDao(webadmin.getUrl(), TOKEN, service);
+	}
+
+	@AfterEach
+	void tearDown() {
+		testee.close();
+		webadmin.close();
+	}
+
+	@Test
+	void getAliasesShouldReadTheResponseEntity() {
+		List<Alias> aliases = testee.getAliases(USER.email);
+
+		assertThat(aliases).containsExactly(new Alias("alias@james.org"));
+	}
+
+	@Test
+	void getAliasesShouldThrowWhenNoAlias() {
+		assertThatThrownBy(() -> testee.getAliases("unknown@james.org")).isInstanceOf(NotFoundException.class);
+	}
+
+	@Test
+	void createAndRemoveAliasesShouldSendTheRequests() {
+		assertThat(testee.createAliases(USER, ImmutableList.of(new Alias("alias@james.org")))).isTrue();
+		assertThat(testee.removeAliases(USER, ImmutableList.of(new Alias("alias@james.org")))).isTrue();
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.method + " " + request.path)
+			.containsExactly(
+				"PUT /address/aliases/user@james.org/sources/alias@james.org",
+				"DELETE /address/aliases/user@james.org/sources/alias@james.org");
+	}
+
+	@Test
+	void createAliasesShouldReturnFalseOnErrorStatus() {
+		assertThat(testee.createAliases(USER, ImmutableList.of(new Alias("failing@james.org")))).isFalse();
+	}
+
+	@Test
+	void userExistsShouldHandleHeadRequests() {
+		assertThat(testee.userExists(USER.email)).isTrue();
+		assertThat(testee.userExists("unknown@james.org")).isFalse();
+	}
+
+	@Test
+	void requestsShouldBeMultiplexedOverH2cWhenSupported() throws Exception {
+		List<String> connections = new CopyOnWriteArrayList<>();
+		Server h2cWebadmin = new Server();
+		HttpConfiguration configuration = new HttpConfiguration();
+		ServerConnector connector = new ServerConnector(h2cWebadmin,
+			new HttpConnectionFactory(configuration), new HTTP2CServerConnectionFactory(configuration));
+		h2cWebadmin.addConnector(connector);
+		h2cWebadmin.setHandler(new Handler.Abstract() {
+			@Override
+			public boolean handle(Request request, Response response, Callback callback) {
+				connections.add(request.getConnectionMetaData().getHttpVersion()
+					+ " " + request.getConnectionMetaData().getRemoteSocketAddress());
+				response.setStatus(204);
+				callback.succeeded();
+				return true;
+			}
+		});
+		h2cWebadmin.start();
+		JamesAliasService service = mock(JamesAliasService.class);
+		when(service.getTransport()).thenReturn(TransportType.HTTP_2);
+
+		try (JamesDao jamesDao = new JamesDao("http://localhost:" + connector.getLocalPort(), TOKEN, service)) {
+			assertThat(jamesDao.createAliases(USER, ImmutableList.of(
+				new Alias("alias1@james.org"), new Alias("alias2@james.org"), new Alias("alias3@james.org")))).isTrue();
+		} finally {
+			h2cWebadmin.stop();
+		}
+
+		assertThat(connections).hasSize(3)
+			.allMatch(connection -> connection.startsWith("HTTP/2.0"))
+			.containsOnly(connections.get(0));
+	}
+}
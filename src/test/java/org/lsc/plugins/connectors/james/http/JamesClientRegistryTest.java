@@ -0,0 +1,180 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.WebTarget;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.JamesWebadminStub;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.TransportType;
+
+import com.google.common.collect.ImmutableList;
+
+public class JamesClientRegistryTest {
+	private static final String URL = "http://localhost:8000";
+	private static final String TOKEN = "token";
+
+	private final JamesClientRegistry registry = JamesClientRegistry.getInstance();
+
+	private JamesWebadminStub webadmin;
+
+	@BeforeEach
+	void setup() throws Exception {
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases", exchange -> JamesWebadminStub.respond(exchange, 204, ""));
+	}
+
+	@AfterEach
+	void tearDown() {
+		webadmin.close();
+	}
+
+	@Test
+	void acquireShouldShareTheClientForTheSameConnection() {
+		try (JamesClientRegistry.Lease first = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT);
+			JamesClientRegistry.Lease second = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT)) {
+			assertThat(first.getClient()).isSameAs(second.getClient());
+		}
+	}
+
+	@Test
+	void acquireShouldNotShareTheClientBetweenTokens() {
+		try (JamesClientRegistry.Lease first = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT);
+			JamesClientRegistry.Lease second = registry.acquire(URL, "other", ConnectionPoolSettings.DEFAULT)) {
+			assertThat(first.getClient()).isNotSameAs(second.getClient());
+		}
+	}
+
+	@Test
+	void acquireShouldNotShareTheClientBetweenPoolSettings() {
+		ConnectionPoolSettings smallPool = new ConnectionPoolSettings(2, 1, 1000, 1000);
+		try (JamesClientRegistry.Lease first = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT);
+			JamesClientRegistry.Lease second = registry.acquire(URL, TOKEN, smallPool)) {
+			assertThat(first.getClient()).isNotSameAs(second.getClient());
+		}
+	}
+
+	@Test
+	void clientShouldBeClosedWhenTheLastLeaseIsReleased() {
+		int initialSize = registry.size();
+		JamesClientRegistry.Lease first = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT);
+		JamesClientRegistry.Lease second = registry.acquire(URL, TOKEN, ConnectionPoolSettings.DEFAULT);
+
+		first.close();
+		first.close();
+		assertThat(registry.size()).isEqualTo(initialSize + 1);
+
+		second.close();
+		assertThat(registry.size()).isEqualTo(initialSize);
+		assertThatThrownBy(() -> second.getClient().target(URL)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void targetsRegisteringFiltersShouldNotCloseTheSharedPool() {
+		try (JamesClientRegistry.Lease lease = registry.acquire(webadmin.getUrl(), TOKEN, ConnectionPoolSettings.DEFAULT)) {
+			for (int i = 0; i < 3; i++) {
+				// Each such target has its own connector, which Jersey closes once it is garbage collected
+				WebTarget filtered = lease.getClient().target(webadmin.getUrl()).path("address/aliases")
+					.register((ClientRequestFilter) request -> request.getHeaders().putSingle("If-None-Match", "\"1\""));
+				assertThat(filtered.request().get().getStatus()).isEqualTo(204);
+				filtered = null;
+				System.gc();
+			}
+
+			assertThat(lease.getClient().target(webadmin.getUrl()).path("address/aliases").request().get().getStatus())
+				.isEqualTo(204);
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(TransportType.class)
+	void laneClientsShouldGiveUpOnResponsesAfterTheirTimeout(TransportType transport) {
+		CountDownLatch answer = new CountDownLatch(1);
+		webadmin.handle("/users", exchange -> {
+			try {
+				answer.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			JamesWebadminStub.respond(exchange, 204, "");
+		});
+		try (JamesClientRegistry.Lease lease = registry.acquire(webadmin.getUrl(), TOKEN, ConnectionPoolSettings.DEFAULT, transport,
+				"read", 200)) {
+			assertThatThrownBy(() -> lease.getClient().target(webadmin.getUrl()).path("users").request().get())
+				.isInstanceOf(ProcessingException.class);
+		} finally {
+			answer.countDown();
+		}
+	}
+
+	@Test
+	void daosShouldReuseTheSamePooledConnection() {
+		User user = new User("user@james.org");
+		try (JamesDao first = new JamesDao(webadmin.getUrl(), TOKEN, mock(JamesAliasService.class));
+			JamesDao second = new JamesDao(webadmin.getUrl(), TOKEN, mock(JamesAliasService.class))) {
+			assertThat(first.createAliases(user, ImmutableList.of(new Alias("alias1@james.org")))).isTrue();
+			assertThat(second.createAliases(user, ImmutableList.of(new Alias("alias2@james.org")))).isTrue();
+			assertThat(first.removeAliases(user, ImmutableList.of(new Alias("alias1@james.org")))).isTrue();
+		}
+
+		assertThat(webadmin.getRequests())
+			.extracting(request -> request.remotePort)
+			.hasSize(3)
+			.containsOnly(webadmin.getRequests().get(0).remotePort);
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ListingStoreTest {
+
+	private static final String BODY = "[\"user1@james.org\"]";
+
+	@TempDir
+	Path directory;
+
+	private ListingStore store(String endpoint) {
+		return new ListingStore(new ListingCacheSettings(directory), endpoint);
+	}
+
+	private static void record(ListingStore store, String listing, ListingStore.Validators validators, boolean commit) throws IOException {
+		try (ListingStore.Recording recording = store.record(listing, validators);
+				InputStream body = recording.copying(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)))) {
+			body.readAllBytes();
+			if (commit) {
+				recording.commit();
+			}
+		}
+	}
+
+	private static String read(ListingStore store, String listing) throws IOException {
+		try (InputStream body = store.open(listing)) {
+			return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void committedListingsShouldBeStoredWithTheirValidators() throws Exception {
+		ListingStore testee = store("http://james:8000");
+
+		record(testee, "users", ListingStore.Validators.of("\"v1\"", "Wed, 21 Oct 2026 07:28:00 GMT").get(), true);
+
+		assertThat(testee.validators("users")).hasValueSatisfying(validators -> {
+			assertThat(validators.getEntityTag()).contains("\"v1\"");
+			assertThat(validators.getLastModified()).contains("Wed, 21 Oct 2026 07:28:00 GMT");
+		});
+		assertThat(read(testee, "users")).isEqualTo(BODY);
+	}
+
+	@Test
+	void uncommittedListingsShouldNotBeStored() throws Exception {
+		ListingStore testee = store("http://james:8000");
+
+		record(testee, "users", ListingStore.Validators.of("\"v1\"", null).get(), false);
+
+		assertThat(testee.validators("users")).isEmpty();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	@Test
+	void listingsOfDistinctServersShouldNotMix() throws Exception {
+		record(store("http://james1:8000"), "users", ListingStore.Validators.of("\"v1\"", null).get(), true);
+
+		assertThat(store("http://james2:8000").validators("users")).isEmpty();
+	}
+
+	@Test
+	void truncatedListingsShouldHaveNoValidators() throws Exception {
+		ListingStore testee = store("http://james:8000");
+		record(testee, "users", ListingStore.Validators.of("\"v1\"", null).get(), true);
+		try (Stream<Path> files = Files.list(directory)) {
+			Path stored = files.findFirst().get();
+			Files.write(stored, "\"v1\"".getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		assertThat(testee.validators("users")).isEmpty();
+	}
+
+	@Test
+	void failingToStoreAListingShouldNotFailItsReading() throws Exception {
+		Path file = Files.createFile(directory.resolve("file"));
+		ListingStore testee = new ListingStore(new ListingCacheSettings(file), "http://james:8000");
+
+		try (ListingStore.Recording recording = testee.record("users", ListingStore.Validators.of("\"v1\"", null).get());
+				InputStream body = recording.copying(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)))) {
+			assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+			recording.commit();
+		}
+
+		assertThat(testee.validators("users")).isEmpty();
+	}
+}
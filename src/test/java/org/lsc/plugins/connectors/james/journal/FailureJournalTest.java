@@ -0,0 +1,239 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult.Item;
+import org.lsc.plugins.connectors.james.beans.AliasWriteResult.Operation;
+import org.lsc.plugins.connectors.james.beans.User;
+
+public class FailureJournalTest {
+
+	private static final User USER = new User("user@james.org");
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-17T10:00:00Z"), ZoneOffset.UTC);
+
+	@TempDir
+	Path directory;
+
+	private Path file;
+	private FailureJournal testee;
+	/** Writes done by the replays, as "OPERATION user alias". */
+	private final List<String> replayed = new ArrayList<>();
+
+	@BeforeEach
+	void setup() {
+		file = directory.resolve("failures.journal");
+		testee = new FailureJournal(file, CLOCK);
+	}
+
+	@Test
+	void writtenAliasesShouldNotBeJournaled() throws Exception {
+		testee.record(result(Operation.CREATE, Item.written(new Alias("alias1@james.org"))));
+
+		assertThat(file).doesNotExist();
+	}
+
+	@Test
+	void failedAndNotAttemptedAliasesShouldBeJournaled() throws Exception {
+		testee.record(result(Operation.CREATE,
+			Item.written(new Alias("alias1@james.org")),
+			Item.failed(new Alias("alias2@james.org"), "500 Internal Server Error"),
+			Item.notAttempted(new Alias("alias3@james.org"))));
+
+		assertThat(Files.readAllLines(file)).containsExactly(
+			"{\"time\":\"2026-10-17T10:00:00Z\",\"status\":\"FAILED\",\"operation\":\"CREATE\",\"user\":\"user@james.org\",\"alias\":\"alias2@james.org\",\"error\":\"500 Internal Server Error\"}",
+			"{\"time\":\"2026-10-17T10:00:00Z\",\"status\":\"NOT_ATTEMPTED\",\"operation\":\"CREATE\",\"user\":\"user@james.org\",\"alias\":\"alias3@james.org\"}");
+		assertThat(testee.getPendingCount()).isEqualTo(2);
+	}
+
+	@Test
+	void writingAJournaledAliasShouldResolveIt() throws Exception {
+		testee.record(result(Operation.CREATE, Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error")));
+		testee.record(result(Operation.REMOVE, Item.written(new Alias("alias1@james.org"))));
+		testee.record(result(Operation.REMOVE, Item.written(new Alias("alias1@james.org"))));
+
+		assertThat(Files.readAllLines(file)).hasSize(2);
+		assertThat(Files.readAllLines(file).get(1)).contains("\"status\":\"RESOLVED\"");
+		assertThat(testee.getPendingCount()).isZero();
+
+		testee.replay(this::write);
+
+		assertThat(replayed).isEmpty();
+	}
+
+	@Test
+	void replayShouldWriteTheLastFailedOperationOfEachAlias() throws Exception {
+		testee.record(result(Operation.CREATE,
+			Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error"),
+			Item.failed(new Alias("alias2@james.org"), "500 Internal Server Error")));
+		testee.recordFailure(new User("other@james.org"), Operation.CREATE, List.of(new Alias("alias3@james.org")),
+			new IllegalStateException("circuit open"));
+		testee.record(result(Operation.REMOVE, Item.failed(new Alias("alias1@james.org"), "503 Service Unavailable")));
+
+		FailureJournal.Replay replay = testee.replay(this::write);
+
+		assertThat(replayed).containsExactly(
+			"CREATE user@james.org alias2@james.org",
+			"CREATE other@james.org alias3@james.org",
+			"REMOVE user@james.org alias1@james.org");
+		assertThat(replay.getWritten()).isEqualTo(3);
+		assertThat(file).doesNotExist();
+		assertThat(testee.getPendingCount()).isZero();
+	}
+
+	@Test
+	void replayShouldJournalAgainTheWritesFailingAgain() throws Exception {
+		testee.record(result(Operation.CREATE,
+			Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error"),
+			Item.failed(new Alias("alias2@james.org"), "500 Internal Server Error")));
+
+		FailureJournal.Replay replay = testee.replay((user, operation, aliases) -> {
+			AliasWriteResult result = new AliasWriteResult(user, operation, List.of(
+				Item.written(aliases.get(0)),
+				Item.failed(aliases.get(1), "500 Internal Server Error")));
+			testee.record(result);
+			return result;
+		});
+
+		assertThat(replay.getWritten()).isEqualTo(1);
+		assertThat(replay.getFailed()).isEqualTo(1);
+		assertThat(testee.getPendingCount()).isEqualTo(1);
+		assertThat(unresolvedAliases(file)).containsExactly("alias2@james.org");
+	}
+
+	@Test
+	void replayShouldCountTheWritesFailingAsAWhole() throws Exception {
+		testee.record(result(Operation.CREATE, Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error")));
+
+		FailureJournal.Replay replay = testee.replay((user, operation, aliases) -> {
+			throw new IllegalStateException("circuit open");
+		});
+
+		assertThat(replay.getFailed()).isEqualTo(1);
+	}
+
+	@Test
+	void pendingFailuresShouldBeReloaded() throws Exception {
+		testee.record(result(Operation.CREATE,
+			Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error"),
+			Item.failed(new Alias("alias2@james.org"), "500 Internal Server Error")));
+
+		FailureJournal reloaded = new FailureJournal(file, CLOCK);
+		reloaded.record(result(Operation.CREATE, Item.written(new Alias("alias1@james.org"))));
+
+		assertThat(reloaded.getPendingCount()).isEqualTo(1);
+		assertThat(unresolvedAliases(file)).containsExactly("alias2@james.org");
+	}
+
+	@Test
+	void truncatedLinesShouldBeSkipped() throws Exception {
+		testee.record(result(Operation.CREATE, Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error")));
+		Files.write(file, "{\"time\":\"2026-10-17T10:00:00Z\",\"status\":\"FAI".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		testee.replay(this::write);
+
+		assertThat(replayed).containsExactly("CREATE user@james.org alias1@james.org");
+	}
+
+	@Test
+	void interruptedReplayShouldBeResumed() throws Exception {
+		Path replayedFile = file.resolveSibling(file.getFileName() + ".replay");
+		testee.record(result(Operation.CREATE, Item.failed(new Alias("alias1@james.org"), "500 Internal Server Error")));
+		Files.move(file, replayedFile);
+		testee.record(result(Operation.CREATE, Item.failed(new Alias("alias2@james.org"), "500 Internal Server Error")));
+
+		FailureJournal restarted = new FailureJournal(file, CLOCK);
+		assertThat(restarted.getPendingCount()).isEqualTo(2);
+		restarted.replay(this::write);
+
+		assertThat(replayed).containsExactly(
+			"CREATE user@james.org alias1@james.org",
+			"CREATE user@james.org alias2@james.org");
+		assertThat(replayedFile).doesNotExist();
+	}
+
+	@Test
+	void journalsOfDistinctEndpointsShouldNotCollide() {
+		FailureJournalSettings settings = new FailureJournalSettings(directory, false);
+
+		Path james1 = new FailureJournal(settings, "http://james1:8000").getFile();
+		Path james2 = new FailureJournal(settings, "http://james2:8000").getFile();
+
+		assertThat(james1).isNotEqualTo(james2);
+		assertThat(james1.getParent()).isEqualTo(directory);
+	}
+
+	private AliasWriteResult write(User user, Operation operation, List<Alias> aliases) {
+		for (Alias alias : aliases) {
+			replayed.add(operation + " " + user.email + " " + alias.source);
+		}
+		return new AliasWriteResult(user, operation, aliases.stream().map(Item::written).collect(Collectors.toList()));
+	}
+
+	private static AliasWriteResult result(Operation operation, Item... items) {
+		return new AliasWriteResult(USER, operation, List.of(items));
+	}
+
+	private static Set<String> unresolvedAliases(Path journal) {
+		return FailureJournal.unresolved(FailureJournal.read(journal)).stream()
+			.map(entry -> entry.alias)
+			.collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.ordering;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class KeyOrderedExecutorTest {
+
+	private KeyOrderedExecutor testee;
+
+	@AfterEach
+	void tearDown() {
+		if (testee != null) {
+			testee.close();
+		}
+	}
+
+	@Test
+	void tasksOfTheSameKeyShouldRunOneAfterTheOtherInOrder() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(8, 100, 4), "test");
+		List<Integer> run = new CopyOnWriteArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		for (int i = 0; i < 50; i++) {
+			int task = i;
+			testee.execute("user@james.org", () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				run.add(task);
+				running.decrementAndGet();
+			});
+		}
+
+		assertThat(testee.awaitIdle(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(run).containsExactlyElementsOf(IntStream.range(0, 50).boxed().collect(Collectors.toList()));
+		assertThat(maxRunning.get()).isEqualTo(1);
+	}
+
+	@Test
+	void tasksOfDistinctKeysShouldRunConcurrently() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(4, 100, 16), "test");
+		CyclicBarrier allRunning = new CyclicBarrier(4);
+
+		List<CompletableFuture<Integer>> results = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(testee.submit("user" + i + "@james.org", () -> allRunning.await(5, TimeUnit.SECONDS)));
+		}
+
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+		assertThat(testee.getCompleted()).isEqualTo(4);
+	}
+
+	@Test
+	void submitShouldWaitWhileTooManyTasksOfTheKeyAreQueued() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(2, 1, 16), "test");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		testee.execute("user1@james.org", () -> {
+			started.countDown();
+			await(release);
+		});
+		started.await(5, TimeUnit.SECONDS);
+		testee.execute("user1@james.org", () -> { });
+
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> execute("user1@james.org"));
+		Thread.sleep(200);
+		assertThat(blocked).isNotDone();
+		// Other keys are not held back
+		testee.submit("user2@james.org", () -> true).get(5, TimeUnit.SECONDS);
+
+		release.countDown();
+		blocked.get(5, TimeUnit.SECONDS);
+		assertThat(testee.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getBlockedSubmissions()).isEqualTo(1);
+		assertThat(testee.getCompleted()).isEqualTo(4);
+	}
+
+	@Test
+	void aKeyShouldGiveItsTurnToTheOthersAfterABurst() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(1, 100, 2), "test");
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> run = new CopyOnWriteArrayList<>();
+		testee.execute("user1@james.org", () -> {
+			await(release);
+			run.add("user1-0");
+		});
+		for (int i = 1; i <= 4; i++) {
+			String task = "user1-" + i;
+			testee.execute("user1@james.org", () -> run.add(task));
+		}
+		testee.execute("user2@james.org", () -> run.add("user2-0"));
+
+		release.countDown();
+
+		assertThat(testee.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(run).containsExactly("user1-0", "user1-1", "user2-0", "user1-2", "user1-3", "user1-4");
+		assertThat(testee.getYields()).isEqualTo(1);
+	}
+
+	@Test
+	void queueDepthsShouldBeMeasured() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(1, 100, 16), "test");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		testee.execute("user1@james.org", () -> {
+			started.countDown();
+			await(release);
+		});
+		started.await(5, TimeUnit.SECONDS);
+		for (int i = 0; i < 3; i++) {
+			testee.execute("user2@james.org", () -> { });
+		}
+		testee.execute("user3@james.org", () -> { });
+
+		assertThat(testee.getRunning()).isEqualTo(1);
+		assertThat(testee.getQueued()).isEqualTo(4);
+		assertThat(testee.getActiveKeys()).isEqualTo(3);
+		assertThat(testee.getLongestKeyQueue()).isEqualTo(3);
+
+		release.countDown();
+
+		assertThat(testee.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getQueued()).isZero();
+		assertThat(testee.getPeakQueued()).isEqualTo(4);
+		assertThat(testee.getSubmitted()).isEqualTo(5);
+		assertThat(testee.getCompleted()).isEqualTo(5);
+	}
+
+	@Test
+	void aFailingTaskShouldNotStopTheFollowingOnes() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(1, 100, 16), "test");
+
+		CompletableFuture<Boolean> failing = testee.submit("user@james.org", () -> {
+			throw new IllegalStateException("failure");
+		});
+		CompletableFuture<Boolean> following = testee.submit("user@james.org", () -> true);
+
+		assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(IllegalStateException.class);
+		assertThat(following.get(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void closeShouldDropTheTasksWhichDidNotStart() throws Exception {
+		testee = new KeyOrderedExecutor(new KeyOrderingSettings(1, 100, 16), "test");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> run = new CopyOnWriteArrayList<>();
+		testee.execute("user1@james.org", () -> {
+			started.countDown();
+			await(release);
+			run.add("user1");
+		});
+		started.await(5, TimeUnit.SECONDS);
+		testee.execute("user2@james.org", () -> run.add("user2"));
+
+		testee.close();
+		release.countDown();
+
+		assertThat(testee.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(run).containsExactly("user1");
+		assertThatThrownBy(() -> testee.execute("user3@james.org", () -> { }))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	private void execute(String key) {
+		try {
+			testee.execute(key, () -> { });
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.pivots;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasets;
+
+public class CompactPivotMapTest {
+
+	private final CompactPivotMap testee = CompactPivotMap.builder()
+		.add("bob@james.org")
+		.add("alice@james.org")
+		.add("bob@linagora.com")
+		.add("bob@james.org")
+		.add("root")
+		.add("élodie@james.org")
+		.build();
+
+	@Test
+	void sizeShouldIgnoreDuplicates() {
+		assertThat(testee).hasSize(5);
+	}
+
+	@Test
+	void getShouldCreateTheDatasetsOfTheEmail() {
+		assertThat(testee.get("bob@linagora.com").getStringValueAttribute("email")).isEqualTo("bob@linagora.com");
+		assertThat(testee.get("élodie@james.org").getStringValueAttribute("email")).isEqualTo("élodie@james.org");
+		assertThat(testee.get("root").getStringValueAttribute("email")).isEqualTo("root");
+	}
+
+	@Test
+	void getShouldReturnNullForUnknownEmails() {
+		assertThat(testee.get("carol@james.org")).isNull();
+		assertThat(testee.get("bob@unknown.org")).isNull();
+		assertThat(testee.get("root@")).isNull();
+		assertThat(testee.get(42)).isNull();
+		assertThat(testee.containsKey("bob")).isFalse();
+	}
+
+	@Test
+	void iterationShouldMaterializeEveryEmail() {
+		assertThat(testee.keySet())
+			.containsExactly("root", "alice@james.org", "bob@james.org", "élodie@james.org", "bob@linagora.com");
+		assertThat(testee.entrySet())
+			.allSatisfy(entry -> assertThat(entry.getValue().getStringValueAttribute("email")).isEqualTo(entry.getKey()));
+	}
+
+	@Test
+	void emptyMapShouldBeEmpty() {
+		CompactPivotMap empty = CompactPivotMap.builder().build();
+
+		assertThat(empty).isEmpty();
+		assertThat(empty.get("bob@james.org")).isNull();
+	}
+
+	@Test
+	void mapShouldBeReadOnly() {
+		assertThatThrownBy(() -> testee.put("carol@james.org", new LscDatasets()))
+			.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> testee.entrySet().iterator().remove())
+			.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void millionsOfPivotsShouldTakeAFewBytesEach() {
+		int count = 1_000_000;
+
+		CompactPivotMap.Builder builder = CompactPivotMap.builder();
+		IntStream.range(0, count).forEach(i -> builder.add("user" + i + "@james.org"));
+		CompactPivotMap pivots = builder.build();
+
+		assertThat(pivots).hasSize(count);
+		assertThat(pivots.get("user123456@james.org")).isNotNull();
+		// A HashMap of LscDatasets takes above 200 bytes per pivot
+		assertThat(pivots.retainedBytes() / count).isLessThan(24);
+	}
+
+	@Test
+	void retainedBytesShouldCountTheArrays() {
+		CompactPivotMap pivots = CompactPivotMap.builder().add("bob@james.org").add("alice@james.org").build();
+
+		// domains, domainStarts, "alicebob", offsets, and the "@james.org" String
+		assertThat(pivots.retainedBytes()).isEqualTo(24 + 24 + 24 + 32 + 24 + 32);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.resilience.AdaptiveConcurrencyLimiter.Outcome;
+import org.lsc.plugins.connectors.james.resilience.AdaptiveConcurrencyLimiter.Permit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+		return new AdaptiveConcurrencyLimiter(new ConcurrencyLimitSettings(initialLimit, minLimit, maxLimit, 1000, 0.5), now::get);
+	}
+
+	@Test
+	void requestsAboveTheLimitShouldWaitInOrder() {
+		AdaptiveConcurrencyLimiter testee = limiter(2, 1, 10);
+		Permit first = testee.acquire().join();
+		testee.acquire().join();
+		CompletableFuture<Permit> third = testee.acquire();
+		CompletableFuture<Permit> fourth = testee.acquire();
+
+		assertThat(third).isNotDone();
+		assertThat(testee.getQueueLength()).isEqualTo(2);
+
+		first.release(Outcome.IGNORED);
+
+		assertThat(third).isDone();
+		assertThat(fourth).isNotDone();
+		assertThat(testee.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void successesShouldIncreaseTheLimitWhenItIsUsed() {
+		AdaptiveConcurrencyLimiter testee = limiter(2, 1, 3);
+		Permit first = testee.acquire().join();
+		Permit second = testee.acquire().join();
+
+		first.release(Outcome.SUCCESS);
+		second.release(Outcome.SUCCESS);
+		testee.acquire().join().release(Outcome.SUCCESS);
+
+		assertThat(testee.getLimit()).isEqualTo(3);
+	}
+
+	@Test
+	void successesShouldNotIncreaseAnUnusedLimit() {
+		AdaptiveConcurrencyLimiter testee = limiter(10, 1, 20);
+
+		testee.acquire().join().release(Outcome.SUCCESS);
+
+		assertThat(testee.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void overloadSignalsShouldDecreaseTheLimitDownToTheMinimum() {
+		AdaptiveConcurrencyLimiter testee = limiter(8, 3, 10);
+
+		testee.acquire().join().release(Outcome.OVERLOAD);
+		assertThat(testee.getLimit()).isEqualTo(4);
+
+		testee.acquire().join().release(Outcome.OVERLOAD);
+		assertThat(testee.getLimit()).isEqualTo(3);
+		assertThat(testee.getOverloadSignals()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentOverloadSignalsShouldDecreaseTheLimitOnce() {
+		AdaptiveConcurrencyLimiter testee = limiter(8, 1, 10);
+		List<Permit> permits = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			permits.add(testee.acquire().join());
+		}
+
+		permits.forEach(permit -> permit.release(Outcome.OVERLOAD));
+
+		assertThat(testee.getLimit()).isEqualTo(4);
+		assertThat(testee.getOverloadSignals()).isEqualTo(8);
+		// A request sent after the decrease may decrease it again
+		testee.acquire().join().release(Outcome.OVERLOAD);
+		assertThat(testee.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void slowResponsesShouldBeOverloadSignals() {
+		AdaptiveConcurrencyLimiter testee = limiter(8, 1, 10);
+		Permit permit = testee.acquire().join();
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+		permit.release(Outcome.SUCCESS);
+
+		assertThat(testee.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	void releasingTwiceShouldHaveNoEffect() {
+		AdaptiveConcurrencyLimiter testee = limiter(8, 1, 10);
+		Permit permit = testee.acquire().join();
+
+		permit.release(Outcome.OVERLOAD);
+		permit.release(Outcome.OVERLOAD);
+
+		assertThat(testee.getLimit()).isEqualTo(4);
+		assertThat(testee.getInFlight()).isZero();
+	}
+
+	@Test
+	void queueingDelayShouldBeMeasured() {
+		AdaptiveConcurrencyLimiter testee = limiter(1, 1, 10);
+		Permit first = testee.acquire().join();
+		CompletableFuture<Permit> second = testee.acquire();
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+		first.release(Outcome.IGNORED);
+
+		assertThat(second).isDone();
+		assertThat(testee.getQueuedRequests()).isEqualTo(1);
+		assertThat(testee.getAverageQueueingDelayMillis()).isEqualTo(30.0);
+		assertThat(testee.getMaxQueueingDelayMillis()).isEqualTo(30.0);
+	}
+
+	@Test
+	void permitsOfCancelledWaitersShouldBeGivenBack() {
+		AdaptiveConcurrencyLimiter testee = limiter(1, 1, 10);
+		Permit first = testee.acquire().join();
+		testee.acquire().cancel(false);
+		CompletableFuture<Permit> third = testee.acquire();
+
+		first.release(Outcome.IGNORED);
+
+		assertThat(third).isDone();
+		assertThat(testee.getInFlight()).isEqualTo(1);
+	}
+}
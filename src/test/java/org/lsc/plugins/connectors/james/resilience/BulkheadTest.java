@@ -0,0 +1,185 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.http.ConnectionPoolSettings;
+
+public class BulkheadTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private Bulkhead bulkhead(int maxConcurrent, long timeout) {
+		return bulkhead(maxConcurrent, timeout, BulkheadSettings.DEFAULT_MAX_QUEUED);
+	}
+
+	private Bulkhead bulkhead(int maxConcurrent, long timeout, int maxQueued) {
+		return new Bulkhead(new BulkheadSettings(ConnectionPoolSettings.DEFAULT, maxConcurrent, timeout, maxQueued), "test", now::get);
+	}
+
+	@Test
+	void requestsAboveMaxConcurrentShouldWaitInOrder() {
+		Bulkhead testee = bulkhead(2, 60000);
+		CompletableFuture<Response> first = new CompletableFuture<>();
+		CompletableFuture<Response> third = new CompletableFuture<>();
+		testee.execute(() -> first);
+		testee.execute(CompletableFuture::new);
+		CompletableFuture<Boolean> thirdSent = new CompletableFuture<>();
+		testee.execute(() -> {
+			thirdSent.complete(true);
+			return third;
+		});
+		CompletableFuture<Boolean> fourthSent = new CompletableFuture<>();
+		testee.execute(() -> {
+			fourthSent.complete(true);
+			return new CompletableFuture<>();
+		});
+
+		assertThat(thirdSent).isNotDone();
+		assertThat(testee.getQueueLength()).isEqualTo(2);
+		assertThat(testee.getUtilization()).isEqualTo(1.0);
+
+		first.complete(mock(Response.class));
+
+		assertThat(thirdSent).isDone();
+		assertThat(fourthSent).isNotDone();
+		assertThat(testee.getInFlight()).isEqualTo(2);
+		assertThat(testee.getQueuedRequests()).isEqualTo(2);
+		assertThat(testee.getRequests()).isEqualTo(4);
+	}
+
+	@Test
+	void requestsAboveMaxQueuedShouldFailAtOnce() {
+		Bulkhead testee = bulkhead(1, 60000, 1);
+		testee.execute(CompletableFuture::new);
+		testee.execute(CompletableFuture::new);
+		CompletableFuture<Boolean> thirdSent = new CompletableFuture<>();
+
+		CompletableFuture<Response> third = testee.execute(() -> {
+			thirdSent.complete(true);
+			return new CompletableFuture<>();
+		});
+
+		assertThatThrownBy(third::join).hasCauseInstanceOf(BulkheadFullException.class);
+		assertThat(thirdSent).isNotDone();
+		assertThat(testee.getQueueLength()).isEqualTo(1);
+		assertThat(testee.getRejectedRequests()).isEqualTo(1);
+	}
+
+	@Test
+	void failedRequestsShouldReleaseTheirSlot() {
+		Bulkhead testee = bulkhead(1, 60000);
+
+		CompletableFuture<Response> failed = testee.execute(() -> CompletableFuture.failedFuture(new ProcessingException("refused")));
+
+		assertThat(failed).isCompletedExceptionally();
+		assertThat(testee.getInFlight()).isZero();
+	}
+
+	@Test
+	void requestsWithoutResponseShouldFailAfterTheTimeoutAndReleaseTheirSlot() throws Exception {
+		Bulkhead testee = bulkhead(1, 100);
+		Response late = mock(Response.class);
+		Response answer = mock(Response.class);
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		CompletableFuture<Boolean> nextSent = new CompletableFuture<>();
+
+		CompletableFuture<Response> result = testee.execute(() -> response);
+		CompletableFuture<Response> next = testee.execute(() -> {
+			nextSent.complete(true);
+			return CompletableFuture.completedFuture(answer);
+		});
+
+		assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(ProcessingException.class);
+		assertThat(testee.getTimeouts()).isEqualTo(1);
+		assertThat(nextSent).isDone();
+		assertThat(next.join()).isSameAs(answer);
+
+		response.complete(late);
+
+		verify(late).close();
+		assertThat(testee.getInFlight()).isZero();
+	}
+
+	@Test
+	void responsesInTimeShouldNotBeClosed() {
+		Bulkhead testee = bulkhead(1, 60000);
+		Response response = mock(Response.class);
+
+		assertThat(testee.execute(() -> CompletableFuture.completedFuture(response)).join()).isSameAs(response);
+
+		verify(response, never()).close();
+		assertThat(testee.getTimeouts()).isZero();
+	}
+
+	@Test
+	void averageUtilizationShouldBeTheShareOfTheSlotsTakenOverTime() {
+		Bulkhead testee = bulkhead(2, 60000);
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		testee.execute(() -> response);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		response.complete(mock(Response.class));
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+		// One slot of two taken during one second of two
+		assertThat(testee.getAverageUtilization()).isEqualTo(0.25);
+		assertThat(testee.getUtilization()).isZero();
+		assertThat(testee.getPeakInFlight()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final AtomicInteger calls = new AtomicInteger();
+	private final CircuitBreaker testee = new CircuitBreaker(
+		new CircuitBreakerSettings(50, 1000, 100, 4, 4, 10000, 2), "james", now::get);
+
+	private Supplier<CompletableFuture<Response>> status(int status) {
+		return () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(Response.status(status).build());
+		};
+	}
+
+	private Supplier<CompletableFuture<Response>> connectionFailure() {
+		return () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.failedFuture(new ProcessingException("connection refused"));
+		};
+	}
+
+	private Supplier<CompletableFuture<Response>> slow() {
+		return () -> {
+			calls.incrementAndGet();
+			now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+			return CompletableFuture.completedFuture(Response.ok().build());
+		};
+	}
+
+	private void open() {
+		testee.execute(status(200));
+		testee.execute(status(200));
+		testee.execute(status(503));
+		testee.execute(connectionFailure());
+	}
+
+	@Test
+	void circuitShouldStayClosedBelowTheMinimumNumberOfCalls() {
+		testee.execute(status(503));
+		testee.execute(status(503));
+		testee.execute(status(503));
+
+		assertThat(testee.currentState()).isEqualTo(State.CLOSED);
+		assertThat(testee.getFailureRate()).isEqualTo(-1);
+	}
+
+	@Test
+	void circuitShouldOpenWhenTheFailureRateReachesTheThreshold() {
+		open();
+
+		assertThat(testee.currentState()).isEqualTo(State.OPEN);
+		assertThat(testee.getOpenings()).isEqualTo(1);
+	}
+
+	@Test
+	void clientErrorsShouldNotCountAsFailures() {
+		testee.execute(status(404));
+		testee.execute(status(400));
+		testee.execute(status(409));
+		testee.execute(status(503));
+
+		assertThat(testee.currentState()).isEqualTo(State.CLOSED);
+		assertThat(testee.getFailureRate()).isEqualTo(25.0);
+	}
+
+	@Test
+	void requestsRejectedByAFullBulkheadShouldNotBeRecorded() {
+		for (int i = 0; i < 4; i++) {
+			testee.execute(() -> CompletableFuture.failedFuture(new BulkheadFullException("full")));
+		}
+		testee.execute(status(200));
+
+		assertThat(testee.currentState()).isEqualTo(State.CLOSED);
+		assertThat(testee.getFailureRate()).isEqualTo(-1);
+	}
+
+	@Test
+	void circuitShouldOpenWhenAllCallsAreSlow() {
+		for (int i = 0; i < 4; i++) {
+			testee.execute(slow());
+		}
+
+		assertThat(testee.currentState()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void openCircuitShouldFailFastWithoutCallingJames() {
+		open();
+		calls.set(0);
+
+		assertThatThrownBy(() -> testee.execute(status(200)).join())
+			.isInstanceOf(CompletionException.class)
+			.hasCauseInstanceOf(CircuitBreakerOpenException.class);
+		assertThat(calls).hasValue(0);
+		assertThat(testee.getRejectedCalls()).isEqualTo(1);
+	}
+
+	@Test
+	void successfulProbesShouldCloseTheCircuit() {
+		open();
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+		assertThat(testee.currentState()).isEqualTo(State.HALF_OPEN);
+		testee.execute(status(200));
+		assertThat(testee.currentState()).isEqualTo(State.HALF_OPEN);
+		testee.execute(status(204));
+
+		assertThat(testee.currentState()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void failedProbesShouldReopenTheCircuit() {
+		open();
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+		testee.execute(status(200));
+		testee.execute(status(503));
+
+		assertThat(testee.currentState()).isEqualTo(State.OPEN);
+		assertThat(testee.getOpenings()).isEqualTo(2);
+	}
+
+	@Test
+	void callsBeyondTheProbesShouldFailFast() {
+		open();
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		CompletableFuture<Response> pendingProbe = new CompletableFuture<>();
+		testee.execute(() -> pendingProbe);
+		testee.execute(() -> new CompletableFuture<>());
+		calls.set(0);
+
+		assertThatThrownBy(() -> testee.execute(status(200)).join())
+			.hasCauseInstanceOf(CircuitBreakerOpenException.class);
+		assertThat(calls).hasValue(0);
+	}
+
+	@Test
+	void callsStartedBeforeATransitionShouldNotBeRecorded() {
+		CompletableFuture<Response> lateCall = new CompletableFuture<>();
+		testee.execute(() -> lateCall);
+		open();
+
+		lateCall.complete(Response.status(503).build());
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		testee.execute(status(200));
+		testee.execute(status(200));
+
+		assertThat(testee.currentState()).isEqualTo(State.CLOSED);
+	}
+}
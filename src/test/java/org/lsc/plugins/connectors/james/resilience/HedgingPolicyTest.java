@@ -0,0 +1,167 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+
+public class HedgingPolicyTest {
+
+	private final AtomicInteger hedges = new AtomicInteger();
+
+	private static HedgingPolicy policy(double maxHedgeRatio) {
+		HedgingPolicy policy = new HedgingPolicy(new HedgingSettings(50, 0, 10, 2, maxHedgeRatio, null));
+		policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+		policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+		return policy;
+	}
+
+	private CompletableFuture<Response> hedge(Response response) {
+		hedges.incrementAndGet();
+		return CompletableFuture.completedFuture(response);
+	}
+
+	@Test
+	void readsShouldNotBeHedgedBeforeEnoughLatenciesAreSampled() throws Exception {
+		HedgingPolicy testee = new HedgingPolicy(new HedgingSettings(50, 0, 10, 2, 1, null));
+		CompletableFuture<Response> primary = new CompletableFuture<>();
+
+		CompletableFuture<Response> result = testee.execute(() -> primary, () -> hedge(Response.ok().build()));
+		Thread.sleep(50);
+
+		assertThat(result).isNotDone();
+		assertThat(hedges).hasValue(0);
+		assertThat(testee.getHedgeDelayMillis()).isEqualTo(-1);
+	}
+
+	@Test
+	void hedgeDelayShouldBeThePercentileOfTheLatencies() {
+		assertThat(policy(1).getHedgeDelayMillis()).isEqualTo(10.0);
+	}
+
+	@Test
+	void fastReadsShouldNotBeHedged() throws Exception {
+		HedgingPolicy testee = policy(1);
+
+		Response response = testee.execute(() -> CompletableFuture.completedFuture(Response.ok().build()),
+			() -> hedge(Response.ok().build())).join();
+		Thread.sleep(50);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(hedges).hasValue(0);
+	}
+
+	@Test
+	void slowReadsShouldBeAnsweredByTheHedge() {
+		HedgingPolicy testee = policy(1);
+		CompletableFuture<Response> primary = new CompletableFuture<>();
+
+		Response response = testee.execute(() -> primary, () -> hedge(Response.noContent().build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(204);
+		assertThat(testee.getHedges()).isEqualTo(1);
+		assertThat(testee.getHedgeWins()).isEqualTo(1);
+	}
+
+	@Test
+	void primaryShouldWinWhenTheHedgeFails() {
+		HedgingPolicy testee = policy(1);
+		CompletableFuture<Response> primary = new CompletableFuture<>();
+
+		CompletableFuture<Response> result = testee.execute(() -> primary, () -> hedge(Response.status(503).build()));
+		primary.completeAsync(() -> Response.ok().build(), CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+		assertThat(result.join().getStatus()).isEqualTo(200);
+		assertThat(testee.getHedgeWins()).isZero();
+	}
+
+	@Test
+	void firstFailureShouldBeReturnedWhenBothLegsFail() {
+		HedgingPolicy testee = policy(1);
+		CompletableFuture<Response> primary = new CompletableFuture<>();
+
+		CompletableFuture<Response> result = testee.execute(() -> primary, () -> {
+			hedges.incrementAndGet();
+			return CompletableFuture.failedFuture(new ProcessingException("hedge"));
+		});
+		primary.completeAsync(() -> Response.status(500).build(), CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+		assertThatThrownBy(result::join)
+			.isInstanceOf(CompletionException.class)
+			.hasCauseInstanceOf(ProcessingException.class);
+	}
+
+	@Test
+	void failingPrimaryShouldNotBeHedged() throws Exception {
+		HedgingPolicy testee = policy(1);
+
+		Response response = testee.execute(() -> CompletableFuture.completedFuture(Response.status(503).build()),
+			() -> hedge(Response.ok().build())).join();
+		Thread.sleep(50);
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(hedges).hasValue(0);
+	}
+
+	@Test
+	void hedgesShouldBeBoundedByTheRatio() throws Exception {
+		HedgingPolicy testee = policy(0.5);
+
+		testee.execute(CompletableFuture::new, () -> hedge(Response.ok().build()));
+		testee.execute(CompletableFuture::new, () -> hedge(Response.ok().build()));
+		testee.execute(CompletableFuture::new, () -> hedge(Response.ok().build()));
+		Thread.sleep(100);
+
+		assertThat(hedges).hasValue(1);
+		assertThat(testee.getSkippedHedges()).isEqualTo(2);
+	}
+}
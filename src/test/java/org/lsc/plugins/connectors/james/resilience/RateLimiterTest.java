@@ -0,0 +1,218 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.generated.RateLimitType;
+import org.lsc.plugins.connectors.james.generated.RateLimitWindowType;
+
+public class RateLimiterTest {
+
+	private static final ZoneId ZONE = ZoneOffset.UTC;
+	// A Saturday
+	private static final LocalDateTime SATURDAY_NOON = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+	private final AtomicLong now = new AtomicLong();
+
+	private RateLimiter rateLimiter(RateLimitType configuration, LocalDateTime time) {
+		return new RateLimiter(RateLimitSettings.from(configuration), clockAt(time), now::get);
+	}
+
+	private static Clock clockAt(LocalDateTime time) {
+		return Clock.fixed(time.toInstant(ZoneOffset.UTC), ZONE);
+	}
+
+	private static RateLimitType rates(Double readsPerSecond, Double writesPerSecond, Integer burst) {
+		RateLimitType configuration = new RateLimitType();
+		configuration.setReadsPerSecond(readsPerSecond);
+		configuration.setWritesPerSecond(writesPerSecond);
+		configuration.setBurst(burst);
+		return configuration;
+	}
+
+	private static RateLimitWindowType window(String days, String from, String to, Double readsPerSecond, Double writesPerSecond) {
+		RateLimitWindowType window = new RateLimitWindowType();
+		window.setDays(days);
+		window.setFrom(from);
+		window.setTo(to);
+		window.setReadsPerSecond(readsPerSecond);
+		window.setWritesPerSecond(writesPerSecond);
+		return window;
+	}
+
+	@Test
+	void requestsWithinTheBurstShouldNotWait() {
+		RateLimiter testee = rateLimiter(rates(10.0, 10.0, 2), SATURDAY_NOON);
+
+		assertThat(testee.reserve(true)).isZero();
+		assertThat(testee.reserve(true)).isZero();
+		assertThat(testee.getThrottledReads()).isZero();
+	}
+
+	@Test
+	void requestsAboveTheRateShouldWaitInTurn() {
+		RateLimiter testee = rateLimiter(rates(10.0, 10.0, 1), SATURDAY_NOON);
+
+		assertThat(testee.reserve(true)).isZero();
+		assertThat(testee.reserve(true)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(testee.reserve(true)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+		assertThat(testee.getThrottledReads()).isEqualTo(2);
+		assertThat(testee.getThrottleDelayMillis()).isEqualTo(300);
+	}
+
+	@Test
+	void bucketShouldRefillOverTime() {
+		RateLimiter testee = rateLimiter(rates(10.0, 10.0, 1), SATURDAY_NOON);
+		testee.reserve(true);
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+		assertThat(testee.reserve(true)).isZero();
+	}
+
+	@Test
+	void readsAndWritesShouldHaveTheirOwnBudget() {
+		RateLimiter testee = rateLimiter(rates(1.0, 1.0, 1), SATURDAY_NOON);
+
+		assertThat(testee.reserve(true)).isZero();
+		assertThat(testee.reserve(false)).isZero();
+		assertThat(testee.reserve(false)).isPositive();
+		assertThat(testee.getThrottledWrites()).isEqualTo(1);
+		assertThat(testee.getThrottledReads()).isZero();
+	}
+
+	@Test
+	void absentRatesShouldBeUnlimited() {
+		RateLimiter testee = rateLimiter(rates(null, 1.0, 1), SATURDAY_NOON);
+
+		for (int i = 0; i < 1000; i++) {
+			assertThat(testee.reserve(true)).isZero();
+		}
+		assertThat(testee.getReadsPerSecond()).isEqualTo(-1);
+		assertThat(testee.getWritesPerSecond()).isEqualTo(1);
+	}
+
+	@Test
+	void windowsShouldOverrideTheRates() {
+		RateLimitType configuration = rates(null, null, null);
+		configuration.getWindow().add(window("MONDAY TUESDAY WEDNESDAY THURSDAY FRIDAY", "08:00", "19:00", 5.0, 2.0));
+		RateLimitSettings settings = RateLimitSettings.from(configuration);
+
+		RateLimitSettings.Rates businessHours = settings.ratesAt(LocalDateTime.of(2026, 10, 19, 10, 0));
+		assertThat(businessHours.getReadsPerSecond()).isEqualTo(5.0);
+		assertThat(businessHours.getWritesPerSecond()).isEqualTo(2.0);
+		assertThat(settings.ratesAt(LocalDateTime.of(2026, 10, 19, 19, 0)).getWritesPerSecond()).isInfinite();
+		assertThat(settings.ratesAt(SATURDAY_NOON).getWritesPerSecond()).isInfinite();
+	}
+
+	@Test
+	void windowsShouldSpanMidnightAndInheritTheRates() {
+		RateLimitType configuration = rates(20.0, 10.0, null);
+		configuration.getWindow().add(window("friday", "22:00", "02:00", null, 1.0));
+		RateLimitSettings settings = RateLimitSettings.from(configuration);
+
+		assertThat(settings.ratesAt(LocalDateTime.of(2026, 10, 17, 1, 0)).getWritesPerSecond()).isEqualTo(1.0);
+		assertThat(settings.ratesAt(LocalDateTime.of(2026, 10, 17, 1, 0)).getReadsPerSecond()).isEqualTo(20.0);
+		assertThat(settings.ratesAt(LocalDateTime.of(2026, 10, 16, 23, 0)).getWritesPerSecond()).isEqualTo(1.0);
+		assertThat(settings.ratesAt(LocalDateTime.of(2026, 10, 18, 1, 0)).getWritesPerSecond()).isEqualTo(10.0);
+	}
+
+	@Test
+	void ratesShouldFollowTheClock() {
+		RateLimitType configuration = rates(null, null, 1);
+		configuration.getWindow().add(window(null, "12:00", "13:00", 1.0, 1.0));
+		MutableClock clock = new MutableClock(SATURDAY_NOON.minusMinutes(1));
+		RateLimiter testee = new RateLimiter(RateLimitSettings.from(configuration), clock, now::get);
+
+		testee.reserve(false);
+		assertThat(testee.reserve(false)).isZero();
+
+		clock.time = SATURDAY_NOON;
+		assertThat(testee.reserve(false)).isZero();
+		assertThat(testee.reserve(false)).isPositive();
+		assertThat(testee.getWritesPerSecond()).isEqualTo(1.0);
+	}
+
+	@Test
+	void invalidWindowsShouldBeRejected() {
+		RateLimitType configuration = rates(null, null, null);
+		configuration.getWindow().add(window("HOLIDAY", "08:00", "19:00", 1.0, 1.0));
+
+		assertThatThrownBy(() -> RateLimitSettings.from(configuration))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("HOLIDAY");
+	}
+
+	private static class MutableClock extends Clock {
+		private LocalDateTime time;
+
+		MutableClock(LocalDateTime time) {
+			this.time = time;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZONE;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return time.toInstant(ZoneOffset.UTC);
+		}
+	}
+}
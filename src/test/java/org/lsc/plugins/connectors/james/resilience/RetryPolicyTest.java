@@ -0,0 +1,204 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+
+public class RetryPolicyTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private static RetrySettings settings(int maxAttempts, double budgetRatio, int budgetReserve) {
+		return new RetrySettings(maxAttempts, 5, 50, 2.0, budgetRatio, budgetReserve);
+	}
+
+	private Supplier<CompletableFuture<Response>> responses(Object... outcomes) {
+		Deque<Object> remaining = new ArrayDeque<>(Arrays.asList(outcomes));
+		return () -> {
+			calls.incrementAndGet();
+			Object outcome = remaining.size() > 1 ? remaining.poll() : remaining.peek();
+			if (outcome instanceof Throwable) {
+				return CompletableFuture.failedFuture((Throwable) outcome);
+			}
+			return CompletableFuture.completedFuture((Response) outcome);
+		};
+	}
+
+	@Test
+	void transientStatusesShouldBeRetried() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		Response response = testee.execute(responses(Response.status(503).build(), Response.status(429).build(), Response.ok().build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(calls).hasValue(3);
+		assertThat(testee.getRetriedRequests()).isEqualTo(1);
+		assertThat(testee.getRetries()).isEqualTo(2);
+		assertThat(testee.getRecoveredRequests()).isEqualTo(1);
+	}
+
+	@Test
+	void connectionFailuresShouldBeRetried() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		Response response = testee.execute(responses(new ProcessingException("connection refused"), Response.noContent().build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(204);
+		assertThat(calls).hasValue(2);
+	}
+
+	@Test
+	void requestsRejectedByAFullBulkheadShouldNotBeRetried() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		assertThatThrownBy(() -> testee.execute(responses(new BulkheadFullException("full"), Response.noContent().build())).join())
+			.hasCauseInstanceOf(BulkheadFullException.class);
+		assertThat(calls).hasValue(1);
+		assertThat(testee.getRetries()).isZero();
+	}
+
+	@Test
+	void otherStatusesShouldNotBeRetried() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		Response response = testee.execute(responses(Response.status(500).build(), Response.ok().build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(500);
+		assertThat(calls).hasValue(1);
+		assertThat(testee.getRetries()).isZero();
+	}
+
+	@Test
+	void otherFailuresShouldNotBeRetried() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		assertThatThrownBy(() -> testee.execute(responses(new IllegalStateException())).join())
+			.isInstanceOf(CompletionException.class)
+			.hasCauseInstanceOf(IllegalStateException.class);
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void lastAttemptShouldBeReturnedWhenAttemptsAreExhausted() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		Response response = testee.execute(responses(Response.status(503).build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(calls).hasValue(3);
+		assertThat(testee.getExhaustedRequests()).isEqualTo(1);
+		assertThat(testee.getRecoveredRequests()).isZero();
+	}
+
+	@Test
+	void retriesShouldStopWhenTheBudgetIsSpent() {
+		RetryPolicy testee = new RetryPolicy(settings(5, 0, 2));
+
+		Response response = testee.execute(responses(Response.status(503).build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(calls).hasValue(3);
+		assertThat(testee.getBudgetRejections()).isEqualTo(1);
+		assertThat(testee.getBudgetBalance()).isZero();
+	}
+
+	@Test
+	void requestsShouldRefillTheBudget() {
+		RetryPolicy testee = new RetryPolicy(settings(2, 0.5, 1));
+		testee.execute(responses(Response.status(503).build())).join();
+		calls.set(0);
+
+		testee.execute(responses(Response.ok().build())).join();
+		testee.execute(responses(Response.status(503).build(), Response.ok().build())).join();
+
+		assertThat(calls).hasValue(3);
+		assertThat(testee.getRecoveredRequests()).isEqualTo(1);
+	}
+
+	@Test
+	void retryAfterLongerThanTheMaxBackoffShouldStopTheRetries() {
+		RetryPolicy testee = new RetryPolicy(settings(3, 0.1, 10));
+
+		Response response = testee.execute(responses(Response.status(503).header("Retry-After", "120").build())).join();
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void retryAfterShouldDelayTheRetry() {
+		RetryPolicy testee = new RetryPolicy(new RetrySettings(2, 0, 2000, 2.0, 0.1, 10));
+
+		long start = System.nanoTime();
+		testee.execute(responses(Response.status(429).header("Retry-After", "1").build(), Response.ok().build())).join();
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+		assertThat(testee.getRetryDelayMillis()).isEqualTo(1000);
+	}
+
+	@Test
+	void retryAfterShouldAcceptSecondsAndHttpDates() {
+		Instant now = Instant.parse("2026-10-17T10:00:00Z");
+
+		assertThat(RetryPolicy.retryAfter("3", now)).contains(Duration.ofSeconds(3));
+		assertThat(RetryPolicy.retryAfter("Sat, 17 Oct 2026 10:00:05 GMT", now)).contains(Duration.ofSeconds(5));
+		assertThat(RetryPolicy.retryAfter("Sat, 17 Oct 2026 09:00:00 GMT", now)).contains(Duration.ZERO);
+		assertThat(RetryPolicy.retryAfter("soon", now)).isEmpty();
+		assertThat(RetryPolicy.retryAfter(null, now)).isEmpty();
+	}
+}
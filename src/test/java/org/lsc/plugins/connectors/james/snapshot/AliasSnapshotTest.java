@@ -0,0 +1,163 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.JamesWebadminStub;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.generated.CircuitBreakerType;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.resilience.CircuitBreakerOpenException;
+
+public class AliasSnapshotTest {
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private JamesWebadminStub webadmin;
+	private JamesDao jamesDao;
+
+	@BeforeEach
+	void setup() throws Exception {
+		StringBuilder users = new StringBuilder("[\"broken@james.org\",\"empty@james.org\"");
+		for (int i = 0; i < 10; i++) {
+			users.append(",\"user").append(i).append("@james.org\"");
+		}
+		String userList = users.append("]").toString();
+		webadmin = new JamesWebadminStub()
+			.handle("/address/aliases", exchange -> {
+				String path = exchange.getRequestURI().getPath();
+				if (path.equals("/address/aliases") || path.equals("/address/aliases/")) {
+					JamesWebadminStub.respond(exchange, 200, userList);
+				} else if (path.endsWith("/broken@james.org")) {
+					JamesWebadminStub.respond(exchange, 500, "{}");
+				} else if (path.endsWith("/empty@james.org")) {
+					JamesWebadminStub.respond(exchange, 200, "[]");
+				} else {
+					maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					inFlight.decrementAndGet();
+					String email = path.substring(path.lastIndexOf('/') + 1);
+					JamesWebadminStub.respond(exchange, 200, "[{\"source\":\"alias-" + email + "\"}]");
+				}
+			});
+		jamesDao = new JamesDao(webadmin.getUrl(), "token", new JamesAliasService());
+	}
+
+	@AfterEach
+	void tearDown() {
+		jamesDao.close();
+		webadmin.close();
+	}
+
+	@Test
+	void fetchShouldReadTheAliasesOfEveryListedUser() {
+		AliasSnapshot snapshot = AliasSnapshot.fetch(jamesDao, 4);
+
+		assertThat(snapshot.size()).isEqualTo(10);
+		assertThat(snapshot.covers("user3@james.org")).isTrue();
+		assertThat(snapshot.get("user3@james.org")).containsExactly(new Alias("alias-user3@james.org"));
+	}
+
+	@Test
+	void fetchShouldBoundTheRequestsInFlight() {
+		AliasSnapshot.fetch(jamesDao, 2);
+
+		assertThat(maxInFlight.get()).isEqualTo(2);
+	}
+
+	@Test
+	void unlistedAndEmptyUsersShouldBeDefinitivelyWithoutAlias() {
+		AliasSnapshot snapshot = AliasSnapshot.fetch(jamesDao, 4);
+
+		assertThat(snapshot.covers("unknown@james.org")).isTrue();
+		assertThat(snapshot.get("unknown@james.org")).isNull();
+		assertThat(snapshot.covers("empty@james.org")).isTrue();
+		assertThat(snapshot.get("empty@james.org")).isNull();
+	}
+
+	@Test
+	void usersFailingToBeFetchedShouldNotBeCovered() {
+		AliasSnapshot snapshot = AliasSnapshot.fetch(jamesDao, 4);
+
+		assertThat(snapshot.covers("broken@james.org")).isFalse();
+	}
+
+	@Test
+	void invalidatedUsersShouldNotBeCovered() {
+		AliasSnapshot snapshot = AliasSnapshot.fetch(jamesDao, 4);
+
+		snapshot.invalidate("user3@james.org");
+
+		assertThat(snapshot.covers("user3@james.org")).isFalse();
+		assertThat(snapshot.get("user3@james.org")).isNull();
+	}
+
+	@Test
+	void fetchShouldFailWhenTheCircuitOpens() {
+		JamesAliasService service = new JamesAliasService();
+		CircuitBreakerType circuitBreaker = new CircuitBreakerType();
+		circuitBreaker.setWindowSize(2);
+		circuitBreaker.setMinimumCalls(2);
+		service.setCircuitBreaker(circuitBreaker);
+
+		try (JamesDao breaking = new JamesDao(webadmin.getUrl(), "token", service)) {
+			breaking.getAliasesAsync("broken@james.org").exceptionally(e -> null).join();
+			breaking.getAliasesAsync("broken@james.org").exceptionally(e -> null).join();
+
+			assertThatThrownBy(() -> AliasSnapshot.fetch(breaking, 4))
+				.isInstanceOf(CircuitBreakerOpenException.class);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the startup load of a {@link DestinationSnapshot} holding the
+ * aliases of a James server, 5 per user, so 5 million aliases for a million
+ * users, and its lookups once loaded. The main method also prints the heap
+ * the loaded snapshot retains, the aliases themselves staying in the mapped
+ * file.
+ *
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.lsc.plugins.connectors.james.snapshot.DestinationSnapshotBenchmark}
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class DestinationSnapshotBenchmark {
+
+	private static final int ALIASES_PER_USER = 5;
+
+	@Param({"1000000"})
+	public int userCount;
+
+	private Path directory;
+	private DestinationSnapshotSettings settings;
+	private DestinationSnapshot loaded;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("snapshot-benchmark");
+		settings = new DestinationSnapshotSettings(directory, false, 1, 0.5, 0);
+		write(settings, userCount);
+		loaded = DestinationSnapshot.open(settings, "http://james:8000", "aliases");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		loaded.close();
+		delete(directory);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	public int load() throws IOException {
+		DestinationSnapshot snapshot = DestinationSnapshot.open(settings, "http://james:8000", "aliases");
+		int size = snapshot.size();
+		snapshot.close();
+		return size;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<String> get() {
+		return loaded.get("user" + ThreadLocalRandom.current().nextInt(userCount) + "@james.org");
+	}
+
+	private static void write(DestinationSnapshotSettings settings, int userCount) throws IOException {
+		try (DestinationSnapshot snapshot = DestinationSnapshot.open(settings, "http://james:8000", "aliases")) {
+			snapshot.refresh(consumer -> 0, false);
+			for (int i = 0; i < userCount; i++) {
+				List<String> aliases = new ArrayList<>(ALIASES_PER_USER);
+				for (int j = 0; j < ALIASES_PER_USER; j++) {
+					aliases.add("alias" + j + "-user" + i + "@james.org");
+				}
+				snapshot.put("user" + i + "@james.org", aliases);
+			}
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (var files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	private static long size(Path directory) throws IOException {
+		try (var files = Files.list(directory)) {
+			return files.mapToLong(file -> file.toFile().length()).sum();
+		}
+	}
+
+	private static long usedHeap() {
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		new Runner(new OptionsBuilder()
+			.include(DestinationSnapshotBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build())
+			.run();
+
+		int userCount = 1_000_000;
+		Path directory = Files.createTempDirectory("snapshot-benchmark");
+		DestinationSnapshotSettings settings = new DestinationSnapshotSettings(directory, false, 1, 0.5, 0);
+		write(settings, userCount);
+		long before = usedHeap();
+		try (DestinationSnapshot snapshot = DestinationSnapshot.open(settings, "http://james:8000", "aliases")) {
+			long retained = usedHeap() - before;
+			System.out.printf("%d users, %d aliases: %d MB of file, %d MB of heap retained once loaded%n",
+				snapshot.size(), (long) snapshot.size() * ALIASES_PER_USER, size(directory) >> 20, retained >> 20);
+		}
+		delete(directory);
+	}
+}
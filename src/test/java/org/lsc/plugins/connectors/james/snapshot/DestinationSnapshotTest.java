@@ -0,0 +1,320 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DestinationSnapshotTest {
+
+	private static final String ENDPOINT = "http://james:8000";
+	private static final String USER = "user@james.org";
+	private static final String OTHER_USER = "other@james.org";
+
+	@TempDir
+	Path directory;
+
+	private DestinationSnapshotSettings settings;
+	private final List<DestinationSnapshot> opened = new ArrayList<>();
+
+	@BeforeEach
+	void setup() {
+		settings = new DestinationSnapshotSettings(directory, false, 1, 0.5, 0);
+	}
+
+	@AfterEach
+	void closeAll() {
+		opened.forEach(DestinationSnapshot::close);
+	}
+
+	@Test
+	void entriesShouldBeSortedAndKeptAcrossRuns() throws Exception {
+		DestinationSnapshot testee = open();
+		testee.refresh(listing(), false);
+		testee.put(USER, List.of("b@james.org", "a@james.org", "b@james.org"));
+		testee.close();
+
+		DestinationSnapshot reopened = open();
+
+		assertThat(reopened.get(USER)).containsExactly("a@james.org", "b@james.org");
+		assertThat(reopened.size()).isEqualTo(1);
+	}
+
+	@Test
+	void refreshShouldOnlyReturnTheEmailsMissingFromTheSnapshot() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("alias@james.org"));
+		previous.close();
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.refresh(listing(USER, OTHER_USER), false)).containsExactly(OTHER_USER);
+		assertThat(testee.covers(USER)).isTrue();
+		assertThat(testee.get(USER)).containsExactly("alias@james.org");
+	}
+
+	@Test
+	void refreshShouldRemoveTheEntriesJamesDoesNotListAnymore() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("alias@james.org"));
+		previous.put(OTHER_USER, List.of("other-alias@james.org"));
+		previous.close();
+
+		DestinationSnapshot testee = open();
+		testee.refresh(listing(OTHER_USER), false);
+
+		assertThat(testee.get(USER)).isNull();
+		assertThat(testee.size()).isEqualTo(1);
+		testee.close();
+		assertThat(open().get(USER)).isNull();
+	}
+
+	@Test
+	void eachEntryShouldBeReadAgainOnceWithinTheRereadCycle() throws Exception {
+		settings = new DestinationSnapshotSettings(directory, false, 1, 0.5, 3);
+		String[] emails = IntStream.range(0, 300).mapToObj(i -> "user" + i + "@james.org").toArray(String[]::new);
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		for (String email : emails) {
+			previous.put(email, List.of("alias@james.org"));
+		}
+		previous.close();
+
+		List<String> reread = new ArrayList<>();
+		for (int run = 0; run < 3; run++) {
+			DestinationSnapshot testee = open();
+			List<String> toRead = testee.refresh(listing(emails), false);
+			assertThat(toRead).hasSizeBetween(50, 150);
+			reread.addAll(toRead);
+			testee.close();
+		}
+
+		assertThat(reread).containsExactlyInAnyOrder(emails);
+	}
+
+	@Test
+	void verifyingShouldReturnAllTheListedEmails() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("alias@james.org"));
+		previous.close();
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.refresh(listing(USER, OTHER_USER), true)).containsExactly(USER, OTHER_USER);
+	}
+
+	@Test
+	void unchangedEntriesShouldNotBeAppended() throws Exception {
+		DestinationSnapshot testee = open();
+		testee.refresh(listing(), false);
+		testee.put(USER, List.of("a@james.org", "b@james.org"));
+
+		testee.put(USER, List.of("b@james.org", "a@james.org"));
+
+		assertThat(testee.getRecords()).isEqualTo(1);
+		assertThat(testee.getUnchanged()).isEqualTo(1);
+	}
+
+	@Test
+	void aTornRecordShouldBeDroppedWhenLoading() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("alias@james.org"));
+		previous.put(OTHER_USER, List.of("other-alias@james.org"));
+		previous.close();
+		Path file = snapshotFile();
+		byte[] content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.get(USER)).containsExactly("alias@james.org");
+		assertThat(testee.get(OTHER_USER)).isNull();
+		assertThat(testee.getRecords()).isEqualTo(1);
+	}
+
+	@Test
+	void aFileOfAnotherFormatShouldBeRebuilt() throws Exception {
+		open().close();
+		Files.writeString(snapshotFile(), "not a snapshot");
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.size()).isZero();
+		assertThat(testee.refresh(listing(USER), false)).containsExactly(USER);
+	}
+
+	@Test
+	void entriesShouldNotBeCoveredWhileWrittenOrUnknown() throws Exception {
+		DestinationSnapshot testee = open();
+		assertThat(testee.covers(USER)).isFalse();
+		testee.refresh(listing(USER, OTHER_USER), false);
+		testee.put(USER, List.of("alias@james.org"));
+		testee.unknown(OTHER_USER);
+
+		testee.writing(USER);
+
+		assertThat(testee.covers(USER)).isFalse();
+		assertThat(testee.covers(OTHER_USER)).isFalse();
+		testee.written(USER, List.of("new-alias@james.org"));
+		assertThat(testee.covers(USER)).isTrue();
+		assertThat(testee.get(USER)).containsExactly("new-alias@james.org");
+	}
+
+	@Test
+	void anEntryWrittenWhenTheProcessStoppedShouldBeReadAgain() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("alias@james.org"));
+		previous.put(OTHER_USER, List.of("other-alias@james.org"));
+
+		// Stops without recording the outcome nor closing the snapshot
+		previous.writing(USER);
+
+		DestinationSnapshot testee = open();
+		assertThat(testee.get(USER)).isNull();
+		assertThat(testee.get(OTHER_USER)).containsExactly("other-alias@james.org");
+		assertThat(testee.refresh(listing(USER, OTHER_USER), false)).containsExactly(USER);
+	}
+
+	@Test
+	void relativeChangesShouldApplyToTheKnownValues() throws Exception {
+		DestinationSnapshot testee = open();
+		testee.refresh(listing(USER), false);
+		testee.put(USER, List.of("a@james.org", "b@james.org"));
+
+		testee.writing(USER);
+		testee.updated(USER, values -> {
+			List<String> changed = new ArrayList<>(values);
+			changed.remove("a@james.org");
+			changed.add("c@james.org");
+			return changed;
+		});
+
+		assertThat(testee.get(USER)).containsExactly("b@james.org", "c@james.org");
+		assertThat(testee.covers(USER)).isTrue();
+	}
+
+	@Test
+	void relativeChangesToUnknownValuesShouldForgetThem() throws Exception {
+		DestinationSnapshot testee = open();
+		testee.refresh(listing(USER), false);
+		testee.unknown(USER);
+
+		testee.writing(USER);
+		testee.updated(USER, values -> List.of("c@james.org"));
+
+		assertThat(testee.covers(USER)).isFalse();
+		assertThat(testee.get(USER)).isNull();
+	}
+
+	@Test
+	void closingShouldDropTheSupersededRecords() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		previous.put(USER, List.of("a@james.org"));
+		previous.put(USER, List.of("b@james.org"));
+		previous.put(USER, List.of("c@james.org"));
+		previous.put(OTHER_USER, List.of("d@james.org"));
+		previous.remove(OTHER_USER);
+		previous.close();
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.getRecords()).isEqualTo(1);
+		assertThat(testee.get(USER)).containsExactly("c@james.org");
+		assertThat(testee.get(OTHER_USER)).isNull();
+	}
+
+	@Test
+	void manyEntriesShouldBeIndexed() throws Exception {
+		DestinationSnapshot previous = open();
+		previous.refresh(listing(), false);
+		for (int i = 0; i < 10_000; i++) {
+			previous.put("user" + i + "@james.org", List.of("alias" + i + "@james.org"));
+		}
+		previous.close();
+
+		DestinationSnapshot testee = open();
+
+		assertThat(testee.size()).isEqualTo(10_000);
+		assertThat(testee.get("user4242@james.org")).containsExactly("alias4242@james.org");
+		assertThat(testee.get("user10000@james.org")).isNull();
+	}
+
+	private DestinationSnapshot open() throws IOException {
+		DestinationSnapshot snapshot = DestinationSnapshot.open(settings, ENDPOINT, "aliases");
+		opened.add(snapshot);
+		return snapshot;
+	}
+
+	private Path snapshotFile() throws IOException {
+		try (var files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith("-aliases.snapshot")).findFirst().orElseThrow();
+		}
+	}
+
+	private static DestinationSnapshot.Listing listing(String... emails) {
+		return consumer -> {
+			for (String email : emails) {
+				consumer.accept(email);
+			}
+			return emails.length;
+		};
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.JamesWebadminStub;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.pivots.CompactPivotMap;
+import org.lsc.plugins.connectors.james.snapshot.UserSnapshot.Membership;
+
+public class UserSnapshotTest {
+
+	private static UserSnapshot snapshot(boolean bloomFilter) {
+		return UserSnapshot.of(CompactPivotMap.builder()
+			.add("bob@james.org")
+			.add("alice@james.org")
+			.build(), bloomFilter);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void containsShouldAnswerFromTheUserList(boolean bloomFilter) {
+		UserSnapshot testee = snapshot(bloomFilter);
+
+		assertThat(testee.contains("bob@james.org")).isEqualTo(Membership.PRESENT);
+		assertThat(testee.contains("carol@james.org")).isEqualTo(Membership.ABSENT);
+	}
+
+	@Test
+	void usersBeingWrittenShouldBeChecked() {
+		UserSnapshot testee = snapshot(true);
+
+		testee.writing("bob@james.org");
+		testee.writing("carol@james.org");
+
+		assertThat(testee.contains("bob@james.org")).isEqualTo(Membership.UNKNOWN);
+		assertThat(testee.contains("carol@james.org")).isEqualTo(Membership.UNKNOWN);
+	}
+
+	@Test
+	void successfulWritesShouldBeRecorded() {
+		UserSnapshot testee = snapshot(true);
+
+		testee.writing("bob@james.org");
+		testee.written("bob@james.org", false);
+		testee.writing("carol@james.org");
+		testee.written("carol@james.org", true);
+
+		assertThat(testee.contains("bob@james.org")).isEqualTo(Membership.ABSENT);
+		assertThat(testee.contains("carol@james.org")).isEqualTo(Membership.PRESENT);
+	}
+
+	@Test
+	void fetchShouldReadTheUserList() throws Exception {
+		try (JamesWebadminStub webadmin = new JamesWebadminStub()
+				.handle("/users", exchange -> JamesWebadminStub.respond(exchange, 200,
+					"[{\"username\":\"user1@james.org\"},{\"username\":\"user2@james.org\"}]"));
+				JamesDao jamesDao = new JamesDao(webadmin.getUrl(), "token", new JamesAliasService())) {
+			UserSnapshot testee = UserSnapshot.fetch(jamesDao, false);
+
+			assertThat(testee.size()).isEqualTo(2);
+			assertThat(testee.contains("user2@james.org")).isEqualTo(Membership.PRESENT);
+			assertThat(webadmin.getRequests()).hasSize(1);
+		}
+	}
+}
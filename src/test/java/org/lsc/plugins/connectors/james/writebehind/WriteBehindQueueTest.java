@@ -0,0 +1,252 @@
+/*
+ ****************************************************************************
+ * Ldap Synchronization Connector provides tools to synchronize
+ * electronic identities from a list of data sources including
+ * any database with a JDBC connector, another LDAP directory,
+ * flat files...
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ * Copyright (c) 2008 - 2026 LSC Project
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+
+ *    * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the LSC Project nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *                  ==LICENSE NOTICE==
+ *
+ *               (c) 2008 - 2026 LSC Project
+ ****************************************************************************
+ */
+package org.lsc.plugins.connectors.james.writebehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.exception.LscServiceCommunicationException;
+import org.lsc.exception.LscServiceException;
+
+public class WriteBehindQueueTest {
+
+	private WriteBehindQueue testee;
+
+	@AfterEach
+	void tearDown() {
+		if (testee != null) {
+			testee.close();
+		}
+	}
+
+	@Test
+	void submitShouldNotWaitForTheWrite() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 2, 5000), "test");
+		CountDownLatch release = new CountDownLatch(1);
+
+		testee.submit("user@james.org", () -> {
+			release.await();
+			return true;
+		});
+
+		assertThat(testee.getPending()).isEqualTo(1);
+		release.countDown();
+		assertThat(testee.flush(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getWritten()).isEqualTo(1);
+		assertThat(testee.getPending()).isZero();
+	}
+
+	@Test
+	void writesOfTheSameKeyShouldBeAppliedInOrder() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(100, 8, 5000), "test");
+		List<Integer> applied = new CopyOnWriteArrayList<>();
+
+		for (int i = 0; i < 50; i++) {
+			int write = i;
+			testee.submit("user@james.org", () -> {
+				Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+				applied.add(write);
+				return true;
+			});
+		}
+
+		assertThat(testee.flush(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(applied).containsExactlyElementsOf(IntStream.range(0, 50).boxed().collect(Collectors.toList()));
+	}
+
+	@Test
+	void writesOfDistinctKeysShouldBeAppliedConcurrently() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 4, 5000), "test");
+		CyclicBarrier allWriting = new CyclicBarrier(4);
+
+		for (int i = 0; i < 4; i++) {
+			testee.submit("user" + i + "@james.org", () -> {
+				allWriting.await(5, TimeUnit.SECONDS);
+				return true;
+			});
+		}
+
+		assertThat(testee.flush(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getWritten()).isEqualTo(4);
+	}
+
+	@Test
+	void submitShouldBlockWhileTheQueueIsFull() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(1, 1, 5000), "test");
+		CountDownLatch release = new CountDownLatch(1);
+		testee.submit("user1@james.org", () -> {
+			release.await();
+			return true;
+		});
+
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+			try {
+				testee.submit("user2@james.org", () -> true);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		Thread.sleep(200);
+		assertThat(blocked).isNotDone();
+		release.countDown();
+		blocked.get(5, TimeUnit.SECONDS);
+		assertThat(testee.flush(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getBlockedSubmissions()).isEqualTo(1);
+		assertThat(testee.getWritten()).isEqualTo(2);
+	}
+
+	@Test
+	void failedWritesShouldBeCounted() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 2, 5000), "test");
+
+		testee.submit("user1@james.org", () -> false);
+		testee.submit("user2@james.org", () -> {
+			throw new IllegalStateException("boom");
+		});
+		testee.submit("user3@james.org", () -> true);
+
+		assertThat(testee.flush(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(testee.getFailed()).isEqualTo(2);
+		assertThat(testee.getWritten()).isEqualTo(1);
+	}
+
+	@Test
+	void communicationFailuresShouldBeThrownByTheNextSubmission() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 2, 5000), "test");
+
+		testee.submit("user1@james.org", () -> {
+			throw new LscServiceCommunicationException("James is down");
+		});
+		testee.flush(5, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> testee.submit("user2@james.org", () -> true))
+			.isInstanceOf(LscServiceCommunicationException.class)
+			.hasRootCauseMessage("James is down");
+		assertThat(testee.getSubmitted()).isEqualTo(1);
+	}
+
+	@Test
+	void failedWritesShouldBeReportedOnce() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 2, 5000), "test");
+
+		testee.submit("user1@james.org", () -> false);
+		testee.submit("user2@james.org", () -> false);
+		testee.flush(5, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> testee.checkFailures())
+			.isInstanceOf(LscServiceException.class)
+			.hasMessage("2 background James writes failed");
+		testee.checkFailures();
+	}
+
+	@Test
+	void failuresToReachJamesShouldBeReportedAsCommunicationFailures() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 2, 5000), "test");
+
+		testee.submit("user1@james.org", () -> {
+			throw new LscServiceCommunicationException("James is down");
+		});
+		testee.flush(5, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> testee.checkFailures())
+			.isInstanceOf(LscServiceCommunicationException.class)
+			.hasRootCauseMessage("James is down");
+	}
+
+	@Test
+	void closeShouldWriteThePendingModifications() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(100, 2, 5000), "test");
+		List<String> applied = new CopyOnWriteArrayList<>();
+
+		for (int i = 0; i < 20; i++) {
+			String key = "user" + i + "@james.org";
+			testee.submit(key, () -> {
+				Thread.sleep(10);
+				return applied.add(key);
+			});
+		}
+		testee.close();
+
+		assertThat(applied).hasSize(20);
+		assertThat(testee.getPending()).isZero();
+	}
+
+	@Test
+	void closeShouldDropTheModificationsStillPendingAfterTheFlushTimeout() throws Exception {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 1, 100), "test");
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> applied = new CopyOnWriteArrayList<>();
+		testee.submit("user@james.org", () -> {
+			release.await();
+			return applied.add("first");
+		});
+		testee.submit("user@james.org", () -> applied.add("second"));
+
+		testee.close();
+		release.countDown();
+
+		Thread.sleep(200);
+		assertThat(applied).containsExactly("first");
+	}
+
+	@Test
+	void submitShouldFailOnceClosed() {
+		testee = new WriteBehindQueue(new WriteBehindSettings(10, 1, 100), "test");
+		testee.close();
+
+		assertThatThrownBy(() -> testee.submit("user@james.org", () -> true))
+			.isInstanceOf(IllegalStateException.class);
+	}
+}